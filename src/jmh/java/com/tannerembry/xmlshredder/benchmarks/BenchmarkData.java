@@ -0,0 +1,137 @@
+package com.tannerembry.xmlshredder.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import com.tannerembry.xmlshredder.importer.ImportInstruction;
+
+/**
+ * Builds the mappings and documents the benchmarks run on. Every document has
+ * the same shape: the records sit below depth wrapping elements, and every record
+ * has an id attribute, one element per mapping and one element without a mapping,
+ * e.g. for 2 mappings at depth 1:
+ *
+ * <level1><record id="r1"><field1>...</field1><field2>...</field2><note>...</note></record></level1>
+ *
+ * @author      Tanner Embry, Claresco Corp <tembry@claresco.com>
+ * @version     1.0
+ * @since       1.0
+ */
+
+public class BenchmarkData {
+
+	public static final String TABLE = "record";
+	public static final String RECORD = "record";
+
+	/**
+	 * Returns the instruction map of a parent mapping (the id attribute of record) with
+	 * one child mapping per field, keyed the way ImporterSettings keys it
+	 * @param mappings The number of child mappings
+	 * @return the instruction map
+	 */
+	public static HashMap<String, ArrayList<ImportInstruction>> instructionMap(int mappings){
+		HashMap<String, ArrayList<ImportInstruction>> instructionMap = new HashMap<>();
+		ImportInstruction parent = new ImportInstruction(RECORD, "id", TABLE, "id");
+		put(instructionMap, RECORD, parent);
+
+		for(int i = 1; i <= mappings; i++){
+			ImportInstruction child = new ImportInstruction(RECORD+".field"+i, "", TABLE, "field"+i);
+			child.setParent(parent);
+			put(instructionMap, "field"+i, child);
+		}
+		return instructionMap;
+	}
+
+	/**
+	 * Returns the xml document
+	 * @param records The number of records
+	 * @param mappings The number of mapped fields of a record
+	 * @param depth The number of elements around the records
+	 * @param valueSize The number of characters of every field
+	 * @return the document encoded as UTF-8
+	 */
+	public static byte[] document(int records, int mappings, int depth, int valueSize){
+		String value = value(valueSize);
+		StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+		for(int d = 1; d <= depth; d++)
+			xml.append("<level").append(d).append('>');
+		xml.append('\n');
+
+		for(int r = 1; r <= records; r++){
+			xml.append("<record id=\"r").append(r).append("\">");
+			for(int i = 1; i <= mappings; i++)
+				xml.append("<field").append(i).append('>').append(value).append("</field").append(i).append('>');
+			xml.append("<note>").append(value).append("</note></record>\n");
+		}
+
+		for(int d = depth; d >= 1; d--)
+			xml.append("</level").append(d).append('>');
+		xml.append('\n');
+		return xml.toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Returns the dotted path of an element of a record (e.g. level1.record.field2)
+	 * @param depth The number of elements around the records
+	 * @param element The name of the element below record (null for record itself)
+	 * @return the path
+	 */
+	public static String path(int depth, String element){
+		StringBuilder path = new StringBuilder();
+		for(int d = 1; d <= depth; d++)
+			path.append("level").append(d).append('.');
+		path.append(RECORD);
+		if(element != null)
+			path.append('.').append(element);
+		return path.toString();
+	}
+
+	/**
+	 * Returns a value of the size, cycling through the letters
+	 * @param valueSize The number of characters
+	 * @return the value
+	 */
+	public static String value(int valueSize){
+		StringBuilder value = new StringBuilder(valueSize);
+		for(int i = 0; i < valueSize; i++)
+			value.append((char) ('a' + i % 26));
+		return value.toString();
+	}
+
+	/**
+	 * Writes a config file that maps the document but neither uploads nor exports the rows
+	 * @param configFile The file to write
+	 * @param mappings The number of child mappings
+	 * @param parser The parser engine (sax or stax)
+	 * @throws IOException if the file could not be written
+	 */
+	public static void writeConfig(File configFile, int mappings, String parser) throws IOException {
+		try(PrintWriter out = new PrintWriter(configFile, "UTF-8")){
+			out.println("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+			out.println("<config>");
+			out.println("  <misc><upload>false</upload><printqueries>false</printqueries></misc>");
+			out.println("  <performance><parser>"+parser+"</parser></performance>");
+			out.println("  <mapping>");
+			out.println("    <xpath>"+RECORD+"</xpath><xattribute>id</xattribute><dbtable>"+TABLE+"</dbtable><dbfield>id</dbfield>");
+			for(int i = 1; i <= mappings; i++){
+				out.println("    <child_mapping><xpath>"+RECORD+".field"+i+"</xpath><xattribute></xattribute><dbtable>"+TABLE
+						+"</dbtable><dbfield>field"+i+"</dbfield></child_mapping>");
+			}
+			out.println("  </mapping>");
+			out.println("</config>");
+		}
+	}
+
+	private static void put(HashMap<String, ArrayList<ImportInstruction>> instructionMap, String element, ImportInstruction instruction){
+		ArrayList<ImportInstruction> instructions = instructionMap.get(element);
+		if(instructions == null){
+			instructions = new ArrayList<>();
+			instructionMap.put(element, instructions);
+		}
+		instructions.add(instruction);
+	}
+}
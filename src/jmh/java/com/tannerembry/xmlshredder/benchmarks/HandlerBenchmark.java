@@ -0,0 +1,151 @@
+package com.tannerembry.xmlshredder.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.parsers.SAXParserFactory;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.DefaultHandler;
+
+import com.tannerembry.xmlshredder.importer.ImportInstructionManager;
+import com.tannerembry.xmlshredder.importer.SAXImportHandler;
+import com.tannerembry.xmlshredder.importer.SaxEngine;
+
+/**
+ * Measures the SAXImportHandler on its own. The events of the document are recorded
+ * once and replayed to a new handler on every call, so the time of the xml parser is
+ * left out. parseDocument runs the same document through the SAX parser as well.
+ *
+ * @author      Tanner Embry, Claresco Corp <tembry@claresco.com>
+ * @version     1.0
+ * @since       1.0
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HandlerBenchmark {
+
+	private static final int RECORDS = 1000;
+
+	@Param({"4", "16", "64"})
+	public int mappings;
+
+	@Param({"1", "8"})
+	public int depth;
+
+	@Param({"16", "256"})
+	public int valueSize;
+
+	private ImportInstructionManager manager;
+	private byte[] document;
+	private List<Event> events;
+
+	@Setup
+	public void setUp() throws Exception {
+		manager = new ImportInstructionManager(BenchmarkData.instructionMap(mappings));
+		document = BenchmarkData.document(RECORDS, mappings, depth, valueSize);
+
+		EventRecorder recorder = new EventRecorder();
+		SAXParserFactory.newInstance().newSAXParser().parse(new ByteArrayInputStream(document), recorder);
+		events = recorder.events;
+	}
+
+	/**
+	 * Replays the recorded events of RECORDS records to the handler
+	 */
+	@Benchmark
+	public void replayEvents(Blackhole blackhole) throws SAXException {
+		SAXImportHandler handler = new SAXImportHandler(manager, row -> {
+			blackhole.consume(row);
+			return true;
+		});
+		for(Event event : events)
+			event.replay(handler);
+		handler.processFinalEntries();
+	}
+
+	/**
+	 * Parses the RECORDS records with the SAX engine
+	 */
+	@Benchmark
+	public void parseDocument(Blackhole blackhole) throws Exception {
+		SAXImportHandler handler = new SAXImportHandler(manager, row -> {
+			blackhole.consume(row);
+			return true;
+		});
+		new SaxEngine().parse(new InputSource(new ByteArrayInputStream(document)), handler);
+		handler.processFinalEntries();
+	}
+
+	/**
+	 * One recorded start element, end element or piece of text
+	 */
+	private static class Event {
+
+		private String qName;
+		private Attributes attributes; //null for end elements and text
+		private char[] text; //null for elements
+
+		private void replay(DefaultHandler handler) throws SAXException {
+			if(text != null)
+				handler.characters(text, 0, text.length);
+			else if(attributes != null)
+				handler.startElement("", qName, qName, attributes);
+			else
+				handler.endElement("", qName, qName);
+		}
+	}
+
+	/**
+	 * Keeps a copy of every event the parser reports
+	 */
+	private static class EventRecorder extends DefaultHandler {
+
+		private List<Event> events = new ArrayList<>();
+
+		@Override
+		public void startElement(String uri, String localName, String qName, Attributes attributes){
+			Event event = new Event();
+			event.qName = qName;
+			event.attributes = new AttributesImpl(attributes);
+			events.add(event);
+		}
+
+		@Override
+		public void endElement(String uri, String localName, String qName){
+			Event event = new Event();
+			event.qName = qName;
+			events.add(event);
+		}
+
+		@Override
+		public void characters(char[] ch, int start, int length){
+			Event event = new Event();
+			event.text = new char[length];
+			System.arraycopy(ch, start, event.text, 0, length);
+			events.add(event);
+		}
+	}
+}
@@ -0,0 +1,71 @@
+package com.tannerembry.xmlshredder.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.tannerembry.xmlshredder.importer.ImportInstructionManager;
+
+/**
+ * Measures ImportInstructionManager.getInstructions for the elements of one record:
+ * the record, every mapped field and the element without a mapping.
+ *
+ * @author      Tanner Embry, Claresco Corp <tembry@claresco.com>
+ * @version     1.0
+ * @since       1.0
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InstructionLookupBenchmark {
+
+	@Param({"4", "16", "64"})
+	public int mappings;
+
+	@Param({"1", "8"})
+	public int depth;
+
+	private ImportInstructionManager manager;
+	private String[] elements;
+	private String[] paths;
+
+	@Setup
+	public void setUp(){
+		manager = new ImportInstructionManager(BenchmarkData.instructionMap(mappings));
+
+		elements = new String[mappings + 2];
+		paths = new String[mappings + 2];
+		elements[0] = BenchmarkData.RECORD;
+		paths[0] = BenchmarkData.path(depth, null);
+		for(int i = 1; i <= mappings; i++){
+			elements[i] = "field"+i;
+			paths[i] = BenchmarkData.path(depth, elements[i]);
+		}
+		elements[mappings + 1] = "note";
+		paths[mappings + 1] = BenchmarkData.path(depth, "note");
+	}
+
+	/**
+	 * Looks up the instructions of every element of a record
+	 */
+	@Benchmark
+	public void getInstructions(Blackhole blackhole){
+		for(int i = 0; i < elements.length; i++)
+			blackhole.consume(manager.getInstructions(elements[i], paths[i]));
+	}
+}
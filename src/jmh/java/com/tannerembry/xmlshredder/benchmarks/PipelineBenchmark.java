@@ -0,0 +1,92 @@
+package com.tannerembry.xmlshredder.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.tannerembry.xmlshredder.importer.ImportInstructionManager;
+import com.tannerembry.xmlshredder.importer.ImportSummary;
+import com.tannerembry.xmlshredder.importer.ImporterSettings;
+import com.tannerembry.xmlshredder.importer.ImporterTask;
+
+/**
+ * Runs a whole ImporterTask on a data file of RECORDS records: reading the file, parsing,
+ * matching, assembling the rows and handing them to the RowWriter. The config neither
+ * uploads nor exports, so the RowWriter only counts the rows and drops them, and no
+ * database is needed. The score is files per second, multiply by RECORDS for records
+ * per second.
+ *
+ * @author      Tanner Embry, Claresco Corp <tembry@claresco.com>
+ * @version     1.0
+ * @since       1.0
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PipelineBenchmark {
+
+	private static final int RECORDS = 20000;
+
+	@Param({"sax", "stax"})
+	public String parser;
+
+	@Param({"4", "16"})
+	public int mappings;
+
+	@Param({"1", "8"})
+	public int depth;
+
+	@Param({"16", "256"})
+	public int valueSize;
+
+	private File xmlFile;
+	private File configFile;
+	private ImporterSettings settings;
+	private ImportInstructionManager manager;
+
+	@Setup
+	public void setUp() throws IOException {
+		xmlFile = File.createTempFile("xmlshredder-pipeline", ".xml");
+		Files.write(xmlFile.toPath(), BenchmarkData.document(RECORDS, mappings, depth, valueSize));
+
+		configFile = File.createTempFile("xmlshredder-pipeline", ".config.xml");
+		BenchmarkData.writeConfig(configFile, mappings, parser);
+		settings = new ImporterSettings(configFile.getPath());
+		manager = new ImportInstructionManager(settings.getImportInstructionMap());
+	}
+
+	@TearDown
+	public void tearDown(){
+		xmlFile.delete();
+		configFile.delete();
+	}
+
+	/**
+	 * Imports the whole file
+	 */
+	@Benchmark
+	public ImportSummary importFile(){
+		ImportSummary summary = new ImporterTask(xmlFile.getPath(), null, settings, manager, null, null, false).call();
+		if(summary.getRows() != RECORDS)
+			throw new IllegalStateException("Expected "+RECORDS+" rows but got "+summary.getRows());
+		return summary;
+	}
+}
@@ -0,0 +1,93 @@
+package com.tannerembry.xmlshredder.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.tannerembry.xmlshredder.importer.ImportInstruction;
+import com.tannerembry.xmlshredder.importer.ImportInstructionManager;
+import com.tannerembry.xmlshredder.importer.ImportRecord;
+
+/**
+ * Measures filling an ImportRecord and ImportRecord.export, which turns the record into
+ * the ImportRow handed to the writers. exportAndPrint also builds the text of the row that
+ * printqueries=true prints for every row.
+ *
+ * @author      Tanner Embry, Claresco Corp <tembry@claresco.com>
+ * @version     1.0
+ * @since       1.0
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RowExportBenchmark {
+
+	@Param({"4", "16", "64"})
+	public int mappings;
+
+	@Param({"16", "256"})
+	public int valueSize;
+
+	private ImportInstruction instruction;
+	private ImportInstruction[] children;
+	private ImportRecord record;
+	private String value;
+
+	@Setup
+	public void setUp(){
+		ImportInstructionManager manager = new ImportInstructionManager(BenchmarkData.instructionMap(mappings));
+		instruction = manager.getInstructions(BenchmarkData.RECORD, BenchmarkData.RECORD).get(0);
+		children = new ImportInstruction[mappings];
+		for(int i = 0; i < mappings; i++)
+			children[i] = manager.getInstructions("field"+(i + 1), BenchmarkData.path(0, "field"+(i + 1))).get(0);
+		record = new ImportRecord(instruction.getSlots());
+		value = BenchmarkData.value(valueSize);
+	}
+
+	/**
+	 * Assembles one record and exports it
+	 */
+	@Benchmark
+	public boolean export(Blackhole blackhole){
+		return this.record().export(row -> {
+			blackhole.consume(row);
+			return true;
+		}, instruction);
+	}
+
+	/**
+	 * Assembles one record, exports it and builds the printed text of the row
+	 */
+	@Benchmark
+	public boolean exportAndPrint(Blackhole blackhole){
+		return this.record().export(row -> {
+			blackhole.consume(row.toString());
+			return true;
+		}, instruction);
+	}
+
+	/**
+	 * Fills the record the way the handler does for one record
+	 */
+	private ImportRecord record(){
+		record.reset(BenchmarkData.TABLE, "id", "r1");
+		for(ImportInstruction child : children)
+			record.set(child.getSlot(), child.getField(), value);
+		return record;
+	}
+}
@@ -0,0 +1,110 @@
+package com.tannerembry.xmlshredder.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.tannerembry.xmlshredder.exporter.DelimitedExporter;
+import com.tannerembry.xmlshredder.exporter.RowExporter;
+import com.tannerembry.xmlshredder.exporter.SpreadsheetExporter;
+import com.tannerembry.xmlshredder.importer.ImportInstruction;
+
+/**
+ * Measures RowExporter.insertValues for every spreadsheet format. A workbook cannot grow
+ * forever (xlsx keeps every row in memory and a tab holds about a million rows), so the
+ * file is written out and started over every ROWS_PER_FILE rows, and the time of writing
+ * it is part of the measurement.
+ *
+ * @author      Tanner Embry, Claresco Corp <tembry@claresco.com>
+ * @version     1.0
+ * @since       1.0
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class SpreadsheetExportBenchmark {
+
+	private static final int ROWS_PER_FILE = 10000;
+
+	@Param({"xlsx", "streaming", "csv"})
+	public String format;
+
+	@Param({"4", "16"})
+	public int mappings;
+
+	@Param({"16", "256"})
+	public int valueSize;
+
+	private File directory;
+	private String exportPath;
+	private ImportInstruction instruction;
+	private List<String> columns;
+	private List<String> values;
+
+	private RowExporter exporter;
+	private int rows;
+
+	@Setup
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("xmlshredder-export").toFile();
+		exportPath = new File(directory, "output_values.xlsx").getPath();
+		instruction = BenchmarkData.instructionMap(mappings).get(BenchmarkData.RECORD).get(0);
+
+		columns = new ArrayList<>();
+		values = new ArrayList<>();
+		columns.add("id");
+		values.add("r1");
+		for(int i = 1; i <= mappings; i++){
+			columns.add("field"+i);
+			values.add(BenchmarkData.value(valueSize));
+		}
+		exporter = this.createExporter();
+	}
+
+	@TearDown
+	public void tearDown(){
+		exporter.discard();
+		for(File file : directory.listFiles())
+			file.delete();
+		directory.delete();
+	}
+
+	/**
+	 * Adds one row
+	 */
+	@Benchmark
+	public void insertValues(){
+		exporter.insertValues(instruction, columns, values);
+		if(++rows == ROWS_PER_FILE){
+			exporter.export();
+			exporter = this.createExporter();
+			rows = 0;
+		}
+	}
+
+	private RowExporter createExporter(){
+		if(format.equals("csv"))
+			return new DelimitedExporter(exportPath, ',');
+		return new SpreadsheetExporter(exportPath, format.equals("streaming") ? 100 : 0);
+	}
+}
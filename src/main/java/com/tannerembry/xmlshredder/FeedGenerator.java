@@ -0,0 +1,324 @@
+package com.tannerembry.xmlshredder;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+import com.tannerembry.xmlshredder.importer.ImportInstruction;
+import com.tannerembry.xmlshredder.importer.ImportInstructionManager;
+import com.tannerembry.xmlshredder.importer.ImporterSettings;
+
+/**
+ * Writes a data file of any size that matches the mappings of a config file, so
+ * production sized imports can be reproduced without the production data.
+ *
+ * The record element is the one the splitter uses (see ImportInstructionManager.getRecordElement)
+ * and every mapped element and attribute below it gets a random value, except the
+ * value of the parent mappings, which is unique per record. The elements the mapping
+ * paths show above the record element wrap all records, and depth adds more wrapping
+ * elements around those. Unmapped noise elements can be added to every record. For
+ * example_config.xml:
+ *
+ * <level1><catalog><book id="r1"><author>..</author><title>..</title><genre>..</genre><noise1>..</noise1></book>...</catalog></level1>
+ *
+ * The file is written as it is generated (and gzipped if its name ends in .gz), so
+ * its size is only limited by the disk.
+ *
+ * @author      Tanner Embry, Claresco Corp <tembry@claresco.com>
+ * @version     1.0
+ * @since       1.0
+ */
+
+public class FeedGenerator {
+
+	private static final String VALUE_CHARACTERS = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789 ";
+
+	private String recordElement;
+	private List<String> outerElements = new ArrayList<>(); //elements around the records, outermost first
+	private Node record;
+	private HashSet<String> mappedNames = new HashSet<>();
+
+	private int depth = 0;
+	private int noise = 0;
+	private int valueSize = 16;
+	private Random random = new Random(1);
+
+	/**
+	 * Constructor for the FeedGenerator object
+	 * @param importInstructionManager The compiled mappings of the config file
+	 * @throws IllegalArgumentException if the parent mappings do not share a record element
+	 */
+	public FeedGenerator(ImportInstructionManager importInstructionManager){
+		recordElement = importInstructionManager.getRecordElement();
+		if(recordElement == null)
+			throw new IllegalArgumentException("The parent mappings do not share a record element.");
+
+		record = new Node(recordElement);
+		for(ImportInstruction instruction : importInstructionManager.getAllInstructions())
+			this.addInstruction(instruction);
+		if(outerElements.isEmpty())
+			outerElements.add("records");
+	}
+
+	/**
+	 * Sets the number of extra elements wrapped around the elements the mappings show (default 0)
+	 * @param depth The number of extra elements
+	 */
+	public void setDepth(int depth){
+		this.depth = Math.max(0, depth);
+	}
+
+	/**
+	 * Sets the number of unmapped elements added to every record (default 0)
+	 * @param noise The number of unmapped elements
+	 */
+	public void setNoise(int noise){
+		this.noise = Math.max(0, noise);
+	}
+
+	/**
+	 * Sets the average number of characters of a generated value (default 16). Values are between half and one and a half times as long.
+	 * @param valueSize The average number of characters
+	 */
+	public void setValueSize(int valueSize){
+		this.valueSize = Math.max(1, valueSize);
+	}
+
+	/**
+	 * Sets the seed of the random values, the same seed always generates the same file (default 1)
+	 * @param seed The seed
+	 */
+	public void setSeed(long seed){
+		this.random = new Random(seed);
+	}
+
+	/**
+	 * Writes the data file
+	 * @param path The path of the file (gzipped if it ends in .gz)
+	 * @param records The number of records
+	 * @throws IOException if the file could not be written
+	 */
+	public void write(String path, long records) throws IOException {
+		OutputStream out = new FileOutputStream(path);
+		if(path.endsWith(".gz"))
+			out = new GZIPOutputStream(out, 1 << 16);
+		try {
+			this.write(out, records);
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Writes the data file to a stream (which is flushed but not closed)
+	 * @param out The stream the UTF-8 encoded document is written to
+	 * @param records The number of records
+	 * @throws IOException if the stream could not be written
+	 */
+	public void write(OutputStream out, long records) throws IOException {
+		Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+		writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+
+		List<String> wrappers = new ArrayList<>();
+		for(int d = 1; d <= depth; d++)
+			wrappers.add("level"+d);
+		wrappers.addAll(outerElements);
+
+		for(String wrapper : wrappers)
+			writer.write("<"+wrapper+">");
+		writer.write('\n');
+
+		for(long r = 1; r <= records; r++){
+			this.writeNode(writer, record, "r"+r, true);
+			writer.write('\n');
+		}
+
+		for(int i = wrappers.size() - 1; i >= 0; i--)
+			writer.write("</"+wrappers.get(i)+">");
+		writer.write('\n');
+		writer.flush();
+	}
+
+	/**
+	 * Adds the elements and attributes the instruction reads to the record. The segments of the
+	 * xpath before the record element are the elements around the records, and the ones after it
+	 * are elements inside the record.
+	 */
+	private void addInstruction(ImportInstruction instruction){
+		String[] segments = instruction.getXPath().split("\\.");
+		for(String segment : segments)
+			mappedNames.add(segment);
+
+		int recordIndex = -1;
+		for(int i = segments.length - 1; i >= 0; i--){
+			if(segments[i].equals(recordElement)){
+				recordIndex = i;
+				break;
+			}
+		}
+
+		//a partial path below the record (e.g. author) is put right inside the record
+		if(recordIndex > 0 && recordIndex > outerElements.size()){
+			outerElements.clear();
+			for(int i = 0; i < recordIndex; i++)
+				outerElements.add(segments[i]);
+		}
+
+		Node node = record;
+		for(int i = recordIndex + 1; i < segments.length; i++)
+			node = node.child(segments[i]);
+
+		boolean key = instruction.getParent() == null;
+		if(instruction.getXAttribute() != null && !instruction.getXAttribute().isEmpty())
+			node.attributes.put(instruction.getXAttribute(), key || Boolean.TRUE.equals(node.attributes.get(instruction.getXAttribute())));
+		else
+			node.text = true;
+		if(key && (instruction.getXAttribute() == null || instruction.getXAttribute().isEmpty()))
+			node.key = true;
+	}
+
+	private void writeNode(Writer writer, Node node, String key, boolean isRecord) throws IOException {
+		writer.write('<');
+		writer.write(node.name);
+		for(String attribute : node.attributes.keySet()){
+			writer.write(' ');
+			writer.write(attribute);
+			writer.write("=\"");
+			writer.write(node.attributes.get(attribute) ? key : this.value());
+			writer.write('"');
+		}
+		writer.write('>');
+
+		if(node.key)
+			writer.write(key);
+		else if(node.text)
+			writer.write(this.value());
+
+		for(Node child : node.children.values())
+			this.writeNode(writer, child, key, false);
+
+		if(isRecord){
+			for(int i = 1; i <= noise; i++){
+				String name = this.getNoiseName(i);
+				writer.write("<"+name+">"+this.value()+"</"+name+">");
+			}
+		}
+
+		writer.write("</");
+		writer.write(node.name);
+		writer.write('>');
+	}
+
+	/**
+	 * Returns the name of an unmapped element, which never matches a mapping
+	 */
+	private String getNoiseName(int index){
+		String name = "noise"+index;
+		while(mappedNames.contains(name))
+			name = "_"+name;
+		return name;
+	}
+
+	private String value(){
+		int length = valueSize / 2 + random.nextInt(valueSize + 1);
+		char[] value = new char[Math.max(1, length)];
+		for(int i = 0; i < value.length; i++)
+			value[i] = VALUE_CHARACTERS.charAt(random.nextInt(VALUE_CHARACTERS.length()));
+		//the handler keeps values as they are, so leading and trailing spaces are avoided
+		value[0] = 'v';
+		value[value.length - 1] = 'v';
+		return new String(value);
+	}
+
+	/**
+	 * This method writes a data file for the mappings of a config file.
+	 * @param args[0] The path to the config file containing the mappings
+	 * @param args[1] The path of the data file to write (gzipped if it ends in .gz)
+	 * @param args[2] The number of records
+	 * @param --depth=N (optional) Extra elements wrapped around the records
+	 * @param --noise=N (optional) Unmapped elements in every record
+	 * @param --valuesize=N (optional) Average number of characters of a value
+	 * @param --seed=N (optional) Seed of the random values
+	 * @return void
+	 */
+	public static void main(String[] args){
+		List<String> arguments = new ArrayList<>();
+		int depth = 0;
+		int noise = 0;
+		int valueSize = 16;
+		long seed = 1;
+		try {
+			for(String arg : args){
+				if(arg.startsWith("--depth="))
+					depth = Integer.parseInt(arg.substring("--depth=".length()));
+				else if(arg.startsWith("--noise="))
+					noise = Integer.parseInt(arg.substring("--noise=".length()));
+				else if(arg.startsWith("--valuesize="))
+					valueSize = Integer.parseInt(arg.substring("--valuesize=".length()));
+				else if(arg.startsWith("--seed="))
+					seed = Long.parseLong(arg.substring("--seed=".length()));
+				else
+					arguments.add(arg);
+			}
+			if(arguments.size() != 3)
+				throw new IllegalArgumentException();
+			Long.parseLong(arguments.get(2));
+		} catch (IllegalArgumentException e){
+			System.out.println("There must be three arguments provided: the CONFIG_FILE, the XML_FILE to write and the number of RECORDS "
+					+ "(and optionally --depth=N, --noise=N, --valuesize=N and --seed=N).");
+			return;
+		}
+
+		ImporterSettings importerSettings = new ImporterSettings(arguments.get(0));
+		FeedGenerator generator = new FeedGenerator(new ImportInstructionManager(importerSettings.getImportInstructionMap()));
+		generator.setDepth(depth);
+		generator.setNoise(noise);
+		generator.setValueSize(valueSize);
+		generator.setSeed(seed);
+
+		long records = Long.parseLong(arguments.get(2));
+		long start = System.currentTimeMillis();
+		try {
+			generator.write(arguments.get(1), records);
+		} catch (IOException e){
+			e.printStackTrace();
+			return;
+		}
+		System.out.println("Wrote "+records+" records to "+arguments.get(1)+" in "+(System.currentTimeMillis() - start)+" ms");
+	}
+
+	/**
+	 * An element of a record with the attributes and child elements the mappings read
+	 */
+	private static class Node {
+
+		private String name;
+		private LinkedHashMap<String, Boolean> attributes = new LinkedHashMap<>(); //name -> holds the key of the record
+		private LinkedHashMap<String, Node> children = new LinkedHashMap<>();
+		private boolean text = false;
+		private boolean key = false;
+
+		private Node(String name){
+			this.name = name;
+		}
+
+		private Node child(String name){
+			Node child = children.get(name);
+			if(child == null){
+				child = new Node(name);
+				children.put(name, child);
+			}
+			return child;
+		}
+	}
+}
@@ -0,0 +1,323 @@
+package com.tannerembry.xmlshredder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.tannerembry.xmlshredder.database.ConnectionPool;
+import com.tannerembry.xmlshredder.database.FingerprintStore;
+import com.tannerembry.xmlshredder.importer.Checkpoint;
+import com.tannerembry.xmlshredder.importer.ImportInstructionManager;
+import com.tannerembry.xmlshredder.importer.ImportSummary;
+import com.tannerembry.xmlshredder.importer.ImporterSettings;
+import com.tannerembry.xmlshredder.importer.ImporterTask;
+import com.tannerembry.xmlshredder.metrics.ImportMetrics;
+import com.tannerembry.xmlshredder.metrics.MetricsReporter;
+
+/**
+ * Keeps running and shreds every xml file that lands in an inbox directory. The
+ * settings, compiled instructions, connection pool and fingerprint store are built
+ * once and shared by every file, so a file only costs its own parsing and writing.
+ *
+ * A file is picked up once its size and modification time stopped changing for
+ * SETTLE_MILLIS, so files that are still being copied are left alone (moving a
+ * finished file into the inbox is picked up right away). After its import the file
+ * is moved into the done or failed directory inside the inbox, with its checkpoint
+ * if it failed. The config file is read again when it changes on disk, once the
+ * files being shredded are finished.
+ *
+ * @author      Tanner Embry, Claresco Corp <tembry@claresco.com>
+ * @version     1.0
+ * @since       1.0
+ */
+
+public class InboxWatcher {
+
+	public static final String DONE_DIRECTORY = "done";
+	public static final String FAILED_DIRECTORY = "failed";
+
+	private static final long POLL_MILLIS = 1000;
+	private static final long SETTLE_MILLIS = 2000;
+	private static final long SHUTDOWN_WAIT_SECONDS = 30;
+
+	private File inbox;
+	private File doneDirectory;
+	private File failedDirectory;
+	private File configFile;
+	private boolean resume;
+
+	private long configModified;
+	private long configLength;
+	private ImporterSettings importerSettings;
+	private ImportInstructionManager importInstructionManager;
+	private ConnectionPool connectionPool;
+	private FingerprintStore fingerprints;
+	private ExecutorService executor;
+
+	private HashMap<File, long[]> seenFiles = new HashMap<>(); //file -> {length, modified} when last listed
+	private HashMap<File, long[]> skippedFiles = new HashMap<>(); //files that could not be moved, until they change
+	private LinkedHashMap<File, Future<ImportSummary>> runningFiles = new LinkedHashMap<>();
+
+	private volatile boolean stopped = false;
+	private CountDownLatch finished = new CountDownLatch(1);
+
+	/**
+	 * Constructor for the InboxWatcher object (nothing happens until run() is called)
+	 * @param inbox The directory data files are dropped into
+	 * @param configFile The path to the config file
+	 * @param resume true to continue files from the checkpoint a stopped run left next to them
+	 */
+	public InboxWatcher(String inbox, String configFile, boolean resume){
+		this.inbox = new File(inbox).getAbsoluteFile();
+		this.doneDirectory = new File(this.inbox, DONE_DIRECTORY);
+		this.failedDirectory = new File(this.inbox, FAILED_DIRECTORY);
+		this.configFile = new File(configFile).getAbsoluteFile();
+		this.resume = resume;
+	}
+
+	/**
+	 * Watches the inbox until stop() is called
+	 * @throws IOException if the inbox could not be watched
+	 */
+	public void run() throws IOException {
+		MetricsReporter reporter = null;
+		try(WatchService watchService = FileSystems.getDefault().newWatchService()){
+			if(!this.loadConfig())
+				return;
+			doneDirectory.mkdirs();
+			failedDirectory.mkdirs();
+			inbox.toPath().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+			ImportMetrics.get().register();
+			if(importerSettings.getMetricsInterval() > 0){
+				reporter = new MetricsReporter(ImportMetrics.get(), importerSettings.getMetricsInterval());
+				reporter.start();
+			}
+			System.out.println("Watching "+inbox+" for data files.");
+
+			while(!stopped){
+				this.finishFiles();
+
+				//a changed config is only loaded once every file using the current one is finished
+				if(configFile.lastModified() != configModified || configFile.length() != configLength){
+					if(runningFiles.isEmpty())
+						this.loadConfig();
+				}
+				else{
+					this.startFiles();
+				}
+
+				//the events only wake the loop up early, the inbox is listed every time
+				WatchKey key = watchService.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+				if(key != null){
+					key.pollEvents();
+					key.reset();
+				}
+			}
+		} catch (InterruptedException e){
+			Thread.currentThread().interrupt();
+		} finally {
+			this.shutdown();
+			if(reporter != null)
+				reporter.stop();
+			finished.countDown();
+		}
+	}
+
+	/**
+	 * Stops watching and waits until the files being shredded are finished (at most SHUTDOWN_WAIT_SECONDS).
+	 * Files that are not finished by then stay in the inbox.
+	 */
+	public void stop(){
+		stopped = true;
+		try {
+			finished.await(SHUTDOWN_WAIT_SECONDS + 5, TimeUnit.SECONDS);
+		} catch (InterruptedException e){
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Reads the config file and builds everything shared by the files. If the config file
+	 * cannot be read, or its database or fingerprint store cannot be opened, the previous
+	 * one stays in use until the file changes again.
+	 * @return true if the config file was loaded
+	 */
+	private boolean loadConfig(){
+		configModified = configFile.lastModified();
+		configLength = configFile.length();
+
+		ImporterSettings settings;
+		ImportInstructionManager manager;
+		try {
+			settings = new ImporterSettings(configFile.getPath());
+			manager = new ImportInstructionManager(settings.getImportInstructionMap());
+		} catch (RuntimeException e){
+			e.printStackTrace();
+			System.out.println("The config file could not be loaded"+(importerSettings == null ? "." : ", the previous one stays in use."));
+			return false;
+		}
+
+		//everything is opened before the previous config is closed, so it stays in use if anything fails
+		ConnectionPool pool = null;
+		FingerprintStore store = null;
+		boolean opened = false;
+		try {
+			if(settings.upload())
+				pool = new ConnectionPool(settings.getDatabaseHost(), settings.getDataBaseUsername(), settings.getDatabasePassword(),
+						settings.getThreads() * settings.getWriters());
+			if(pool == null || Runner.verifyInstructions(manager, pool)){
+				if(settings.getDeltaStorePath() != null)
+					store = new FingerprintStore(settings.getDeltaStorePath());
+				opened = true;
+			}
+		} catch (ClassNotFoundException | IOException e){
+			e.printStackTrace();
+		}
+		if(!opened){
+			if(pool != null)
+				pool.close();
+			System.out.println("The config file could not be loaded"+(importerSettings == null ? "." : ", the previous one stays in use."));
+			return false;
+		}
+
+		this.closeShared();
+		importerSettings = settings;
+		importInstructionManager = manager;
+		connectionPool = pool;
+		fingerprints = store;
+		executor = Executors.newFixedThreadPool(importerSettings.getThreads());
+		System.out.println("Loaded config file from path: "+configFile);
+		return true;
+	}
+
+	/**
+	 * Starts shredding every data file in the inbox that stopped changing
+	 */
+	private void startFiles(){
+		File[] files = inbox.listFiles();
+		if(files == null)
+			return;
+
+		long now = System.currentTimeMillis();
+		HashMap<File, long[]> listedFiles = new HashMap<>();
+		for(File file : files){
+			if(!file.isFile() || file.getName().startsWith(".") || !InputFiles.isXmlName(file.getName()) || runningFiles.containsKey(file))
+				continue;
+
+			long[] stat = new long[]{file.length(), file.lastModified()};
+			long[] seen = seenFiles.get(file);
+			listedFiles.put(file, stat);
+
+			long[] skipped = skippedFiles.get(file);
+			if(skipped != null && skipped[0] == stat[0] && skipped[1] == stat[1])
+				continue;
+			skippedFiles.remove(file);
+
+			if(seen == null || seen[0] != stat[0] || seen[1] != stat[1] || now - stat[1] < SETTLE_MILLIS)
+				continue;
+
+			String exportPath = ImporterTask.getExportPath(importerSettings.getExportSpreadsheetPath(), file.getPath());
+			runningFiles.put(file, executor.submit(new ImporterTask(file.getPath(), exportPath, importerSettings, importInstructionManager,
+					connectionPool, fingerprints, resume)));
+			System.out.println("Shredding data file: "+file);
+		}
+		seenFiles = listedFiles;
+	}
+
+	/**
+	 * Prints the summary of every finished file and moves it into the done or failed directory
+	 */
+	private void finishFiles(){
+		Iterator<Map.Entry<File, Future<ImportSummary>>> iterator = runningFiles.entrySet().iterator();
+		while(iterator.hasNext()){
+			Map.Entry<File, Future<ImportSummary>> entry = iterator.next();
+			if(!entry.getValue().isDone())
+				continue;
+			iterator.remove();
+
+			File file = entry.getKey();
+			boolean succeeded = false;
+			try {
+				ImportSummary summary = entry.getValue().get();
+				System.out.println(summary.toString());
+				succeeded = summary.succeeded();
+			} catch (ExecutionException e){
+				e.printStackTrace();
+			} catch (InterruptedException e){
+				Thread.currentThread().interrupt();
+				continue;
+			}
+
+			File directory = succeeded ? doneDirectory : failedDirectory;
+			File checkpoint = new File(new Checkpoint(file.getPath()).getPath());
+			try {
+				File target = this.move(file, directory);
+				if(checkpoint.exists())
+					this.move(checkpoint, directory);
+				System.out.println("Moved "+file.getName()+" to "+target);
+			} catch (IOException e){
+				e.printStackTrace();
+				skippedFiles.put(file, new long[]{file.length(), file.lastModified()});
+			}
+		}
+	}
+
+	/**
+	 * Moves the file into the directory. If a file of the same name is already there, the
+	 * time is put in front of the name (e.g. 1508342400000_books.xml).
+	 */
+	private File move(File file, File directory) throws IOException {
+		File target = new File(directory, file.getName());
+		if(target.exists())
+			target = new File(directory, System.currentTimeMillis()+"_"+file.getName());
+		Files.move(file.toPath(), target.toPath());
+		return target;
+	}
+
+	/**
+	 * Lets the files being shredded finish, moves them and closes everything shared by the files
+	 */
+	private void shutdown(){
+		if(executor != null){
+			executor.shutdown();
+			try {
+				if(!executor.awaitTermination(SHUTDOWN_WAIT_SECONDS, TimeUnit.SECONDS))
+					System.out.println("Stopped before every data file was shredded, the unfinished files stay in the inbox.");
+			} catch (InterruptedException e){
+				Thread.currentThread().interrupt();
+			}
+			this.finishFiles();
+		}
+		//files that are still running keep using the pool until the program exits
+		if(runningFiles.isEmpty())
+			this.closeShared();
+		System.out.println("Stopped watching "+inbox+".");
+	}
+
+	private void closeShared(){
+		if(executor != null)
+			executor.shutdown();
+		if(connectionPool != null)
+			connectionPool.close();
+		if(fingerprints != null)
+			fingerprints.close();
+		executor = null;
+		connectionPool = null;
+		fingerprints = null;
+	}
+}
@@ -0,0 +1,139 @@
+package com.tannerembry.xmlshredder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+import com.tannerembry.xmlshredder.importer.XmlInput;
+
+/**
+ * Turns the XML_FILE argument of the Runner into the list of xml files to shred.
+ * The argument can be:
+ * 	- a single xml file (books.xml), which may be gzip compressed (books.xml.gz)
+ * 	- - to read a single xml file from standard input
+ * 	- a directory, in which case every .xml and .xml.gz file directly inside it is used
+ * 	- a glob (data/2017-*.xml or data/&#42;&#42;/*.xml to search sub directories)
+ * 	- a list file (any other file) with one path per line. Blank lines and lines starting with # are skipped
+ *
+ * @author      Tanner Embry, Claresco Corp <tembry@claresco.com>
+ * @version     1.0
+ * @since       1.0
+ */
+
+public class InputFiles {
+
+	/**
+	 * Returns the xml files described by the argument, sorted by path
+	 * @param argument The file, directory, glob or list file
+	 * @return list of xml file paths (empty if nothing matched)
+	 * @throws IOException if the directory or list file could not be read
+	 */
+	public static List<String> resolve(String argument) throws IOException {
+		List<String> files = new ArrayList<>();
+
+		if(XmlInput.isStdin(argument)){
+			files.add(argument);
+		}
+		else if(isGlob(argument)){
+			files.addAll(matchGlob(argument));
+		}
+		else{
+			File file = new File(argument);
+			if(file.isDirectory()){
+				File[] children = file.listFiles();
+				if(children != null){
+					for(File child : children){
+						if(child.isFile() && isXmlName(child.getName()))
+							files.add(child.getPath());
+					}
+				}
+			}
+			else if(!file.exists()){
+				return files;
+			}
+			else if(isXmlName(file.getName()) || XmlInput.isGzip(argument)){
+				files.add(argument);
+			}
+			else{
+				for(String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)){
+					line = line.trim();
+					if(!line.isEmpty() && !line.startsWith("#"))
+						files.add(line);
+				}
+				return files; //the order of a list file is kept
+			}
+		}
+
+		Collections.sort(files);
+		return files;
+	}
+
+	/**
+	 * Returns whether or not the file name is the name of an xml file (compressed or not)
+	 */
+	static boolean isXmlName(String name){
+		name = name.toLowerCase();
+		return name.endsWith(".xml") || name.endsWith(".xml.gz");
+	}
+
+	/**
+	 * Returns whether or not the argument contains any glob characters
+	 */
+	private static boolean isGlob(String argument){
+		for(char c : argument.toCharArray()){
+			if(c == '*' || c == '?' || c == '[' || c == '{')
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Walks the directory in front of the first glob character and returns every file matching the glob
+	 */
+	private static List<String> matchGlob(String glob) throws IOException {
+		String separators = File.separatorChar == '/' ? "/" : "/\\";
+
+		//the directory to search starts at the last separator before the first glob character
+		int firstGlob = 0;
+		while(firstGlob < glob.length() && "*?[{".indexOf(glob.charAt(firstGlob)) < 0)
+			firstGlob++;
+		int baseEnd = -1;
+		for(int i = 0; i < firstGlob; i++){
+			if(separators.indexOf(glob.charAt(i)) >= 0)
+				baseEnd = i;
+		}
+		Path base = (baseEnd < 0) ? Paths.get("") : Paths.get(glob.substring(0, Math.max(1, baseEnd)));
+
+		//without ** a glob only matches as many levels below the base as it has separators
+		int maxDepth = Integer.MAX_VALUE;
+		if(!glob.contains("**")){
+			maxDepth = 1;
+			for(int i = baseEnd + 1; i < glob.length(); i++){
+				if(separators.indexOf(glob.charAt(i)) >= 0)
+					maxDepth++;
+			}
+		}
+
+		PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:"+glob);
+		List<String> files = new ArrayList<>();
+		if(!Files.isDirectory(base))
+			return files;
+
+		try(Stream<Path> paths = Files.walk(base, maxDepth)){
+			paths.forEach(path -> {
+				if(Files.isRegularFile(path) && matcher.matches(path))
+					files.add(path.toString());
+			});
+		}
+		return files;
+	}
+}
@@ -1,17 +1,39 @@
 package com.tannerembry.xmlshredder;
 
 import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import com.tannerembry.xmlshredder.database.ConnectionPool;
+import com.tannerembry.xmlshredder.database.FingerprintStore;
+import com.tannerembry.xmlshredder.importer.ImportInstruction;
+import com.tannerembry.xmlshredder.importer.ImportInstructionManager;
+import com.tannerembry.xmlshredder.importer.ImportSummary;
+import com.tannerembry.xmlshredder.importer.ImporterSettings;
 import com.tannerembry.xmlshredder.importer.ImporterTask;
+import com.tannerembry.xmlshredder.importer.XmlInput;
+import com.tannerembry.xmlshredder.metrics.ImportMetrics;
+import com.tannerembry.xmlshredder.metrics.MetricsReporter;
 
 /**
  * The XML Shredder program takes a data file with the extension .xml and pulls
  * the configured xpath mappings out (from the provided configuration file). It
  * then inserts/updates these entries into the provided relational database.
- *  
+ *
+ * Instead of a single data file, a directory, a glob or a list file can be provided.
+ * The files are then shredded at the same time on a fixed number of threads which
+ * share the compiled instructions and a pool of database connections.
+ *
  * @author      Tanner Embry, Claresco Corp <tembry@claresco.com>
- * @version     1.0         
- * @since       1.0         
+ * @version     1.0
+ * @since       1.0
  */
 
 public class Runner {
@@ -21,21 +43,46 @@ public class Runner {
 
 	/**
 	 * This method runs the main program.
-	 * @param args[0] The path to the xml file containing the data to be shredded
+	 * @param args[0] The path to the xml file containing the data to be shredded (or a directory, glob or list file of xml files, or - for standard input)
 	 * @param args[1] The path to the config file containing the mapping and database information
+	 * @param --resume (optional) Skips the rows an earlier run that stopped part way through already committed
+	 * @param --watch (optional) Keeps running and shreds every xml file that lands in the directory given as args[0]
 	 * @return void
 	 */
 	public static void main (String[] args){
-		if(args.length != 2){
-			System.out.println("There must be two arguments provided: the XML_FILE to shred and the CONFIG_FILE.");
+		List<String> arguments = new ArrayList<>();
+		boolean resume = false;
+		boolean watch = false;
+		for(String arg : args){
+			if(arg.equals("--resume"))
+				resume = true;
+			else if(arg.equals("--watch"))
+				watch = true;
+			else
+				arguments.add(arg);
+		}
+
+		if(arguments.size() != 2){
+			System.out.println("There must be two arguments provided: the XML_FILE to shred and the CONFIG_FILE (and optionally --resume or --watch).");
 			return;
 		}
 
-		XML_FILE = args[0];
-		CONFIG_FILE = args[1];
+		XML_FILE = arguments.get(0);
+		CONFIG_FILE = arguments.get(1);
+
+		if(watch){
+			watch(resume);
+			return;
+		}
 
-		File xmlFile = new File(XML_FILE);
-		if(!xmlFile.exists()){
+		List<String> xmlFiles;
+		try {
+			xmlFiles = InputFiles.resolve(XML_FILE);
+		} catch (IOException e){
+			e.printStackTrace();
+			return;
+		}
+		if(xmlFiles.isEmpty()){
 			System.out.println("The XML_FILE provided does not exist.");
 			return;
 		}
@@ -48,10 +95,149 @@ public class Runner {
 
 		System.out.println("Starting importer task.");
 		System.out.println("Using config file from path: "+configFile.getAbsolutePath());
-		System.out.println("Reading data file from path: "+xmlFile.getAbsolutePath());
-		
-		ImporterTask task = new ImporterTask(XML_FILE, CONFIG_FILE);
-		
+		if(xmlFiles.size() == 1 && XmlInput.isStdin(xmlFiles.get(0)))
+			System.out.println("Reading data file from standard input.");
+		else if(xmlFiles.size() == 1)
+			System.out.println("Reading data file from path: "+new File(xmlFiles.get(0)).getAbsolutePath());
+		else
+			System.out.println("Reading "+xmlFiles.size()+" data files from: "+XML_FILE);
+
+		ImporterSettings importerSettings = new ImporterSettings(CONFIG_FILE);
+		ImportInstructionManager importInstructionManager = new ImportInstructionManager(importerSettings.getImportInstructionMap());
+
+		//print statement for all instructions
+		for(ImportInstruction instruction : importInstructionManager.getAllInstructions()){
+			System.out.println(instruction.toString());
+		}
+
+		runTasks(xmlFiles, importerSettings, importInstructionManager, resume);
+
 		System.out.println("Finished importer task.");
 	}
+
+	/**
+	 * Shreds the files dropped into the XML_FILE directory until the program is stopped
+	 * @param resume true to continue files from the checkpoint a stopped run left next to them
+	 */
+	private static void watch(boolean resume){
+		if(!new File(XML_FILE).isDirectory()){
+			System.out.println("The XML_FILE provided must be a directory to watch.");
+			return;
+		}
+		if(!new File(CONFIG_FILE).exists()){
+			System.out.println("The CONFIG_FILE provided does not exist.");
+			return;
+		}
+
+		InboxWatcher watcher = new InboxWatcher(XML_FILE, CONFIG_FILE, resume);
+		//stopping the program (e.g. ctrl+c or kill) lets the files being shredded finish first
+		Runtime.getRuntime().addShutdownHook(new Thread(watcher::stop, "xmlshredder-shutdown"));
+		try {
+			watcher.run();
+		} catch (IOException e){
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Shreds every xml file on a fixed size pool of threads and prints a summary of each file and of the whole import
+	 * @param xmlFiles The paths to the xml files
+	 * @param importerSettings The settings shared by every file
+	 * @param importInstructionManager The compiled instructions shared by every file
+	 * @param resume true to continue every file from its checkpoint
+	 */
+	private static void runTasks(List<String> xmlFiles, ImporterSettings importerSettings, ImportInstructionManager importInstructionManager, boolean resume){
+		int threads = Math.min(importerSettings.getThreads(), xmlFiles.size());
+		long start = System.currentTimeMillis();
+
+		ConnectionPool connectionPool = null;
+		FingerprintStore fingerprints = null;
+		MetricsReporter reporter = null;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			ImportMetrics.get().register();
+			if(importerSettings.getMetricsInterval() > 0){
+				reporter = new MetricsReporter(ImportMetrics.get(), importerSettings.getMetricsInterval());
+				reporter.start();
+			}
+			if(importerSettings.upload()){
+				connectionPool = new ConnectionPool(importerSettings.getDatabaseHost(), importerSettings.getDataBaseUsername(), importerSettings.getDatabasePassword(), threads * importerSettings.getWriters());
+				if(!verifyInstructions(importInstructionManager, connectionPool))
+					return;
+			}
+			if(importerSettings.getDeltaStorePath() != null)
+				fingerprints = new FingerprintStore(importerSettings.getDeltaStorePath());
+
+			List<Future<ImportSummary>> results = new ArrayList<>();
+			for(String xmlFile : xmlFiles){
+				//each file gets its own spreadsheet when there is more than one
+				String exportPath = importerSettings.getExportSpreadsheetPath();
+				if(xmlFiles.size() > 1)
+					exportPath = ImporterTask.getExportPath(exportPath, xmlFile);
+
+				results.add(executor.submit(new ImporterTask(xmlFile, exportPath, importerSettings, importInstructionManager, connectionPool, fingerprints, resume)));
+			}
+
+			long rows = 0;
+			long failedRows = 0;
+			int failedFiles = 0;
+			for(int i = 0; i < results.size(); i++){
+				//a file that failed unexpectedly is counted as failed and the other files carry on
+				ImportSummary summary;
+				try {
+					summary = results.get(i).get();
+				} catch (ExecutionException e){
+					e.getCause().printStackTrace();
+					summary = new ImportSummary(xmlFiles.get(i), 0, 0, System.currentTimeMillis() - start, e.getCause());
+				}
+				System.out.println(summary.toString());
+
+				rows += summary.getRows();
+				failedRows += summary.getFailedRows();
+				if(!summary.succeeded())
+					failedFiles++;
+			}
+
+			long elapsed = System.currentTimeMillis() - start;
+			System.out.println("Total: "+xmlFiles.size()+" files ("+failedFiles+" with errors), "+rows+" rows, "
+					+failedRows+" failed in "+elapsed+" ms on "+threads+" threads");
+
+		} catch (ClassNotFoundException | IOException e){
+			e.printStackTrace();
+		} catch (InterruptedException e){
+			Thread.currentThread().interrupt();
+		} finally {
+			executor.shutdownNow();
+			if(reporter != null)
+				reporter.stop();
+			if(connectionPool != null)
+				connectionPool.close();
+			if(fingerprints != null)
+				fingerprints.close();
+		}
+	}
+
+	/**
+	 * Verifies that the tables and fields of every instruction exist in the database (see ImportInstructionManager.verifyInstructions)
+	 * and keeps the column types in the pool for the writers
+	 * @param importInstructionManager The compiled instructions
+	 * @param connectionPool The pool the connection used to verify is borrowed from
+	 * @return true if every table and field exists
+	 */
+	static boolean verifyInstructions(ImportInstructionManager importInstructionManager, ConnectionPool connectionPool){
+		Connection connection = null;
+		try {
+			connection = connectionPool.acquire();
+			importInstructionManager.verifyInstructions(connection, connectionPool.getColumnTypes());
+			return true;
+		} catch (SQLException e){
+			System.out.println("The mappings do not match the database: "+e.getMessage());
+			return false;
+		} catch (InterruptedException e){
+			Thread.currentThread().interrupt();
+			return false;
+		} finally {
+			connectionPool.release(connection);
+		}
+	}
 }
@@ -0,0 +1,67 @@
+package com.tannerembry.xmlshredder.database;
+
+/**
+ * A bloom filter over 64 bit hashes. A negative answer is always correct,
+ * a positive answer may be wrong with a small probability.
+ *
+ * @author      Tanner Embry, Claresco Corp <tembry@claresco.com>
+ * @version     1.0
+ * @since       1.0
+ */
+
+public class BloomFilter {
+
+	private static final int BITS_PER_VALUE = 10;
+	private static final int HASH_COUNT = 7;
+
+	private long[] bits;
+	private long bitCount;
+	private long capacity;
+
+	/**
+	 * Constructor for the BloomFilter object
+	 * @param capacity The number of values the filter is sized for (about 1% false positives at this size)
+	 */
+	public BloomFilter(long capacity){
+		this.capacity = Math.max(1024, capacity);
+		this.bits = new long[(int) Math.min(Integer.MAX_VALUE - 8, (this.capacity * BITS_PER_VALUE + 63) / 64)];
+		this.bitCount = (long) bits.length * 64;
+	}
+
+	/**
+	 * Returns the number of values the filter was sized for
+	 * @return capacity
+	 */
+	public long getCapacity(){
+		return capacity;
+	}
+
+	/**
+	 * Adds a hash to the filter
+	 * @param hash The 64 bit hash of the value
+	 */
+	public void add(long hash){
+		long h1 = hash;
+		long h2 = (hash >>> 32) | 1;
+		for(int i = 0; i < HASH_COUNT; i++){
+			long bit = ((h1 + i * h2) & Long.MAX_VALUE) % bitCount;
+			bits[(int) (bit >>> 6)] |= 1L << bit;
+		}
+	}
+
+	/**
+	 * Checks whether a hash might have been added to the filter
+	 * @param hash The 64 bit hash of the value
+	 * @return false if the hash was definitely never added
+	 */
+	public boolean mightContain(long hash){
+		long h1 = hash;
+		long h2 = (hash >>> 32) | 1;
+		for(int i = 0; i < HASH_COUNT; i++){
+			long bit = ((h1 + i * h2) & Long.MAX_VALUE) % bitCount;
+			if((bits[(int) (bit >>> 6)] & (1L << bit)) == 0)
+				return false;
+		}
+		return true;
+	}
+}
@@ -0,0 +1,118 @@
+package com.tannerembry.xmlshredder.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds the columns and their sql types (java.sql.Types) of every table written to.
+ * The columns of a table are read once with a query that returns no rows
+ * (select * from table where 1=0), so the database resolves the table the same
+ * way it does for the writes and never reads any of its rows. Column names are
+ * matched without regard to case, since databases change the case of unquoted names.
+ *
+ * One ColumnTypes is shared by every writer of a ConnectionPool.
+ *
+ * @author      Tanner Embry, Claresco Corp <tembry@claresco.com>
+ * @version     1.0
+ * @since       1.0
+ */
+
+public class ColumnTypes {
+
+	private ConcurrentHashMap<String, HashMap<String, Integer>> tables = new ConcurrentHashMap<>(); //table -> lower case column -> type
+
+	/**
+	 * Reads the columns of the table, unless they were already read
+	 * @param connection The connection used to read the columns
+	 * @param table The table (as written in the config file)
+	 * @throws SQLException if the table does not exist or could not be read
+	 */
+	public void load(Connection connection, String table) throws SQLException {
+		if(tables.containsKey(table))
+			return;
+
+		HashMap<String, Integer> columns = new HashMap<>();
+		try(PreparedStatement stat = connection.prepareStatement("select * from "+table+" where 1=0");
+				ResultSet rs = stat.executeQuery()){
+			ResultSetMetaData metaData = rs.getMetaData();
+			for(int i = 1; i <= metaData.getColumnCount(); i++)
+				columns.put(metaData.getColumnName(i).toLowerCase(Locale.ROOT), metaData.getColumnType(i));
+		}
+		tables.putIfAbsent(table, columns);
+	}
+
+	/**
+	 * Returns whether or not the columns of the table were read
+	 * @param table The table
+	 * @return true if load() succeeded for the table
+	 */
+	public boolean isLoaded(String table){
+		return tables.containsKey(table);
+	}
+
+	/**
+	 * Returns the type of a column
+	 * @param table The table
+	 * @param column The column
+	 * @return the java.sql.Types value of the column, or null if the table was not read or has no such column
+	 */
+	public Integer getType(String table, String column){
+		HashMap<String, Integer> columns = tables.get(table);
+		if(columns == null)
+			return null;
+		return columns.get(column.toLowerCase(Locale.ROOT));
+	}
+
+	/**
+	 * Returns the types of the columns in the order provided. A column whose type is not
+	 * known is given Types.VARCHAR, so its values are bound as strings.
+	 * @param table The table
+	 * @param columns The columns
+	 * @return the types of the columns
+	 */
+	public int[] getTypes(String table, List<String> columns){
+		int[] types = new int[columns.size()];
+		for(int i = 0; i < types.length; i++){
+			Integer type = this.getType(table, columns.get(i));
+			types[i] = (type == null) ? Types.VARCHAR : type;
+		}
+		return types;
+	}
+
+	/**
+	 * Returns whether or not values of the type are bound as strings. Values of numeric, boolean,
+	 * date and time columns are converted by the driver instead (setObject with the type), so
+	 * they are accepted without the database having to cast text.
+	 * @param type The java.sql.Types value of the column
+	 * @return true if the value is bound with setString
+	 */
+	public static boolean isBoundAsString(int type){
+		switch(type){
+		case Types.BIT:
+		case Types.BOOLEAN:
+		case Types.TINYINT:
+		case Types.SMALLINT:
+		case Types.INTEGER:
+		case Types.BIGINT:
+		case Types.REAL:
+		case Types.FLOAT:
+		case Types.DOUBLE:
+		case Types.NUMERIC:
+		case Types.DECIMAL:
+		case Types.DATE:
+		case Types.TIME:
+		case Types.TIMESTAMP:
+			return false;
+		default:
+			return true;
+		}
+	}
+}
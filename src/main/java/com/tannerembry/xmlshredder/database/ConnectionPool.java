@@ -0,0 +1,151 @@
+package com.tannerembry.xmlshredder.database;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+
+/**
+ * A fixed size pool of connections to the database that is shared by all of the
+ * files being imported at the same time. Connections are opened the first time
+ * they are needed (up to the maximum size) and are handed back to the pool when
+ * a file is finished, so thousands of files do not open thousands of connections.
+ * When every connection is in use, acquire() waits for one to be released.
+ * An idle connection is checked with isValid() before it is handed out again, so a
+ * connection the database dropped (e.g. after a restart) is replaced by a new one.
+ * The column types of the tables, and the key indexes of the preload write mode, are
+ * read once per pool and shared by every writer.
+ *
+ * @author      Tanner Embry, Claresco Corp <tembry@claresco.com>
+ * @version     1.0
+ * @since       1.0
+ */
+
+public class ConnectionPool {
+
+	private static final int VALID_TIMEOUT_SECONDS = 5;
+
+	private String host;
+	private String username;
+	private String password;
+
+	private Semaphore available; //one permit for every connection that is not handed out
+	private LinkedBlockingQueue<Connection> idle = new LinkedBlockingQueue<>();
+	private List<Connection> connections = new ArrayList<>();
+	private boolean closed = false;
+
+	private ColumnTypes columnTypes = new ColumnTypes();
+	private KeyIndexes keyIndexes = new KeyIndexes();
+
+	/**
+	 * Constructor for the ConnectionPool object (no connection is opened until one is acquired)
+	 * @param host The host string used to access the database
+	 * @param username The username used to access the database
+	 * @param password The password used to access the database
+	 * @param maxSize The maximum number of connections that are open at the same time
+	 * @throws ClassNotFoundException if the driver for the database could not be loaded
+	 */
+	public ConnectionPool(String host, String username, String password, int maxSize) throws ClassNotFoundException {
+		this.host = host;
+		this.username = username;
+		this.password = password;
+		this.available = new Semaphore(Math.max(1, maxSize), true);
+
+		SqlDialect.forUrl(host).loadDriver();
+	}
+
+	/**
+	 * Returns an idle connection that is still valid, opening a new one if there is none,
+	 * and waits for a connection to be released if every one is in use
+	 * @return a connection that must be handed back with release()
+	 * @throws SQLException if a new connection could not be opened or the pool was closed
+	 * @throws InterruptedException if the thread was interrupted while waiting
+	 */
+	public Connection acquire() throws SQLException, InterruptedException {
+		available.acquire();
+		try {
+			Connection connection;
+			while((connection = idle.poll()) != null){
+				if(connection.isValid(VALID_TIMEOUT_SECONDS))
+					return connection;
+				System.out.println("Replacing a connection to the database that is no longer valid.");
+				this.discard(connection);
+			}
+
+			synchronized(this){
+				if(closed)
+					throw new SQLException("The connection pool has been closed.");
+				connection = DriverManager.getConnection(host, username, password);
+				connections.add(connection);
+				return connection;
+			}
+		} catch (SQLException | RuntimeException e){
+			available.release();
+			throw e;
+		}
+	}
+
+	/**
+	 * Hands a connection back to the pool. Anything left uncommitted is rolled back
+	 * and autocommit is turned back on so the next file starts from a clean connection.
+	 * A connection that is no longer usable is closed and replaced the next time one is needed.
+	 * @param connection The connection that was returned by acquire()
+	 */
+	public void release(Connection connection){
+		if(connection == null)
+			return;
+		try {
+			if(!connection.getAutoCommit()){
+				connection.rollback();
+				connection.setAutoCommit(true);
+			}
+			idle.add(connection);
+		} catch (SQLException e){
+			e.printStackTrace();
+			this.discard(connection);
+		} finally {
+			available.release();
+		}
+	}
+
+	/**
+	 * Closes a connection that is no longer usable and removes it from the pool
+	 */
+	private void discard(Connection connection){
+		synchronized(this){
+			connections.remove(connection);
+		}
+		try { connection.close(); } catch (SQLException e) { e.printStackTrace(); }
+	}
+
+	/**
+	 * Returns the column types of the tables, shared by every connection of the pool
+	 * @return columnTypes
+	 */
+	public ColumnTypes getColumnTypes(){
+		return columnTypes;
+	}
+
+	/**
+	 * Returns the key indexes of the preload write mode, shared by every connection of the pool
+	 * @return keyIndexes
+	 */
+	public KeyIndexes getKeyIndexes(){
+		return keyIndexes;
+	}
+
+	/**
+	 * Closes every connection the pool has opened
+	 */
+	public synchronized void close(){
+		closed = true;
+		for(Connection connection : connections){
+			try { connection.close(); } catch (SQLException e) { e.printStackTrace(); }
+		}
+		connections.clear();
+		idle.clear();
+	}
+}
@@ -0,0 +1,649 @@
+package com.tannerembry.xmlshredder.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import com.tannerembry.xmlshredder.importer.DatabaseSink;
+import com.tannerembry.xmlshredder.importer.ImportInstruction;
+import com.tannerembry.xmlshredder.importer.ImportRow;
+import com.tannerembry.xmlshredder.importer.ImporterSettings;
+import com.tannerembry.xmlshredder.metrics.ImportMetrics;
+
+/**
+ * This class writes finished rows into the database. Each row is inserted if its
+ * key does not exist in the table yet and updated otherwise.
+ *
+ * If a batch size greater than one is configured, rows are not written right away.
+ * They are added to one batched statement per (table, column set) and all batches
+ * are executed together once the batch size is reached. Autocommit is turned off
+ * and a commit is made after every configured number of batches. The rows of the
+ * transaction are kept until it is committed. If a batch or the commit fails, the
+ * transaction is rolled back and its rows are written again one row per transaction,
+ * so only the rows that fail on their own are lost (and counted as failed).
+ *
+ * In the batchcheck write mode rows are also held back until enough of them are
+ * collected, and the keys of all of them are checked with one select per table
+ * instead of one select per row.
+ *
+ * In the preload write mode the key column of every parent table is read into a
+ * KeyIndex and no select is run while importing. The indexes come from a KeyIndexes
+ * shared by every writer of the ConnectionPool, so the column is read by the first
+ * writer that needs it and every later writer uses the same index.
+ *
+ * In the upsert write mode no decision is made at all. Every row is written with a
+ * single insert-or-update statement generated by the SqlDialect of the database.
+ *
+ * All statements come from a StatementCache and every value is bound as a parameter.
+ * Values of numeric, boolean, date and time columns are bound with the type of the
+ * column (see ColumnTypes), all other values are bound as strings.
+ *
+ * The writer counts how many of the rows it was given are committed, which is what
+ * a checkpoint of a long import is saved from. Inserted, updated and upserted rows are
+ * only added to the ImportMetrics once they are committed as well.
+ *
+ * @author      Tanner Embry, Claresco Corp <tembry@claresco.com>
+ * @version     1.0
+ * @since       1.0
+ */
+
+public class DatabaseWriter implements DatabaseSink {
+
+	private Connection connection;
+	private StatementCache statements;
+
+	private int batchSize;
+	private int commitInterval;
+	private WriteMode writeMode;
+	private int lookupBatchSize;
+
+	private List<ImportRow> pendingLookups = new ArrayList<>();
+	private KeyIndexes sharedKeyIndexes;
+	private HashMap<String, KeyIndex> keyIndexes = new HashMap<>(); //table.field -> keys (preload write mode)
+
+	private LinkedHashSet<PreparedStatement> insertBatches = new LinkedHashSet<>();
+	private LinkedHashSet<PreparedStatement> updateBatches = new LinkedHashSet<>();
+	private LinkedHashSet<PreparedStatement> upsertBatches = new LinkedHashSet<>();
+	private IdentityHashMap<PreparedStatement, List<ImportRow>> updateBatchRows = new IdentityHashMap<>(); //rows of each update batch (preload write mode)
+	private HashMap<String, HashSet<String>> pendingInsertKeys = new HashMap<>(); //table -> keys waiting in an insert batch
+	private int pendingRows = 0;
+	private int uncommittedBatches = 0;
+	private List<ImportRow> uncommittedRows = new ArrayList<>(); //rows batched since the last commit, in the order they were written
+	private long firstUncommittedRow = 0; //number of rows written before the first row of uncommittedRows
+	private List<String> uncommittedInserts = new ArrayList<>(); //table of each row inserted since the last commit
+	private List<String> uncommittedUpdates = new ArrayList<>(); //table of each row updated since the last commit
+	private List<String> uncommittedUpserts = new ArrayList<>(); //table of each row upserted since the last commit
+
+	private ImportMetrics metrics = ImportMetrics.get();
+	private long acceptedRows = 0;
+	private long failedRows = 0;
+	private int resolvingRows = 0; //rows of the lookup group being resolved that are not written yet
+
+	/**
+	 * Constructor for the DatabaseWriter object
+	 * @param connection The active connection to the database
+	 * @param importerSettings The settings containing the batch size and commit interval
+	 * @throws SQLException if autocommit could not be turned off for batching or the keys could not be preloaded
+	 */
+	public DatabaseWriter(Connection connection, ImporterSettings importerSettings) throws SQLException {
+		this(connection, importerSettings, new ColumnTypes(), new KeyIndexes());
+	}
+
+	/**
+	 * Constructor for the DatabaseWriter object
+	 * @param connection The active connection to the database
+	 * @param importerSettings The settings containing the batch size and commit interval
+	 * @param columnTypes The column types of the tables (usually ConnectionPool.getColumnTypes())
+	 * @param keyIndexes The key indexes of the preload write mode (usually ConnectionPool.getKeyIndexes())
+	 * @throws SQLException if autocommit could not be turned off for batching or the keys could not be preloaded
+	 */
+	public DatabaseWriter(Connection connection, ImporterSettings importerSettings, ColumnTypes columnTypes, KeyIndexes keyIndexes) throws SQLException {
+		this.connection = connection;
+		this.sharedKeyIndexes = keyIndexes;
+		this.statements = new StatementCache(connection, SqlDialect.forUrl(importerSettings.getDatabaseHost()), columnTypes);
+		this.batchSize = importerSettings.getBatchSize();
+		this.commitInterval = importerSettings.getCommitInterval();
+		this.writeMode = importerSettings.getWriteMode();
+		this.lookupBatchSize = importerSettings.getLookupBatchSize();
+
+		//read before autocommit is turned off, so a table that can not be read does not abort a transaction
+		for(ArrayList<ImportInstruction> instructions : importerSettings.getImportInstructionMap().values()){
+			for(ImportInstruction instruction : instructions){
+				if(!columnTypes.isLoaded(instruction.getTable())){
+					try {
+						columnTypes.load(connection, instruction.getTable());
+					} catch (SQLException e){
+						//the values of the table are bound as strings, and the writes report what is wrong with it
+					}
+				}
+			}
+		}
+
+		if(isBatching())
+			connection.setAutoCommit(false);
+
+		if(writeMode == WriteMode.PRELOAD){
+			for(ArrayList<ImportInstruction> instructions : importerSettings.getImportInstructionMap().values()){
+				for(ImportInstruction instruction : instructions){
+					if(instruction.getParent() == null)
+						this.getKeyIndex(instruction.getTable(), instruction.getField());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns whether or not rows are collected into batches before being written
+	 * @return true if batching is enabled
+	 */
+	public boolean isBatching(){
+		return batchSize > 1;
+	}
+
+	/**
+	 * Writes the row (see write())
+	 * @param row The row to be written
+	 * @return true - the row was written (or batched) successfully
+	 * 		 false - writing the row failed
+	 */
+	@Override
+	public boolean accept(ImportRow row){
+		return this.write(row);
+	}
+
+	/**
+	 * Returns the number of rows given to write(), counted from the first one, that are all committed
+	 * or counted as failed. Without batching a row is committed as soon as it is written, otherwise
+	 * when the transaction it was batched in is committed (or it is written again after a rollback).
+	 * @return the number of committed rows
+	 */
+	@Override
+	public long getCommittedRows(){
+		if(!uncommittedRows.isEmpty())
+			return firstUncommittedRow;
+		return this.getWrittenRows();
+	}
+
+	/**
+	 * Returns the number of rows that could not be written. When batching, a row that
+	 * fails is only known once its batch is written, so write() still returned true for it.
+	 * @return failedRows
+	 */
+	@Override
+	public long getFailedRows(){
+		return failedRows;
+	}
+
+	/**
+	 * Inserts or updates the row in the database. When batching, the row is only
+	 * added to a batch and is written once the batch size has been reached.
+	 * @param row The row to be written
+	 * @return true - the row was written (or batched) successfully
+	 * 		 false - writing the row failed
+	 */
+	public boolean write(ImportRow row){
+		acceptedRows++;
+		if(!this.writeRow(row)){
+			this.countFailed(row);
+			return false;
+		}
+		return true;
+	}
+
+	private void countFailed(ImportRow row){
+		failedRows++;
+		metrics.rowFailed(row.getTable());
+	}
+
+	/**
+	 * Writes the row the way the write mode says
+	 */
+	private boolean writeRow(ImportRow row){
+		if(writeMode == WriteMode.BATCH_CHECK){
+			//the rows that fail are counted while the lookups are resolved
+			pendingLookups.add(row);
+			if(pendingLookups.size() >= lookupBatchSize)
+				this.resolvePendingLookups();
+			return true;
+		}
+
+		try {
+			if(writeMode == WriteMode.UPSERT){
+				PreparedStatement statement = statements.getUpsert(row.getTable(), row.getColumns());
+				bindValues(statement, statements.getTypes(statement), row, false);
+				return this.execute(statement, upsertBatches, uncommittedUpserts, row);
+			}
+
+			if(writeMode == WriteMode.PRELOAD){
+				KeyIndex keyIndex = this.getKeyIndex(row.getTable(), row.getKeyField());
+				boolean doInsert = !keyIndex.contains(row.getKeyValue());
+				if(doInsert)
+					keyIndex.add(row.getKeyValue());
+				return this.write(row, doInsert);
+			}
+
+			return this.write(row, !this.isPendingInsert(row) && !this.exists(row));
+		} catch (SQLException e){
+			e.printStackTrace();
+			return false;
+		}
+	}
+
+	/**
+	 * Executes all pending batches (inserts before updates) and commits if the commit interval was reached.
+	 * If a batch or the commit fails, the transaction is rolled back and written again row by row.
+	 * @return true - all rows were written successfully
+	 * 		 false - a row failed (it is counted by getFailedRows())
+	 */
+	public boolean flush(){
+		boolean success = this.resolvePendingLookups();
+		if(pendingRows == 0)
+			return success;
+
+		try {
+			long start = System.nanoTime();
+			for(PreparedStatement statement : insertBatches)
+				statement.executeBatch();
+			this.executeUpdateBatches();
+			for(PreparedStatement statement : upsertBatches)
+				statement.executeBatch();
+			metrics.getWriteLatency().record(System.nanoTime() - start);
+
+			if(++uncommittedBatches >= commitInterval)
+				this.commit();
+
+		} catch (SQLException e){
+			e.printStackTrace();
+			if(!this.replay())
+				success = false;
+		}
+
+		insertBatches.clear();
+		updateBatches.clear();
+		upsertBatches.clear();
+		pendingInsertKeys.clear();
+		pendingRows = 0;
+		return success;
+	}
+
+	/**
+	 * Writes any pending batches, commits them and releases all statements
+	 */
+	public void close(){
+		this.flush();
+		if(isBatching()){
+			try {
+				this.commit();
+			} catch (SQLException e){
+				e.printStackTrace();
+				this.replay();
+			}
+		}
+
+		statements.close();
+	}
+
+	/**
+	 * Writes the row once it is known whether it should be inserted or updated
+	 */
+	private boolean write(ImportRow row, boolean doInsert) throws SQLException {
+		if(doInsert){
+			PreparedStatement statement = statements.getInsert(row.getTable(), row.getColumns());
+			bindValues(statement, statements.getTypes(statement), row, false);
+
+			if(isBatching()){
+				HashSet<String> pendingKeys = pendingInsertKeys.get(row.getTable());
+				if(pendingKeys == null){
+					pendingKeys = new HashSet<>();
+					pendingInsertKeys.put(row.getTable(), pendingKeys);
+				}
+				pendingKeys.add(row.getKeyValue());
+			}
+			return this.execute(statement, insertBatches, uncommittedInserts, row);
+		}
+
+		PreparedStatement statement = statements.getUpdate(row.getTable(), row.getColumns());
+		bindValues(statement, statements.getTypes(statement), row, true);
+
+		if(!isBatching()){
+			//the key index said the key exists but the row is not there (hash collision or deleted row)
+			long start = System.nanoTime();
+			int updated = statement.executeUpdate();
+			metrics.getWriteLatency().record(System.nanoTime() - start);
+			if(updated == 0 && writeMode == WriteMode.PRELOAD)
+				return this.write(row, true);
+			metrics.rowUpdated(row.getTable());
+			return true;
+		}
+
+		if(writeMode == WriteMode.PRELOAD){
+			List<ImportRow> batchRows = updateBatchRows.get(statement);
+			if(batchRows == null){
+				batchRows = new ArrayList<>();
+				updateBatchRows.put(statement, batchRows);
+			}
+			batchRows.add(row);
+			//preload updates are counted once the batch shows whether they found their row
+			return this.execute(statement, updateBatches, null, row);
+		}
+		return this.execute(statement, updateBatches, uncommittedUpdates, row);
+	}
+
+	/**
+	 * Executes the bound statement right away, or adds it to its batch when batching
+	 * (a row of a batch that fails is counted by flush()). The table of the row is added
+	 * to the provided list, which is counted in the metrics once the row is committed.
+	 */
+	private boolean execute(PreparedStatement statement, LinkedHashSet<PreparedStatement> batches, List<String> writtenTables, ImportRow row) throws SQLException {
+		if(!isBatching()){
+			long start = System.nanoTime();
+			statement.executeUpdate();
+			metrics.getWriteLatency().record(System.nanoTime() - start);
+			//autocommit is on, the row is committed
+			writtenTables.add(row.getTable());
+			this.countCommitted();
+			return true;
+		}
+
+		statement.addBatch();
+		batches.add(statement);
+		if(writtenTables != null)
+			writtenTables.add(row.getTable());
+		if(uncommittedRows.isEmpty())
+			firstUncommittedRow = this.getWrittenRows() - 1;
+		uncommittedRows.add(row);
+
+		if(++pendingRows >= batchSize)
+			this.flush();
+		return true;
+	}
+
+	/**
+	 * Binds the values of the row to the statement. For updates the key value is bound last (in the where clause).
+	 */
+	private static void bindValues(PreparedStatement statement, int[] types, ImportRow row, boolean keyLast) throws SQLException {
+		List<String> values = row.getValues();
+		if(!keyLast){
+			for(int i = 0; i < values.size(); i++)
+				bindValue(statement, i + 1, values.get(i), types[i]);
+		}
+		else{
+			for(int i = 1; i < values.size(); i++)
+				bindValue(statement, i, values.get(i), types[i]);
+			bindValue(statement, values.size(), values.get(0), types[0]);
+		}
+	}
+
+	private static void bindValue(PreparedStatement statement, int parameter, String value, int type) throws SQLException {
+		if(value == null)
+			statement.setNull(parameter, type);
+		else if(ColumnTypes.isBoundAsString(type))
+			statement.setString(parameter, value);
+		else
+			statement.setObject(parameter, value, type);
+	}
+
+	/**
+	 * Decides between insert and update for all rows waiting on a key lookup and writes them.
+	 * The keys are looked up with one query per table (and key field) for up to lookupBatchSize rows.
+	 * @return true - all rows were written (or batched) successfully
+	 * 		 false - the lookup or writing a row failed
+	 */
+	private boolean resolvePendingLookups(){
+		if(pendingLookups.isEmpty())
+			return true;
+
+		List<ImportRow> rows = pendingLookups;
+		pendingLookups = new ArrayList<>();
+
+		boolean success = true;
+		resolvingRows = rows.size();
+		try {
+			//group the distinct keys by table and key field, in the order they arrived
+			LinkedHashMap<String, LinkedHashMap<String, ImportRow>> keysByTable = new LinkedHashMap<>();
+			for(ImportRow row : rows){
+				String tableKey = row.getTable()+"."+row.getKeyField();
+				LinkedHashMap<String, ImportRow> keys = keysByTable.get(tableKey);
+				if(keys == null){
+					keys = new LinkedHashMap<>();
+					keysByTable.put(tableKey, keys);
+				}
+				if(row.getKeyValue() != null && !keys.containsKey(row.getKeyValue()))
+					keys.put(row.getKeyValue(), row);
+			}
+
+			HashMap<String, HashSet<String>> existingKeys = new HashMap<>();
+			for(String tableKey : keysByTable.keySet()){
+				LinkedHashMap<String, ImportRow> keys = keysByTable.get(tableKey);
+				ImportRow first = keys.isEmpty() ? null : keys.values().iterator().next();
+				HashSet<String> existing = new HashSet<>();
+				if(first != null)
+					existing.addAll(this.findExistingKeys(first.getTable(), first.getKeyField(), new ArrayList<>(keys.keySet())));
+				existingKeys.put(tableKey, existing);
+			}
+
+			for(ImportRow row : rows){
+				HashSet<String> existing = existingKeys.get(row.getTable()+"."+row.getKeyField());
+				boolean doInsert = !existing.contains(row.getKeyValue()) && !this.isPendingInsert(row);
+				//a later row with the same key in this group has to update the row inserted here
+				if(doInsert && row.getKeyValue() != null)
+					existing.add(row.getKeyValue());
+
+				//the row counts as written from here on, even if writing it fails
+				resolvingRows--;
+				try {
+					this.write(row, doInsert);
+				} catch (SQLException e){
+					e.printStackTrace();
+					this.countFailed(row);
+					success = false;
+				}
+			}
+		} catch (SQLException e){
+			//the keys could not be looked up, none of the rows are written
+			e.printStackTrace();
+			for(ImportRow row : rows)
+				this.countFailed(row);
+			success = false;
+		} finally {
+			resolvingRows = 0;
+		}
+		return success;
+	}
+
+	/**
+	 * Returns which of the provided keys already exist in the table
+	 */
+	private HashSet<String> findExistingKeys(String table, String keyField, List<String> keys) throws SQLException {
+		HashSet<String> existing = new HashSet<>();
+		PreparedStatement stat = statements.getBatchLookup(table, keyField, lookupBatchSize);
+		int keyType = statements.getTypes(stat)[0];
+
+		for(int start = 0; start < keys.size(); start += lookupBatchSize){
+			//the statement always takes lookupBatchSize keys, the last chunk repeats its last key
+			for(int i = 0; i < lookupBatchSize; i++)
+				bindValue(stat, i + 1, keys.get(Math.min(start + i, keys.size() - 1)), keyType);
+
+			long lookupStart = System.nanoTime();
+			ResultSet rs = stat.executeQuery();
+			while(rs.next())
+				existing.add(rs.getString(1));
+			rs.close();
+			metrics.getLookupLatency().record(System.nanoTime() - lookupStart);
+		}
+		return existing;
+	}
+
+	/**
+	 * Returns the shared index of the keys of the table (see KeyIndexes)
+	 */
+	private KeyIndex getKeyIndex(String table, String keyField) throws SQLException {
+		String indexKey = table+"."+keyField;
+		KeyIndex keyIndex = keyIndexes.get(indexKey);
+		if(keyIndex == null){
+			keyIndex = sharedKeyIndexes.get(connection, table, keyField);
+			keyIndexes.put(indexKey, keyIndex);
+		}
+		return keyIndex;
+	}
+
+	/**
+	 * Checks whether a row with the same key is waiting in an insert batch that has not been executed yet
+	 */
+	private boolean isPendingInsert(ImportRow row){
+		HashSet<String> pendingKeys = pendingInsertKeys.get(row.getTable());
+		return pendingKeys != null && pendingKeys.contains(row.getKeyValue());
+	}
+
+	/**
+	 * Checks the database for an existing row with the same key as the provided row
+	 */
+	private boolean exists(ImportRow row) throws SQLException {
+		PreparedStatement stat = statements.getLookup(row.getTable(), row.getKeyField());
+		bindValue(stat, 1, row.getKeyValue(), statements.getTypes(stat)[0]);
+
+		long start = System.nanoTime();
+		ResultSet rs = stat.executeQuery();
+
+		//if there already exists an entry with this value, do an update instead of an insert
+		boolean exists = rs.next();
+
+		rs.close();
+		metrics.getLookupLatency().record(System.nanoTime() - start);
+		return exists;
+	}
+
+	/**
+	 * Executes the update batches. In the preload write mode, rows whose update did not
+	 * find an existing row are inserted instead.
+	 */
+	private void executeUpdateBatches() throws SQLException {
+		for(PreparedStatement statement : updateBatches){
+			int[] counts = statement.executeBatch();
+
+			List<ImportRow> batchRows = updateBatchRows.remove(statement);
+			if(batchRows == null)
+				continue;
+			for(int i = 0; i < counts.length && i < batchRows.size(); i++){
+				if(counts[i] != 0){
+					uncommittedUpdates.add(batchRows.get(i).getTable());
+				}
+				else{
+					PreparedStatement insert = statements.getInsert(batchRows.get(i).getTable(), batchRows.get(i).getColumns());
+					bindValues(insert, statements.getTypes(insert), batchRows.get(i), false);
+					insert.executeUpdate();
+					uncommittedInserts.add(batchRows.get(i).getTable());
+				}
+			}
+		}
+	}
+
+	private void commit() throws SQLException {
+		if(uncommittedBatches > 0){
+			long start = System.nanoTime();
+			connection.commit();
+			metrics.getCommitLatency().record(System.nanoTime() - start);
+		}
+		uncommittedBatches = 0;
+		uncommittedRows.clear();
+		this.countCommitted();
+	}
+
+	/**
+	 * Adds the rows written since the last commit to the metrics
+	 */
+	private void countCommitted(){
+		for(String table : uncommittedInserts)
+			metrics.rowInserted(table);
+		for(String table : uncommittedUpdates)
+			metrics.rowUpdated(table);
+		for(String table : uncommittedUpserts)
+			metrics.rowUpserted(table);
+		uncommittedInserts.clear();
+		uncommittedUpdates.clear();
+		uncommittedUpserts.clear();
+	}
+
+	/**
+	 * Rolls back the current transaction and writes each of its rows again in a transaction of its own.
+	 * Whether a row is inserted or updated is decided again with a lookup, since the rollback undid the
+	 * rows the decisions were based on.
+	 * @return true - every row was written again
+	 * 		 false - a row failed (it is counted by getFailedRows())
+	 */
+	private boolean replay(){
+		this.rollback();
+		List<ImportRow> rows = uncommittedRows;
+		uncommittedRows = new ArrayList<>();
+
+		boolean success = true;
+		for(ImportRow row : rows){
+			try {
+				PreparedStatement statement;
+				List<String> writtenTables;
+				if(writeMode == WriteMode.UPSERT){
+					statement = statements.getUpsert(row.getTable(), row.getColumns());
+					bindValues(statement, statements.getTypes(statement), row, false);
+					writtenTables = uncommittedUpserts;
+				}
+				else if(this.exists(row)){
+					statement = statements.getUpdate(row.getTable(), row.getColumns());
+					bindValues(statement, statements.getTypes(statement), row, true);
+					writtenTables = uncommittedUpdates;
+				}
+				else{
+					statement = statements.getInsert(row.getTable(), row.getColumns());
+					bindValues(statement, statements.getTypes(statement), row, false);
+					writtenTables = uncommittedInserts;
+				}
+				long start = System.nanoTime();
+				statement.executeUpdate();
+				metrics.getWriteLatency().record(System.nanoTime() - start);
+				connection.commit();
+				writtenTables.add(row.getTable());
+				this.countCommitted();
+			} catch (SQLException e){
+				System.out.println("Could not write "+row+": "+e.getMessage());
+				try { connection.rollback(); } catch (SQLException ex) { ex.printStackTrace(); }
+				this.countFailed(row);
+				success = false;
+			}
+		}
+		return success;
+	}
+
+	/**
+	 * Returns the number of rows given to write() that are not waiting on a key lookup anymore
+	 * (the row being written is included)
+	 */
+	private long getWrittenRows(){
+		return acceptedRows - pendingLookups.size() - resolvingRows;
+	}
+
+	private void rollback(){
+		uncommittedBatches = 0;
+		uncommittedInserts.clear();
+		uncommittedUpdates.clear();
+		uncommittedUpserts.clear();
+		try {
+			for(PreparedStatement statement : insertBatches)
+				statement.clearBatch();
+			for(PreparedStatement statement : updateBatches)
+				statement.clearBatch();
+			for(PreparedStatement statement : upsertBatches)
+				statement.clearBatch();
+			updateBatchRows.clear();
+			connection.rollback();
+		} catch (SQLException e){
+			e.printStackTrace();
+		}
+	}
+}
@@ -0,0 +1,307 @@
+package com.tannerembry.xmlshredder.database;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+import com.tannerembry.xmlshredder.importer.ImportRow;
+
+/**
+ * A file of fingerprints of the rows written by earlier imports, used to skip rows that
+ * did not change since then. For every key (a 64 bit hash of the table and key value)
+ * the store holds a 64 bit hash of the whole row as it was last written.
+ *
+ * The file is split into segments that are each an open-addressed table (linear probing,
+ * like the LongHashSet), and the top bits of a key pick its segment. Every segment is
+ * memory-mapped on its own, so the file is not read into memory when it is opened, every
+ * change is written back by the operating system and no mapping is larger than the 2GB
+ * a single mapping can hold. When the store is 70% full it is copied into a file twice
+ * the size (with segments twice as large, or twice as many once they reached
+ * MAX_SEGMENT_SLOTS), which then replaces the old file. A store is only created where
+ * no file exists, an existing file that is not a store is never overwritten.
+ *
+ * Two rows with different content sharing a hash is extremely unlikely (1 in 2^64), and
+ * keys sharing a hash only means those rows are always written.
+ *
+ * All methods are synchronized so the store can be shared by files imported at the same time.
+ *
+ * @author      Tanner Embry, Claresco Corp <tembry@claresco.com>
+ * @version     1.0
+ * @since       1.0
+ */
+
+public class FingerprintStore {
+
+	private static final long MAGIC = 0x786d6c7364656c74L; //"xmlsdelt"
+	private static final int HEADER_SIZE = 32; //magic, slots per segment, size, segments
+	private static final int SLOT_SIZE = 16;
+	private static final long INITIAL_CAPACITY = 1 << 16;
+	private static final long MAX_SEGMENT_SLOTS = 1 << 26; //a single mapping is limited to 2GB
+	private static final long MAX_SEGMENTS = 1 << 24; //segments are picked by the top 24 bits of the key
+	private static final float LOAD_FACTOR = 0.7f;
+
+	private File file;
+	private long maxSegmentSlots;
+	private MappedByteBuffer header;
+	private MappedByteBuffer[] segments;
+	private long slots; //per segment
+	private long mask;
+	private long size;
+
+	/**
+	 * Constructor for the FingerprintStore object that opens the store, creating it if it does not exist
+	 * @param path The path of the store file
+	 * @throws IOException if the file could not be opened or created, or if a file that is not a store already exists at the path
+	 */
+	public FingerprintStore(String path) throws IOException {
+		this(path, MAX_SEGMENT_SLOTS);
+	}
+
+	/**
+	 * Constructor for the FingerprintStore object with a smaller segment size (used by the tests)
+	 */
+	FingerprintStore(String path, long maxSegmentSlots) throws IOException {
+		this.file = new File(path);
+		this.maxSegmentSlots = maxSegmentSlots;
+
+		if(!file.exists()){
+			this.create(file, 1, Math.min(INITIAL_CAPACITY, maxSegmentSlots));
+			this.map(file);
+			return;
+		}
+
+		//the header is checked before the file is mapped, so a file that is not a store is never changed
+		long magic;
+		long segmentSlots;
+		long segmentCount;
+		try(RandomAccessFile raf = new RandomAccessFile(file, "r")){
+			if(raf.length() < HEADER_SIZE)
+				throw new IOException(path+" is not a fingerprint store (delete it or change the deltastore path).");
+			magic = raf.readLong();
+			segmentSlots = raf.readLong();
+			raf.readLong();
+			segmentCount = Math.max(1, raf.readLong()); //stores written before segments were added have one
+		}
+		if(magic != MAGIC || Long.bitCount(segmentSlots) != 1 || segmentSlots > MAX_SEGMENT_SLOTS
+				|| Long.bitCount(segmentCount) != 1 || segmentCount > MAX_SEGMENTS
+				|| file.length() != HEADER_SIZE + segmentCount * segmentSlots * SLOT_SIZE)
+			throw new IOException(path+" is not a fingerprint store (delete it or change the deltastore path).");
+
+		this.map(file);
+	}
+
+	/**
+	 * Returns the number of keys in the store
+	 * @return size
+	 */
+	public synchronized long size(){
+		return size;
+	}
+
+	/**
+	 * Returns the fingerprint last stored for the key
+	 * @param key The hash of the key (see keyHash())
+	 * @return the fingerprint of the row (0 if the key is not in the store)
+	 */
+	public synchronized long get(long key){
+		key = nonZero(key);
+		MappedByteBuffer segment = segments[segmentOf(key, segments.length)];
+		long index = key & mask;
+		long stored;
+		while((stored = segment.getLong(offset(index))) != 0){
+			if(stored == key)
+				return segment.getLong(offset(index) + 8);
+			index = (index + 1) & mask;
+		}
+		return 0;
+	}
+
+	/**
+	 * Stores the fingerprint of the row last written for the key
+	 * @param key The hash of the key (see keyHash())
+	 * @param fingerprint The fingerprint of the row (see fingerprint())
+	 * @throws IOException if the store had to grow and the larger file could not be written
+	 */
+	public synchronized void put(long key, long fingerprint) throws IOException {
+		key = nonZero(key);
+		fingerprint = nonZero(fingerprint);
+
+		MappedByteBuffer segment = segments[segmentOf(key, segments.length)];
+		long index = key & mask;
+		long stored;
+		while((stored = segment.getLong(offset(index))) != 0){
+			if(stored == key){
+				segment.putLong(offset(index) + 8, fingerprint);
+				return;
+			}
+			index = (index + 1) & mask;
+		}
+
+		if(size + 1 > segments.length * slots * LOAD_FACTOR){
+			this.grow();
+			this.put(key, fingerprint);
+			return;
+		}
+
+		//the fingerprint is written before the key so a slot is never used without one
+		segment.putLong(offset(index) + 8, fingerprint);
+		segment.putLong(offset(index), key);
+		header.putLong(16, ++size);
+	}
+
+	/**
+	 * Writes every change to the disk
+	 */
+	public synchronized void close(){
+		header.force();
+		for(MappedByteBuffer segment : segments)
+			segment.force();
+	}
+
+	/**
+	 * Returns the 64 bit hash of the table and key value of the row
+	 * @param row The row
+	 * @return hash of the key (never 0)
+	 */
+	public static long keyHash(ImportRow row){
+		long hash = hash(0xcbf29ce484222325L, row.getTable());
+		hash = hash(hash, row.getKeyField());
+		return nonZero(mix(hash(hash, row.getKeyValue())));
+	}
+
+	/**
+	 * Returns the 64 bit fingerprint of everything that is written for the row
+	 * (table, columns and values, in order)
+	 * @param row The row
+	 * @return fingerprint of the row (never 0)
+	 */
+	public static long fingerprint(ImportRow row){
+		long hash = hash(0xcbf29ce484222325L, row.getTable());
+		List<String> columns = row.getColumns();
+		List<String> values = row.getValues();
+		for(int i = 0; i < columns.size(); i++){
+			hash = hash(hash, columns.get(i));
+			hash = hash(hash, values.get(i));
+		}
+		return nonZero(mix(hash));
+	}
+
+	/**
+	 * Continues an FNV-1a hash over the characters of the value and a separator
+	 * (null values hash differently from empty values)
+	 */
+	private static long hash(long hash, String value){
+		if(value == null){
+			hash ^= 0x10000;
+			return hash * 0x100000001b3L;
+		}
+		for(int i = 0; i < value.length(); i++){
+			hash ^= value.charAt(i);
+			hash *= 0x100000001b3L;
+		}
+		hash ^= 0x10001;
+		return hash * 0x100000001b3L;
+	}
+
+	private static long mix(long hash){
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+
+	private static long nonZero(long hash){
+		return (hash == 0) ? 1 : hash;
+	}
+
+	private static int offset(long index){
+		return (int) (index * SLOT_SIZE);
+	}
+
+	/**
+	 * Returns the segment of the key, picked by its top bits (the slot within the segment uses its bottom bits)
+	 */
+	private static int segmentOf(long key, int segmentCount){
+		return (int) (key >>> 40) & (segmentCount - 1);
+	}
+
+	/**
+	 * Copies every key into a file twice the size and replaces the store file with it
+	 */
+	private void grow() throws IOException {
+		MappedByteBuffer[] old = segments;
+		long oldSlots = slots;
+		long keys = size;
+
+		long newSegments = (slots < maxSegmentSlots) ? old.length : old.length * 2L;
+		long newSlots = (slots < maxSegmentSlots) ? slots * 2 : slots;
+		if(newSegments > MAX_SEGMENTS)
+			throw new IOException(file+" can not hold more than "+size+" keys.");
+
+		File larger = new File(file.getPath()+".grow");
+		this.create(larger, newSegments, newSlots);
+		this.map(larger);
+
+		for(MappedByteBuffer oldSegment : old){
+			for(long i = 0; i < oldSlots; i++){
+				long key = oldSegment.getLong(offset(i));
+				if(key == 0)
+					continue;
+				MappedByteBuffer segment = segments[segmentOf(key, segments.length)];
+				long index = key & mask;
+				while(segment.getLong(offset(index)) != 0)
+					index = (index + 1) & mask;
+				segment.putLong(offset(index) + 8, oldSegment.getLong(offset(i) + 8));
+				segment.putLong(offset(index), key);
+			}
+		}
+		size = keys;
+		header.putLong(16, size);
+		this.close();
+
+		try {
+			Files.move(larger.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e){
+			Files.move(larger.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	/**
+	 * Writes an empty store with the provided number of segments and slots per segment
+	 */
+	private void create(File target, long segmentCount, long segmentSlots) throws IOException {
+		try(RandomAccessFile raf = new RandomAccessFile(target, "rw")){
+			raf.setLength(0);
+			raf.setLength(HEADER_SIZE + segmentCount * segmentSlots * SLOT_SIZE);
+			raf.writeLong(MAGIC);
+			raf.writeLong(segmentSlots);
+			raf.writeLong(0);
+			raf.writeLong(segmentCount);
+		}
+	}
+
+	/**
+	 * Maps the header and every segment of the store file and reads its layout from the header
+	 */
+	private void map(File target) throws IOException {
+		try(RandomAccessFile raf = new RandomAccessFile(target, "rw")){
+			FileChannel channel = raf.getChannel();
+			header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+			slots = header.getLong(8);
+			mask = slots - 1;
+			size = header.getLong(16);
+
+			segments = new MappedByteBuffer[(int) Math.max(1, header.getLong(24))];
+			for(int i = 0; i < segments.length; i++)
+				segments[i] = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE + i * slots * SLOT_SIZE, slots * SLOT_SIZE);
+		}
+	}
+}
@@ -0,0 +1,24 @@
+package com.tannerembry.xmlshredder.database;
+
+import java.util.List;
+
+/**
+ * The H2 dialect. Upserts are written with H2's MERGE INTO ... KEY (key) VALUES statement.
+ *
+ * @author      Tanner Embry, Claresco Corp <tembry@claresco.com>
+ * @version     1.0
+ * @since       1.0
+ */
+
+public class H2Dialect extends SqlDialect {
+
+	@Override
+	public String getDriverClass(){
+		return "org.h2.Driver";
+	}
+
+	@Override
+	public String getUpsertQuery(String table, List<String> columns){
+		return "merge into "+table+" ("+join(columns, 0, "")+") key ("+columns.get(0)+") values ("+parameters(columns.size())+")";
+	}
+}
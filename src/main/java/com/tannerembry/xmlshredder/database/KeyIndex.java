@@ -0,0 +1,156 @@
+package com.tannerembry.xmlshredder.database;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * An in memory index of the key values of one table. The key column is read once
+ * when the index is loaded and every key inserted afterwards is added, so whether
+ * a row should be inserted or updated can be decided without a query.
+ *
+ * Keys are stored as 64 bit hashes in a bloom filter (which answers most lookups
+ * for new keys) backed by a primitive hash set. Two different keys sharing a hash
+ * is extremely unlikely, and the DatabaseWriter falls back to an insert when an
+ * update does not find the row, so a collision never loses a row.
+ *
+ * An index is shared by every writer of a ConnectionPool (see KeyIndexes), so its
+ * methods are synchronized.
+ *
+ * @author      Tanner Embry, Claresco Corp <tembry@claresco.com>
+ * @version     1.0
+ * @since       1.0
+ */
+
+public class KeyIndex {
+
+	private static final int FETCH_SIZE = 10000;
+
+	private String dbTable;
+	private String dbField;
+
+	private LongHashSet keys;
+	private BloomFilter filter;
+
+	/**
+	 * Constructor for the KeyIndex object (the index starts empty)
+	 * @param dbTable The table the keys belong to
+	 * @param dbField The key field of the table
+	 */
+	public KeyIndex(String dbTable, String dbField){
+		this.dbTable = dbTable;
+		this.dbField = dbField;
+		this.keys = new LongHashSet(1024);
+		this.filter = new BloomFilter(1024);
+	}
+
+	/**
+	 * Returns the name of the table the keys belong to
+	 * @return dbTable
+	 */
+	public String getTable(){
+		return dbTable;
+	}
+
+	/**
+	 * Returns the name of the key field
+	 * @return dbField
+	 */
+	public String getField(){
+		return dbField;
+	}
+
+	/**
+	 * Returns the number of keys in the index
+	 * @return the number of keys
+	 */
+	public synchronized int size(){
+		return keys.size();
+	}
+
+	/**
+	 * Streams every value of the key field from the table into the index
+	 * @param connection The connection to the database
+	 * @throws SQLException if the key field could not be read
+	 */
+	public synchronized void load(Connection connection) throws SQLException {
+		//most drivers (postgres included) only stream results with a fetch size outside of autocommit
+		boolean autoCommit = connection.getAutoCommit();
+		if(autoCommit)
+			connection.setAutoCommit(false);
+
+		try {
+			Statement stat = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+			stat.setFetchSize(FETCH_SIZE);
+			ResultSet rs = stat.executeQuery("select "+dbField+" from "+dbTable);
+			while(rs.next()){
+				String key = rs.getString(1);
+				if(key != null)
+					keys.add(hash(key));
+			}
+			rs.close();
+			stat.close();
+		} finally {
+			if(autoCommit){
+				connection.commit();
+				connection.setAutoCommit(true);
+			}
+		}
+
+		this.rebuildFilter();
+	}
+
+	/**
+	 * Checks whether the key exists in the table (or was inserted during this run)
+	 * @param key The key value
+	 * @return true if the key exists
+	 */
+	public synchronized boolean contains(String key){
+		if(key == null)
+			return false;
+		long hash = hash(key);
+		return filter.mightContain(hash) && keys.contains(hash);
+	}
+
+	/**
+	 * Adds a key that is being inserted into the table
+	 * @param key The key value
+	 */
+	public synchronized void add(String key){
+		if(key == null)
+			return;
+		long hash = hash(key);
+		if(keys.add(hash)){
+			filter.add(hash);
+			//keep the false positive rate low as the table grows during the run
+			if(keys.size() > filter.getCapacity())
+				this.rebuildFilter();
+		}
+	}
+
+	private void rebuildFilter(){
+		final BloomFilter newFilter = new BloomFilter((long) keys.size() * 2);
+		keys.forEach(hash -> newFilter.add(hash));
+		filter = newFilter;
+	}
+
+	/**
+	 * Returns a 64 bit hash of the key (FNV-1a over the characters with a final mix)
+	 * @param key The key value
+	 * @return hash of the key
+	 */
+	public static long hash(String key){
+		long hash = 0xcbf29ce484222325L;
+		for(int i = 0; i < key.length(); i++){
+			hash ^= key.charAt(i);
+			hash *= 0x100000001b3L;
+		}
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+}
@@ -0,0 +1,45 @@
+package com.tannerembry.xmlshredder.database;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashMap;
+
+/**
+ * Holds the KeyIndex of every (table, key field) the preload write mode writes to.
+ * The key column of a table is read the first time a writer asks for it, and every
+ * later writer gets the same index, so the partitions of a file and the files after
+ * it neither read the column again nor keep a copy of their own.
+ *
+ * One KeyIndexes is shared by every writer of a ConnectionPool.
+ *
+ * @author      Tanner Embry, Claresco Corp <tembry@claresco.com>
+ * @version     1.0
+ * @since       1.0
+ */
+
+public class KeyIndexes {
+
+	private HashMap<String, KeyIndex> indexes = new HashMap<>(); //table.field -> keys
+
+	/**
+	 * Returns the index of the keys of the table, reading them from the database the first time.
+	 * Writers asking for an index that is being read wait until it is complete.
+	 * @param connection The connection used to read the keys
+	 * @param table The table
+	 * @param keyField The key field of the table
+	 * @return the index shared by every writer
+	 * @throws SQLException if the key field could not be read
+	 */
+	public synchronized KeyIndex get(Connection connection, String table, String keyField) throws SQLException {
+		String indexKey = table+"."+keyField;
+		KeyIndex keyIndex = indexes.get(indexKey);
+		if(keyIndex == null){
+			long start = System.currentTimeMillis();
+			keyIndex = new KeyIndex(table, keyField);
+			keyIndex.load(connection);
+			indexes.put(indexKey, keyIndex);
+			System.out.println("Loaded "+keyIndex.size()+" keys from "+indexKey+" in "+(System.currentTimeMillis() - start)+" ms");
+		}
+		return keyIndex;
+	}
+}
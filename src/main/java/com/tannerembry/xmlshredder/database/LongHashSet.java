@@ -0,0 +1,119 @@
+package com.tannerembry.xmlshredder.database;
+
+import java.util.function.LongConsumer;
+
+/**
+ * A set of long values stored in a single open-addressed array (linear probing).
+ * It holds millions of values without creating an object per value.
+ * The value 0 is used to mark empty slots and is stored separately.
+ *
+ * @author      Tanner Embry, Claresco Corp <tembry@claresco.com>
+ * @version     1.0
+ * @since       1.0
+ */
+
+public class LongHashSet {
+
+	private static final float LOAD_FACTOR = 0.75f;
+
+	private long[] slots;
+	private int mask;
+	private int size;
+	private boolean containsZero;
+
+	/**
+	 * Constructor for the LongHashSet object
+	 * @param expectedSize The number of values the set should hold before it has to grow
+	 */
+	public LongHashSet(int expectedSize){
+		int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+		slots = new long[capacity];
+		mask = capacity - 1;
+	}
+
+	/**
+	 * Returns the number of values in the set
+	 * @return size
+	 */
+	public int size(){
+		return size;
+	}
+
+	/**
+	 * Checks whether the value is in the set
+	 * @param value The value to check
+	 * @return true if the value has been added
+	 */
+	public boolean contains(long value){
+		if(value == 0)
+			return containsZero;
+
+		int index = slot(value);
+		while(slots[index] != 0){
+			if(slots[index] == value)
+				return true;
+			index = (index + 1) & mask;
+		}
+		return false;
+	}
+
+	/**
+	 * Adds the value to the set
+	 * @param value The value to add
+	 * @return true if the value was not in the set before
+	 */
+	public boolean add(long value){
+		if(value == 0){
+			if(containsZero)
+				return false;
+			containsZero = true;
+			size++;
+			return true;
+		}
+
+		int index = slot(value);
+		while(slots[index] != 0){
+			if(slots[index] == value)
+				return false;
+			index = (index + 1) & mask;
+		}
+		slots[index] = value;
+		size++;
+
+		if(size > slots.length * LOAD_FACTOR)
+			this.grow();
+		return true;
+	}
+
+	/**
+	 * Calls the consumer with every value in the set (in no particular order)
+	 * @param consumer The consumer of the values
+	 */
+	public void forEach(LongConsumer consumer){
+		if(containsZero)
+			consumer.accept(0);
+		for(long value : slots){
+			if(value != 0)
+				consumer.accept(value);
+		}
+	}
+
+	private int slot(long value){
+		//the values are already well mixed hashes, fold the high bits in for other callers
+		return (int) (value ^ (value >>> 32)) & mask;
+	}
+
+	private void grow(){
+		long[] old = slots;
+		slots = new long[old.length * 2];
+		mask = slots.length - 1;
+		for(long value : old){
+			if(value == 0)
+				continue;
+			int index = slot(value);
+			while(slots[index] != 0)
+				index = (index + 1) & mask;
+			slots[index] = value;
+		}
+	}
+}
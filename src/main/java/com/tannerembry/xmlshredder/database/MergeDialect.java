@@ -0,0 +1,35 @@
+package com.tannerembry.xmlshredder.database;
+
+import java.util.List;
+
+/**
+ * The dialect used for databases without a dedicated one. Upserts are written
+ * with the standard sql MERGE statement.
+ *
+ * @author      Tanner Embry, Claresco Corp <tembry@claresco.com>
+ * @version     1.0
+ * @since       1.0
+ */
+
+public class MergeDialect extends SqlDialect {
+
+	@Override
+	public String getDriverClass(){
+		return null;
+	}
+
+	@Override
+	public String getUpsertQuery(String table, List<String> columns){
+		String key = columns.get(0);
+		StringBuilder updates = new StringBuilder();
+		for(int i = 1; i < columns.size(); i++){
+			if(i > 1)
+				updates.append(", ");
+			updates.append(columns.get(i)).append(" = s.").append(columns.get(i));
+		}
+		return "merge into "+table+" t using (values ("+parameters(columns.size())+")) s ("+join(columns, 0, "")+")"
+				+" on (t."+key+" = s."+key+")"
+				+" when matched then update set "+updates
+				+" when not matched then insert ("+join(columns, 0, "")+") values ("+join(columns, 0, "s.")+")";
+	}
+}
@@ -0,0 +1,32 @@
+package com.tannerembry.xmlshredder.database;
+
+import java.util.List;
+
+/**
+ * The PostgreSQL dialect. Upserts are written as INSERT ... ON CONFLICT (key) DO UPDATE,
+ * which requires a unique constraint (or primary key) on the key field.
+ *
+ * @author      Tanner Embry, Claresco Corp <tembry@claresco.com>
+ * @version     1.0
+ * @since       1.0
+ */
+
+public class PostgresDialect extends SqlDialect {
+
+	@Override
+	public String getDriverClass(){
+		return "org.postgresql.Driver";
+	}
+
+	@Override
+	public String getUpsertQuery(String table, List<String> columns){
+		StringBuilder updates = new StringBuilder();
+		for(int i = 1; i < columns.size(); i++){
+			if(i > 1)
+				updates.append(", ");
+			updates.append(columns.get(i)).append("=excluded.").append(columns.get(i));
+		}
+		return "insert into "+table+" ("+join(columns, 0, "")+") values ("+parameters(columns.size())+")"
+				+" on conflict ("+columns.get(0)+") do update set "+updates;
+	}
+}
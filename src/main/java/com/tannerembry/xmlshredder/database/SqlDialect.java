@@ -0,0 +1,119 @@
+package com.tannerembry.xmlshredder.database;
+
+import java.util.List;
+
+/**
+ * Generates the database specific parts of the sql used by the DatabaseWriter.
+ * The dialect is chosen from the jdbc url of the connection.
+ *
+ * @author      Tanner Embry, Claresco Corp <tembry@claresco.com>
+ * @version     1.0
+ * @since       1.0
+ */
+
+public abstract class SqlDialect {
+
+	/**
+	 * Returns the dialect matching the provided jdbc url
+	 * @param jdbcUrl The host string used to access the database (e.g. jdbc:postgresql://...)
+	 * @return the matching SqlDialect (standard sql MERGE if the database is not recognized)
+	 */
+	public static SqlDialect forUrl(String jdbcUrl){
+		String url = jdbcUrl == null ? "" : jdbcUrl.trim().toLowerCase();
+		if(url.startsWith("jdbc:postgresql:"))
+			return new PostgresDialect();
+		if(url.startsWith("jdbc:h2:"))
+			return new H2Dialect();
+		return new MergeDialect();
+	}
+
+	/**
+	 * Returns the class name of the jdbc driver for this database
+	 * @return the driver class name, or null if the driver should be found by the DriverManager
+	 */
+	public abstract String getDriverClass();
+
+	/**
+	 * Returns a parameterized statement that inserts the row, or updates it if the key already exists.
+	 * The parameters are the values of the columns in the order provided.
+	 * @param table The table to write into
+	 * @param columns The columns of the row (key column first)
+	 * @return the upsert statement
+	 */
+	public abstract String getUpsertQuery(String table, List<String> columns);
+
+	/**
+	 * Returns a parameterized insert statement. The parameters are the values of the columns in the order provided.
+	 * @param table The table to write into
+	 * @param columns The columns of the row (key column first)
+	 * @return the insert statement
+	 */
+	public String getInsertQuery(String table, List<String> columns){
+		return "insert into "+table+" ("+join(columns, 0, "")+") values ("+parameters(columns.size())+")";
+	}
+
+	/**
+	 * Returns a parameterized update statement. The parameters are the values of the columns
+	 * after the key column, followed by the key value (in the where clause).
+	 * @param table The table to write into
+	 * @param columns The columns of the row (key column first)
+	 * @return the update statement
+	 */
+	public String getUpdateQuery(String table, List<String> columns){
+		StringBuilder updates = new StringBuilder();
+		for(int i = 1; i < columns.size(); i++){
+			if(i > 1)
+				updates.append(", ");
+			updates.append(columns.get(i)).append("=?");
+		}
+		return "update "+table+" set "+updates+" where "+columns.get(0)+"=?";
+	}
+
+	/**
+	 * Returns a query selecting the key field of every row whose key is one of the parameters
+	 * @param table The table to check
+	 * @param keyField The key field of the table
+	 * @param keyCount The number of key parameters
+	 * @return the lookup query
+	 */
+	public String getLookupQuery(String table, String keyField, int keyCount){
+		if(keyCount == 1)
+			return "select "+keyField+" from "+table+" where "+keyField+"=?";
+		return "select "+keyField+" from "+table+" where "+keyField+" in ("+parameters(keyCount)+")";
+	}
+
+	/**
+	 * Loads the jdbc driver of this database (if one is named)
+	 * @throws ClassNotFoundException if the driver is not on the classpath
+	 */
+	public void loadDriver() throws ClassNotFoundException {
+		if(this.getDriverClass() != null)
+			Class.forName(this.getDriverClass());
+	}
+
+	/**
+	 * Returns the columns (starting at the provided index) joined with commas, each with an optional prefix
+	 */
+	protected static String join(List<String> columns, int from, String prefix){
+		StringBuilder builder = new StringBuilder();
+		for(int i = from; i < columns.size(); i++){
+			if(i > from)
+				builder.append(", ");
+			builder.append(prefix).append(columns.get(i));
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Returns one ? parameter per column, separated with commas
+	 */
+	protected static String parameters(int count){
+		StringBuilder builder = new StringBuilder();
+		for(int i = 0; i < count; i++){
+			if(i > 0)
+				builder.append(", ");
+			builder.append('?');
+		}
+		return builder.toString();
+	}
+}
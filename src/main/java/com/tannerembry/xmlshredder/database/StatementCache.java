@@ -0,0 +1,182 @@
+package com.tannerembry.xmlshredder.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * Holds the prepared statements used by the DatabaseWriter for the whole run.
+ * Each statement is generated and prepared once per table and ordered column list
+ * (or per table and key field for lookups), so the database can reuse its plan and
+ * no sql text is built for each row. Values are always bound as parameters, and the
+ * types of the columns of each statement are kept with it.
+ *
+ * @author      Tanner Embry, Claresco Corp <tembry@claresco.com>
+ * @version     1.0
+ * @since       1.0
+ */
+
+public class StatementCache {
+
+	private Connection connection;
+	private SqlDialect dialect;
+	private ColumnTypes columnTypes;
+
+	private HashMap<String, HashMap<List<String>, PreparedStatement>> inserts = new HashMap<>();
+	private HashMap<String, HashMap<List<String>, PreparedStatement>> updates = new HashMap<>();
+	private HashMap<String, HashMap<List<String>, PreparedStatement>> upserts = new HashMap<>();
+	private HashMap<String, HashMap<String, PreparedStatement>> lookups = new HashMap<>();
+	private HashMap<String, HashMap<String, PreparedStatement>> batchLookups = new HashMap<>();
+
+	private IdentityHashMap<PreparedStatement, int[]> types = new IdentityHashMap<>(); //statement -> types of its columns (key column first)
+
+	private List<PreparedStatement> statements = new ArrayList<>();
+
+	/**
+	 * Constructor for the StatementCache object
+	 * @param connection The connection the statements are prepared on
+	 * @param dialect The dialect that generates the sql
+	 * @param columnTypes The column types of the tables
+	 */
+	public StatementCache(Connection connection, SqlDialect dialect, ColumnTypes columnTypes){
+		this.connection = connection;
+		this.dialect = dialect;
+		this.columnTypes = columnTypes;
+	}
+
+	/**
+	 * Returns the insert statement for the table and columns
+	 * @param table The table to write into
+	 * @param columns The columns of the row (key column first)
+	 * @return the prepared insert statement
+	 * @throws SQLException if the statement could not be prepared
+	 */
+	public PreparedStatement getInsert(String table, List<String> columns) throws SQLException {
+		PreparedStatement statement = get(inserts, table, columns);
+		if(statement == null)
+			statement = put(inserts, table, columns, dialect.getInsertQuery(table, columns));
+		return statement;
+	}
+
+	/**
+	 * Returns the update statement for the table and columns (the key value is the last parameter)
+	 * @param table The table to write into
+	 * @param columns The columns of the row (key column first)
+	 * @return the prepared update statement
+	 * @throws SQLException if the statement could not be prepared
+	 */
+	public PreparedStatement getUpdate(String table, List<String> columns) throws SQLException {
+		PreparedStatement statement = get(updates, table, columns);
+		if(statement == null)
+			statement = put(updates, table, columns, dialect.getUpdateQuery(table, columns));
+		return statement;
+	}
+
+	/**
+	 * Returns the upsert statement for the table and columns
+	 * @param table The table to write into
+	 * @param columns The columns of the row (key column first)
+	 * @return the prepared upsert statement
+	 * @throws SQLException if the statement could not be prepared
+	 */
+	public PreparedStatement getUpsert(String table, List<String> columns) throws SQLException {
+		PreparedStatement statement = get(upserts, table, columns);
+		if(statement == null)
+			statement = put(upserts, table, columns, dialect.getUpsertQuery(table, columns));
+		return statement;
+	}
+
+	/**
+	 * Returns the query that checks whether a single key exists in the table
+	 * @param table The table to check
+	 * @param keyField The key field of the table
+	 * @return the prepared lookup query
+	 * @throws SQLException if the statement could not be prepared
+	 */
+	public PreparedStatement getLookup(String table, String keyField) throws SQLException {
+		return this.getLookup(lookups, table, keyField, 1);
+	}
+
+	/**
+	 * Returns the query that checks which of keyCount keys exist in the table
+	 * @param table The table to check
+	 * @param keyField The key field of the table
+	 * @param keyCount The number of key parameters (always the same for one writer)
+	 * @return the prepared lookup query
+	 * @throws SQLException if the statement could not be prepared
+	 */
+	public PreparedStatement getBatchLookup(String table, String keyField, int keyCount) throws SQLException {
+		return this.getLookup(batchLookups, table, keyField, keyCount);
+	}
+
+	/**
+	 * Returns the types of the columns of a statement (only the key field for lookups)
+	 * @param statement A statement returned by this cache
+	 * @return the java.sql.Types values of the columns (key column first, in the order of the columns of the row)
+	 */
+	public int[] getTypes(PreparedStatement statement){
+		return types.get(statement);
+	}
+
+	/**
+	 * Closes every statement in the cache
+	 */
+	public void close(){
+		for(PreparedStatement statement : statements){
+			try { statement.close(); } catch (SQLException e) { e.printStackTrace(); }
+		}
+		statements.clear();
+		types.clear();
+		inserts.clear();
+		updates.clear();
+		upserts.clear();
+		lookups.clear();
+		batchLookups.clear();
+	}
+
+	private PreparedStatement getLookup(HashMap<String, HashMap<String, PreparedStatement>> cache, String table, String keyField, int keyCount) throws SQLException {
+		HashMap<String, PreparedStatement> tableStatements = cache.get(table);
+		if(tableStatements == null){
+			tableStatements = new HashMap<>();
+			cache.put(table, tableStatements);
+		}
+		PreparedStatement statement = tableStatements.get(keyField);
+		if(statement == null){
+			statement = this.prepare(dialect.getLookupQuery(table, keyField, keyCount));
+			tableStatements.put(keyField, statement);
+			types.put(statement, new int[]{columnTypes.getTypes(table, Collections.singletonList(keyField))[0]});
+		}
+		return statement;
+	}
+
+	private static PreparedStatement get(HashMap<String, HashMap<List<String>, PreparedStatement>> cache, String table, List<String> columns){
+		HashMap<List<String>, PreparedStatement> tableStatements = cache.get(table);
+		if(tableStatements == null)
+			return null;
+		return tableStatements.get(columns);
+	}
+
+	private PreparedStatement put(HashMap<String, HashMap<List<String>, PreparedStatement>> cache, String table, List<String> columns, String query) throws SQLException {
+		HashMap<List<String>, PreparedStatement> tableStatements = cache.get(table);
+		if(tableStatements == null){
+			tableStatements = new HashMap<>();
+			cache.put(table, tableStatements);
+		}
+		PreparedStatement statement = this.prepare(query);
+		//copy the columns, the key must not change while it is in the map
+		tableStatements.put(new ArrayList<>(columns), statement);
+		types.put(statement, columnTypes.getTypes(table, columns));
+		return statement;
+	}
+
+	private PreparedStatement prepare(String query) throws SQLException {
+		PreparedStatement statement = connection.prepareStatement(query);
+		statements.add(statement);
+		return statement;
+	}
+}
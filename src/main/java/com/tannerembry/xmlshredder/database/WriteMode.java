@@ -0,0 +1,49 @@
+package com.tannerembry.xmlshredder.database;
+
+/**
+ * The ways the DatabaseWriter can decide between inserting and updating a row.
+ *
+ * @author      Tanner Embry, Claresco Corp <tembry@claresco.com>
+ * @version     1.0
+ * @since       1.0
+ */
+
+public enum WriteMode {
+
+	/** One select per row checks whether its key already exists */
+	CHECK("check"),
+	/** Rows are collected and the keys of many rows are checked with one select */
+	BATCH_CHECK("batchcheck"),
+	/** The keys of every parent table are read into memory once and no select is run per row */
+	PRELOAD("preload"),
+	/** Every row is written with one insert-or-update statement of the database's SqlDialect */
+	UPSERT("upsert");
+
+	private String configName;
+
+	WriteMode(String configName){
+		this.configName = configName;
+	}
+
+	/**
+	 * Returns the name used for this mode in the configuration file
+	 * @return configName
+	 */
+	public String getConfigName(){
+		return configName;
+	}
+
+	/**
+	 * Returns the mode with the provided name from the configuration file
+	 * @param configName The name of the mode (e.g. batchcheck)
+	 * @return the matching WriteMode
+	 * @throws IllegalArgumentException if no mode has the provided name
+	 */
+	public static WriteMode fromConfigName(String configName){
+		for(WriteMode mode : values()){
+			if(mode.configName.equalsIgnoreCase(configName))
+				return mode;
+		}
+		throw new IllegalArgumentException("Unknown write mode: "+configName);
+	}
+}
@@ -0,0 +1,47 @@
+package com.tannerembry.xmlshredder.exporter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Maps the columns of incoming rows onto the column headers of a tab. The mapping
+ * is computed once for each distinct column layout and reused for every row with it.
+ *
+ * @author      Tanner Embry, Claresco Corp <tembry@claresco.com>
+ * @version     1.0
+ * @since       1.0
+ */
+
+public class ColumnLayouts {
+
+	private List<String> columnHeaders;
+	private HashMap<List<String>, int[]> valueIndexes = new HashMap<>(); //column layout -> value index of each header
+
+	public ColumnLayouts(List<String> columnHeaders){
+		this.columnHeaders = columnHeaders;
+	}
+
+	public List<String> getColumnHeaders(){
+		return columnHeaders;
+	}
+
+	/**
+	 * Returns, for each column header, the index of its value in rows with the
+	 * provided column layout (-1 if the layout has no such column)
+	 * @param columns The column names of a row
+	 * @return the value index of each column header
+	 */
+	public int[] getValueIndexes(List<String> columns){
+		int[] indexes = valueIndexes.get(columns);
+		if(indexes == null){
+			indexes = new int[columnHeaders.size()];
+			for(int i = 0; i < indexes.length; i++){
+				indexes[i] = columns.indexOf(columnHeaders.get(i));
+			}
+			//copy the layout, the key must not change while it is in the map
+			valueIndexes.put(new ArrayList<>(columns), indexes);
+		}
+		return indexes;
+	}
+}
@@ -0,0 +1,125 @@
+package com.tannerembry.xmlshredder.exporter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+import com.tannerembry.xmlshredder.importer.ImportInstruction;
+
+/**
+ * This class exports data from the importer into delimited text files (csv or tsv)
+ * while the importer runs. One file is written per tab, named after the configured
+ * export path with the tab title appended (output_values.xlsx becomes
+ * output_values_Sheet1.csv, output_values_Sheet2.csv, ...).
+ *
+ * Rows are encoded straight into a direct buffer per file and written to a file
+ * channel whenever the buffer fills, so almost nothing is kept on the heap.
+ *
+ * @author      Tanner Embry, Claresco Corp <tembry@claresco.com>
+ * @version     1.0
+ * @since       1.0
+ */
+
+public class DelimitedExporter implements RowExporter {
+
+	private static final int BUFFER_SIZE = 1 << 20;
+
+	private HashMap<String, DelimitedTab> tabs = new HashMap<>();
+	private IdentityHashMap<ImportInstruction, DelimitedTab> instructionTabs = new IdentityHashMap<>();
+	private List<DelimitedTab> tabList = new ArrayList<>();
+
+	private String exportPath;
+	private char delimiter;
+	private String extension;
+	private boolean failed = false; //a file could not be created or written
+
+	/**
+	 * Constructor for the DelimitedExporter object
+	 * @param exportPath The configured export path the file names are derived from
+	 * @param delimiter The character separating the values (',' for csv or '\t' for tsv)
+	 */
+	public DelimitedExporter(String exportPath, char delimiter){
+		this.exportPath = exportPath;
+		this.delimiter = delimiter;
+		this.extension = delimiter == '\t' ? ".tsv" : ".csv";
+	}
+
+	@Override
+	public void insertValues(ImportInstruction instruction, List<String> columns, List<String> values){
+		if(instruction == null)
+			return;
+
+		DelimitedTab tab = this.getTab(instruction, columns);
+		if(tab == null)
+			return;
+
+		try {
+			tab.writeRow(values, tab.getValueIndexes(columns));
+		} catch (IOException e) {
+			e.printStackTrace();
+			failed = true;
+		}
+	}
+
+	@Override
+	public boolean export(){
+		for(DelimitedTab tab : tabList){
+			System.out.println("Exporting "+extension.substring(1)+" to path: "+tab.getPath());
+			try {
+				tab.close();
+			} catch (IOException e) {
+				e.printStackTrace();
+				failed = true;
+			}
+		}
+		return !failed;
+	}
+
+	/**
+	 * Closes every file and deletes it, so a failed import leaves no partly written export behind
+	 */
+	@Override
+	public void discard(){
+		for(DelimitedTab tab : tabList)
+			tab.discard();
+	}
+
+	/**
+	 * Returns the tab that rows of the instruction are written to, creating its file
+	 * (with the provided columns as headers) the first time
+	 */
+	private DelimitedTab getTab(ImportInstruction instruction, List<String> columns){
+		DelimitedTab tab = instructionTabs.get(instruction);
+		if(tab != null)
+			return tab;
+
+		String key = RowExporter.getTabKey(instruction);
+
+		tab = tabs.get(key);
+		if(tab == null){
+			String tabTitle = "Sheet" + (tabs.size() + 1);
+			try {
+				tab = new DelimitedTab(this.getTabPath(tabTitle), delimiter, BUFFER_SIZE, columns);
+			} catch (IOException e) {
+				e.printStackTrace();
+				failed = true;
+				return null;
+			}
+			tabs.put(key, tab);
+			tabList.add(tab);
+		}
+		instructionTabs.put(instruction, tab);
+		return tab;
+	}
+
+	private String getTabPath(String tabTitle){
+		String base = exportPath;
+		int separator = Math.max(base.lastIndexOf('/'), base.lastIndexOf('\\'));
+		int dot = base.lastIndexOf('.');
+		if(dot > separator)
+			base = base.substring(0, dot);
+		return base + "_" + tabTitle + extension;
+	}
+}
@@ -0,0 +1,184 @@
+package com.tannerembry.xmlshredder.exporter;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * This class represents one delimited text file (a tab) to be exported.
+ * Values are quoted when they contain the delimiter, a quote or a line break,
+ * and quotes inside quoted values are doubled (RFC 4180). Text is encoded as UTF-8.
+ *
+ * @author      Tanner Embry, Claresco Corp <tembry@claresco.com>
+ * @version     1.0
+ * @since       1.0
+ */
+
+public class DelimitedTab {
+
+	private String path;
+	private char delimiter;
+	private FileChannel channel;
+	private ByteBuffer buffer;
+	private ColumnLayouts columnLayouts;
+	private char highSurrogate = 0; //first half of a surrogate pair waiting to be encoded
+
+	private static final char REPLACEMENT = '\ufffd'; //written for a surrogate without its other half, so the file stays valid UTF-8
+
+	/**
+	 * Constructor for the DelimitedTab object. The file is created and the header row is written.
+	 * @param path The path of the file
+	 * @param delimiter The character separating the values
+	 * @param bufferSize The size of the direct buffer rows are encoded into
+	 * @param columnHeaders The column headers of the tab
+	 * @throws IOException if the file could not be created
+	 */
+	public DelimitedTab(String path, char delimiter, int bufferSize, List<String> columnHeaders) throws IOException {
+		this.path = path;
+		this.delimiter = delimiter;
+		this.columnLayouts = new ColumnLayouts(columnHeaders);
+		this.buffer = ByteBuffer.allocateDirect(bufferSize);
+		this.channel = FileChannel.open(Paths.get(path), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+
+		for(int i = 0; i < columnHeaders.size(); i++){
+			if(i > 0)
+				this.put(delimiter);
+			this.putValue(columnHeaders.get(i));
+		}
+		this.put('\n');
+	}
+
+	public String getPath(){
+		return path;
+	}
+
+	/**
+	 * Returns, for each column header of the tab, the index of its value in rows with the
+	 * provided column layout (-1 if the layout has no such column)
+	 * @param columns The column names of a row
+	 * @return the value index of each column header
+	 */
+	public int[] getValueIndexes(List<String> columns){
+		return columnLayouts.getValueIndexes(columns);
+	}
+
+	/**
+	 * Writes a row. Headers without a value are written as empty fields.
+	 * @param values The values of the row
+	 * @param valueIndexes The index of the value of each column header
+	 * @throws IOException if the file could not be written
+	 */
+	public void writeRow(List<String> values, int[] valueIndexes) throws IOException {
+		for(int i = 0; i < valueIndexes.length; i++){
+			if(i > 0)
+				this.put(delimiter);
+			if(valueIndexes[i] != -1)
+				this.putValue(values.get(valueIndexes[i]));
+		}
+		this.put('\n');
+	}
+
+	/**
+	 * Writes out the rest of the buffer and closes the file
+	 * @throws IOException if the file could not be written
+	 */
+	public void close() throws IOException {
+		if(highSurrogate != 0){
+			highSurrogate = 0;
+			this.put(REPLACEMENT);
+		}
+		this.drain();
+		channel.close();
+	}
+
+	/**
+	 * Closes the file without writing out the rest of the buffer and deletes it
+	 */
+	public void discard(){
+		try {
+			channel.close();
+			Files.deleteIfExists(Paths.get(path));
+		} catch (IOException e){
+			e.printStackTrace();
+		}
+	}
+
+	private void putValue(String value) throws IOException {
+		if(value == null || value.isEmpty())
+			return;
+
+		boolean quote = false;
+		for(int i = 0; i < value.length() && !quote; i++){
+			char c = value.charAt(i);
+			quote = c == delimiter || c == '"' || c == '\n' || c == '\r';
+		}
+
+		if(!quote){
+			for(int i = 0; i < value.length(); i++)
+				this.put(value.charAt(i));
+			return;
+		}
+
+		this.put('"');
+		for(int i = 0; i < value.length(); i++){
+			char c = value.charAt(i);
+			if(c == '"')
+				this.put('"');
+			this.put(c);
+		}
+		this.put('"');
+	}
+
+	/**
+	 * Encodes one character as UTF-8 into the buffer. Surrogate pairs are combined
+	 * when the low surrogate arrives (the high one is held until then). A surrogate
+	 * without its other half is written as U+FFFD.
+	 */
+	private void put(char c) throws IOException {
+		if(highSurrogate != 0 && !Character.isLowSurrogate(c)){
+			highSurrogate = 0;
+			this.put(REPLACEMENT);
+		}
+		if(buffer.remaining() < 4)
+			this.drain();
+
+		if(c < 0x80){
+			buffer.put((byte) c);
+		}
+		else if(c < 0x800){
+			buffer.put((byte) (0xc0 | (c >> 6)));
+			buffer.put((byte) (0x80 | (c & 0x3f)));
+		}
+		else if(Character.isHighSurrogate(c)){
+			highSurrogate = c;
+		}
+		else if(Character.isLowSurrogate(c) && highSurrogate != 0){
+			int codePoint = Character.toCodePoint(highSurrogate, c);
+			highSurrogate = 0;
+			buffer.put((byte) (0xf0 | (codePoint >> 18)));
+			buffer.put((byte) (0x80 | ((codePoint >> 12) & 0x3f)));
+			buffer.put((byte) (0x80 | ((codePoint >> 6) & 0x3f)));
+			buffer.put((byte) (0x80 | (codePoint & 0x3f)));
+		}
+		else{
+			if(Character.isLowSurrogate(c))
+				c = REPLACEMENT;
+			buffer.put((byte) (0xe0 | (c >> 12)));
+			buffer.put((byte) (0x80 | ((c >> 6) & 0x3f)));
+			buffer.put((byte) (0x80 | (c & 0x3f)));
+		}
+	}
+
+	private void drain() throws IOException {
+		//called through Buffer, since ByteBuffer only overrides flip and clear from Java 9 on
+		((Buffer) buffer).flip();
+		while(buffer.hasRemaining())
+			channel.write(buffer);
+		((Buffer) buffer).clear();
+	}
+}
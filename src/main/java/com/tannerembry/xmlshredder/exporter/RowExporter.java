@@ -0,0 +1,50 @@
+package com.tannerembry.xmlshredder.exporter;
+
+import java.util.List;
+
+import com.tannerembry.xmlshredder.importer.ImportInstruction;
+
+/**
+ * An exporter that receives the shredded rows while the importer runs and writes
+ * them out with one tab (or file) per parent instruction.
+ *
+ * @author      Tanner Embry, Claresco Corp <tembry@claresco.com>
+ * @version     1.0
+ * @since       1.0
+ */
+
+public interface RowExporter {
+
+	/**
+	 * Adds a row to the tab of the instruction
+	 * @param instruction The instruction that completed the row
+	 * @param columns The column names of the row
+	 * @param values The values of the row (in the same order as the columns)
+	 */
+	public void insertValues(ImportInstruction instruction, List<String> columns, List<String> values);
+
+	/**
+	 * Writes out everything that was inserted. Called once after the importer finishes.
+	 * @return true - every row was written out
+	 * 		 false - the export could not be written completely
+	 */
+	public boolean export();
+
+	/**
+	 * Releases the temporary files, file handles and buffers of the exporter without writing
+	 * anything out. Called instead of export() when the importer fails.
+	 */
+	public void discard();
+
+	/**
+	 * Returns the key of the tab that rows of the instruction belong to (rows of child
+	 * instructions share the tab of their parent)
+	 * @param instruction The instruction that completed the row
+	 * @return the tab key
+	 */
+	public static String getTabKey(ImportInstruction instruction){
+		if(instruction.getParent() == null)
+			return instruction.toString();
+		return instruction.getParent().toString();
+	}
+}
@@ -4,11 +4,13 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 
-import org.apache.poi.xssf.usermodel.XSSFCell;
-import org.apache.poi.xssf.usermodel.XSSFRow;
-import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
 import com.tannerembry.xmlshredder.importer.ImportInstruction;
@@ -16,65 +18,88 @@ import com.tannerembry.xmlshredder.importer.ImportInstruction;
 /**
  * This class is stores data from the importer as it runs and then
  * exports it to a spreadsheet once the importer finishes.
+ *
+ * When a window size is provided the workbook is streamed: only the last
+ * windowSize rows of each tab are kept in memory and older rows are written
+ * to temporary files, so memory stays flat no matter how many rows are written.
  * 
  * @author      Tanner Embry, Claresco Corp <tembry@claresco.com>
  * @version     1.0         
  * @since       1.0         
  */
 
-public class SpreadsheetExporter {
+public class SpreadsheetExporter implements RowExporter {
 
 	private HashMap<String, SpreadsheetTab> tabs = new HashMap<>();
-	private XSSFWorkbook wb;
+	private IdentityHashMap<ImportInstruction, SpreadsheetTab> instructionTabs = new IdentityHashMap<>();
+	private Workbook wb;
 	private String exportPath;
 
 	public SpreadsheetExporter(String exportPath){
+		this(exportPath, 0);
+	}
+
+	/**
+	 * Constructor for the SpreadsheetExporter object
+	 * @param exportPath The path the spreadsheet is written to
+	 * @param windowSize The number of rows per tab kept in memory (0 keeps the whole workbook in memory)
+	 */
+	public SpreadsheetExporter(String exportPath, int windowSize){
 		this.exportPath = exportPath;
 
-		this.wb = new XSSFWorkbook();
+		if(windowSize > 0){
+			SXSSFWorkbook streamingWb = new SXSSFWorkbook(windowSize);
+			streamingWb.setCompressTempFiles(true);
+			this.wb = streamingWb;
+		}
+		else{
+			this.wb = new XSSFWorkbook();
+		}
 	}
 
+	@Override
 	public void insertValues(ImportInstruction instruction, List<String> columns, List<String> values){
 		if(instruction == null)
 			return;
 
-		String key;
-		if(instruction.getParent() == null)
-			key = instruction.toString();
-		else
-			key = instruction.getParent().toString();
-
-		if(tabs.containsKey(key)){
-			SpreadsheetTab tab = tabs.get(key);
-			XSSFSheet sheet = tab.getSheet();
-
-			XSSFRow row = sheet.createRow(sheet.getLastRowNum()+1);
-
-			for(int i = 0; i < tab.getColumnHeaders().size(); i++){
-				String headerColumn = tab.getColumnHeaders().get(i);
-
-				int index = columns.indexOf(headerColumn);
-				if(index != -1){
-					XSSFCell cell = row.createCell(i);
-					cell.setCellValue(values.get(index));
-				}
-				else{
-					XSSFCell cell = row.createCell(i);
-					cell.setCellValue("");
-				}
-			}
+		SpreadsheetTab tab = this.getTab(instruction, columns);
+		int[] valueIndexes = tab.getValueIndexes(columns);
+
+		Row row = tab.createRow();
+		for(int i = 0; i < valueIndexes.length; i++){
+			Cell cell = row.createCell(i);
+			if(valueIndexes[i] != -1)
+				cell.setCellValue(values.get(valueIndexes[i]));
+			else
+				cell.setCellValue("");
 		}
-		else{
+	}
+
+	/**
+	 * Returns the tab that rows of the instruction are written to, creating it (with the
+	 * provided columns as headers) the first time. The tab is cached per instruction so
+	 * the tab key only has to be built once.
+	 */
+	private SpreadsheetTab getTab(ImportInstruction instruction, List<String> columns){
+		SpreadsheetTab tab = instructionTabs.get(instruction);
+		if(tab != null)
+			return tab;
+
+		String key = RowExporter.getTabKey(instruction);
+
+		tab = tabs.get(key);
+		if(tab == null){
 			//create a new tab and put in tabColumns map
 			String tabTitle = "Sheet" + (tabs.size() + 1);
-			tabs.put(key, new SpreadsheetTab(tabTitle, wb, columns));
-
-			//call insertValues with same arguments again
-			insertValues(instruction, columns, values);
+			tab = new SpreadsheetTab(tabTitle, wb, columns);
+			tabs.put(key, tab);
 		}
+		instructionTabs.put(instruction, tab);
+		return tab;
 	}
 
-	public void export(){
+	@Override
+	public boolean export(){
 		System.out.println("Exporting spreadsheet to path: "+exportPath);
 		FileOutputStream fileOut;
 		try {
@@ -84,11 +109,24 @@ public class SpreadsheetExporter {
 			wb.write(fileOut);
 			fileOut.flush();
 			fileOut.close();
+			return true;
 
 		} catch (FileNotFoundException e) {
 			e.printStackTrace();
+			return false;
 		} catch (IOException e) {
 			e.printStackTrace();
+			return false;
+		} finally {
+			//remove the temporary files of a streamed workbook
+			if(wb instanceof SXSSFWorkbook)
+				((SXSSFWorkbook) wb).dispose();
 		}
 	}
+
+	@Override
+	public void discard(){
+		if(wb instanceof SXSSFWorkbook)
+			((SXSSFWorkbook) wb).dispose();
+	}
 }
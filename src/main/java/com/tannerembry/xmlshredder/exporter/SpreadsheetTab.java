@@ -2,13 +2,16 @@ package com.tannerembry.xmlshredder.exporter;
 
 import java.util.List;
 
-import org.apache.poi.xssf.usermodel.XSSFCell;
-import org.apache.poi.xssf.usermodel.XSSFRow;
-import org.apache.poi.xssf.usermodel.XSSFSheet;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.ss.SpreadsheetVersion;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
 
 /**
  * This class represents a spreadsheet tab to be exported.
+ * A sheet holds at most 1,048,576 rows, so once it is full the tab continues on a
+ * new sheet with the same headers (Sheet1, Sheet1 (2), Sheet1 (3), ...).
  * 
  * @author      Tanner Embry, Claresco Corp <tembry@claresco.com>
  * @version     1.0         
@@ -17,44 +20,76 @@ import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
 public class SpreadsheetTab {
 
-	private XSSFSheet sheet;
+	private static final int MAX_ROWS = SpreadsheetVersion.EXCEL2007.getMaxRows();
+
+	private String title;
+	private Workbook wb;
+	private int sheets = 0;
+	private Sheet sheet;
 	private List<String> columnHeaders;
+	private ColumnLayouts columnLayouts;
+	private int nextRow;
 
-	public SpreadsheetTab(String title, XSSFWorkbook wb, List<String> columnHeaders){
+	public SpreadsheetTab(String title, Workbook wb, List<String> columnHeaders){
 		this.columnHeaders = columnHeaders;
-		init(title, wb);
+		this.columnLayouts = new ColumnLayouts(columnHeaders);
+		this.title = title;
+		this.wb = wb;
+		init(title);
 	}
 
-	public XSSFSheet getSheet(){
+	public Sheet getSheet(){
 		return sheet;
 	}
 
+	/**
+	 * Creates the next row of the tab. Rows are only ever appended, which lets
+	 * a streaming workbook write older rows out to disk. When the sheet is full the
+	 * row is created on a new continuation sheet.
+	 * @return the new row
+	 */
+	public Row createRow(){
+		if(nextRow >= MAX_ROWS)
+			init(title+" ("+(sheets + 1)+")");
+		return sheet.createRow(nextRow++);
+	}
+
 	public List<String> getColumnHeaders(){
 		return columnHeaders;
 	}
 
-	private void init(String title, XSSFWorkbook wb){
-		XSSFSheet sheet = wb.createSheet(title);
+	/**
+	 * Returns, for each column header of the tab, the index of its value in rows with the
+	 * provided column layout (-1 if the layout has no such column)
+	 * @param columns The column names of a row
+	 * @return the value index of each column header
+	 */
+	public int[] getValueIndexes(List<String> columns){
+		return columnLayouts.getValueIndexes(columns);
+	}
+
+	private void init(String sheetTitle){
+		this.sheet = wb.createSheet(sheetTitle);
+		this.nextRow = 0;
+		this.sheets++;
 
 		//iterate through columns to create the value labels on the top of the sheet
-		XSSFRow row = sheet.createRow(sheet.getLastRowNum());
+		Row row = this.createRow();
 		for (int c=0;c < columnHeaders.size(); c++ )
 		{
-			XSSFCell cell = row.createCell(c);
+			Cell cell = row.createCell(c);
 			cell.setCellValue(columnHeaders.get(c));
 		}
 
 		//create a blank row under the header row
-		XSSFRow blankRow = sheet.createRow(sheet.getLastRowNum()+1);
+		Row blankRow = this.createRow();
 		for (int c=0;c < columnHeaders.size(); c++ )
 		{
-			XSSFCell cell = blankRow.createCell(c);
+			Cell cell = blankRow.createCell(c);
 			cell.setCellValue("");
 		}
 
 		//freeze the first two rows (the header)
 		sheet.createFreezePane(0, 2);
-
-		this.sheet = sheet;
 	}
 }
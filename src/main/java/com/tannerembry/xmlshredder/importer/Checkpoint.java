@@ -0,0 +1,119 @@
+package com.tannerembry.xmlshredder.importer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * Remembers how far a long import got, in a small file next to the xml file
+ * (books.xml.checkpoint). The file holds the number of rows, counted from the start of
+ * the xml file, that are committed to the database, together with the size and the
+ * modification time of the xml file so a checkpoint of a different file is never used.
+ *
+ * Rows are numbered in the order the SAXImportHandler finishes their parent entries,
+ * which is the same on every run over the same file and configuration. A resumed
+ * import parses the file again but skips that many rows before writing anything.
+ * Rows committed after the last save are written a second time, which is harmless
+ * because every write inserts or updates by key.
+ *
+ * The file is replaced atomically, so a crash while saving leaves the previous checkpoint.
+ *
+ * @author      Tanner Embry, Claresco Corp <tembry@claresco.com>
+ * @version     1.0
+ * @since       1.0
+ */
+
+public class Checkpoint {
+
+	public static final String EXTENSION = ".checkpoint";
+
+	private File xmlFile;
+	private Path path;
+
+	/**
+	 * Constructor for the Checkpoint object (nothing is read or written yet)
+	 * @param xmlFile The path to the xml file being imported
+	 */
+	public Checkpoint(String xmlFile){
+		this.xmlFile = new File(xmlFile);
+		this.path = new File(xmlFile + EXTENSION).toPath();
+	}
+
+	/**
+	 * Returns the number of committed rows saved by an earlier run over the same file
+	 * @return the committed rows (0 if there is no checkpoint or the xml file changed since it was saved)
+	 */
+	public long load(){
+		if(!Files.exists(path))
+			return 0;
+
+		Properties properties = new Properties();
+		try(InputStream in = Files.newInputStream(path)){
+			properties.load(in);
+
+			if(Long.parseLong(properties.getProperty("length", "-1")) != xmlFile.length()
+					|| Long.parseLong(properties.getProperty("modified", "-1")) != xmlFile.lastModified()){
+				System.out.println("Ignoring "+path+" because "+xmlFile+" changed since it was saved.");
+				return 0;
+			}
+			return Math.max(0, Long.parseLong(properties.getProperty("rows", "0")));
+		} catch (IOException | NumberFormatException e){
+			e.printStackTrace();
+			return 0;
+		}
+	}
+
+	/**
+	 * Saves the number of committed rows, replacing the previous checkpoint
+	 * @param committedRows The number of rows from the start of the file that are committed
+	 * @return true - the checkpoint was saved
+	 * 		 false - the checkpoint could not be written
+	 */
+	public boolean save(long committedRows){
+		Properties properties = new Properties();
+		properties.setProperty("rows", Long.toString(committedRows));
+		properties.setProperty("length", Long.toString(xmlFile.length()));
+		properties.setProperty("modified", Long.toString(xmlFile.lastModified()));
+
+		Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+		try {
+			try(OutputStream out = Files.newOutputStream(temp)){
+				properties.store(out, "xmlshredder checkpoint of "+xmlFile.getName());
+			}
+			try {
+				Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e){
+				Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+			}
+			return true;
+		} catch (IOException e){
+			e.printStackTrace();
+			return false;
+		}
+	}
+
+	/**
+	 * Removes the checkpoint once the whole file has been imported
+	 */
+	public void delete(){
+		try {
+			Files.deleteIfExists(path);
+		} catch (IOException e){
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Returns the path of the checkpoint file
+	 * @return path
+	 */
+	public String getPath(){
+		return path.toString();
+	}
+}
@@ -0,0 +1,125 @@
+package com.tannerembry.xmlshredder.importer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+/**
+ * Parses one large xml file on several threads. The RecordSplitter cuts the file
+ * into chunks of whole records while the chunks found so far are parsed on a
+ * fork/join pool, each with its own SAXImportHandler that holds its rows in a
+ * RowBuffer. The buffers are written to the sink strictly in chunk order, so the
+ * rows reach the database and spreadsheet in the same order as when the file is
+ * parsed on one thread.
+ *
+ * At most two chunks per thread are in flight, which bounds the rows held in memory.
+ *
+ * @author      Tanner Embry, Claresco Corp <tembry@claresco.com>
+ * @version     1.0
+ * @since       1.0
+ */
+
+public class ChunkedParser {
+
+	private String xmlFile;
+	private ImportInstructionManager importInstructionManager;
+	private String recordElement;
+	private long chunkSize;
+	private int threads;
+	private int maxValueLength;
+	private ParserEngine engine;
+
+	/**
+	 * Constructor for the ChunkedParser object
+	 * @param xmlFile The path to the xml file
+	 * @param importInstructionManager The compiled instructions
+	 * @param recordElement The name of the record elements the file is split at
+	 * @param importerSettings The settings containing the chunk size, number of threads and maximum value length
+	 * @param engine The engine every chunk is parsed with
+	 */
+	public ChunkedParser(String xmlFile, ImportInstructionManager importInstructionManager, String recordElement, ImporterSettings importerSettings, ParserEngine engine){
+		this.xmlFile = xmlFile;
+		this.importInstructionManager = importInstructionManager;
+		this.recordElement = recordElement;
+		this.chunkSize = importerSettings.getChunkSize();
+		this.threads = Math.max(1, importerSettings.getThreads());
+		this.maxValueLength = importerSettings.getMaxValueLength();
+		this.engine = engine;
+	}
+
+	/**
+	 * Parses the whole file and passes every row to the sink in file order
+	 * @param sink The sink the rows are written to (only called from this thread)
+	 * @return the number of chunks the file was split into
+	 * @throws IOException if the file could not be read
+	 * @throws SAXException if a chunk could not be parsed
+	 * @throws InterruptedException if the thread was interrupted while waiting for a chunk
+	 */
+	public int parse(RowSink sink) throws IOException, SAXException, InterruptedException {
+		String systemId = new File(xmlFile).toURI().toString();
+		RecordSplitter splitter = new RecordSplitter(xmlFile, recordElement, chunkSize);
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		ArrayDeque<Future<RowBuffer>> inFlight = new ArrayDeque<>();
+		int chunks = 0;
+
+		try(FileChannel channel = FileChannel.open(Paths.get(xmlFile), StandardOpenOption.READ)){
+			RecordChunk chunk;
+			while((chunk = splitter.next()) != null){
+				final RecordChunk next = chunk;
+				inFlight.add(pool.submit(() -> this.parseChunk(next, channel, systemId)));
+				chunks++;
+
+				if(inFlight.size() >= threads * 2)
+					this.waitFor(inFlight.poll()).writeTo(sink);
+			}
+			while(!inFlight.isEmpty())
+				this.waitFor(inFlight.poll()).writeTo(sink);
+		} finally {
+			pool.shutdownNow();
+			splitter.close();
+		}
+		return chunks;
+	}
+
+	/**
+	 * Parses one chunk into its own buffer of rows
+	 */
+	private RowBuffer parseChunk(RecordChunk chunk, FileChannel channel, String systemId) throws IOException, SAXException {
+		RowBuffer buffer = new RowBuffer();
+		SAXImportHandler handler = new SAXImportHandler(importInstructionManager, buffer, maxValueLength);
+
+		try(InputStream in = chunk.open(channel)){
+			InputSource source = new InputSource(in);
+			source.setSystemId(systemId);
+			engine.parse(source, handler);
+		}
+		handler.processFinalEntries();
+		return buffer;
+	}
+
+	/**
+	 * Waits for a chunk to be parsed and passes on the exception that stopped it
+	 */
+	private RowBuffer waitFor(Future<RowBuffer> result) throws IOException, SAXException, InterruptedException {
+		try {
+			return result.get();
+		} catch (ExecutionException e){
+			Throwable cause = e.getCause();
+			if(cause instanceof IOException)
+				throw (IOException) cause;
+			if(cause instanceof SAXException)
+				throw (SAXException) cause;
+			throw new SAXException(new Exception(cause));
+		}
+	}
+}
@@ -0,0 +1,29 @@
+package com.tannerembry.xmlshredder.importer;
+
+/**
+ * A RowSink that writes rows into the database and knows how many of the rows
+ * it accepted have been committed. Rows are always committed in the order they
+ * were accepted, so the count says which rows of the file are safely stored.
+ *
+ * @author      Tanner Embry, Claresco Corp <tembry@claresco.com>
+ * @version     1.0
+ * @since       1.0
+ */
+
+public interface DatabaseSink extends RowSink {
+
+	/**
+	 * Returns the number of rows, counted from the first row accepted, that are all committed
+	 * or counted by getFailedRows(). A row of a transaction that is not committed yet, or that
+	 * was rolled back and not written again yet, is never included.
+	 * @return the number of committed rows
+	 */
+	public long getCommittedRows();
+
+	/**
+	 * Returns the number of rows that could not be written. A failed write can roll back
+	 * other rows of the same transaction, so they can not be trusted to be stored either.
+	 * @return the number of failed rows
+	 */
+	public long getFailedRows();
+}
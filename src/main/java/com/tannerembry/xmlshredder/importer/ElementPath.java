@@ -0,0 +1,100 @@
+package com.tannerembry.xmlshredder.importer;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Tracks the path of the element currently being read from the xml file.
+ * Element names are interned to ids the first time they are seen and the path
+ * is kept as a stack of those ids, so moving in and out of elements does not
+ * allocate. The dotted path string is only built when it is asked for.
+ *
+ * @author      Tanner Embry, Claresco Corp <tembry@claresco.com>
+ * @version     1.0
+ * @since       1.0
+ */
+
+public class ElementPath {
+
+	private HashMap<String, Integer> ids = new HashMap<>();
+	private String[] names = new String[64];
+
+	private int[] path = new int[64];
+	private int depth = 0;
+
+	/**
+	 * Moves into a child element of the current element
+	 * @param element The name of the child element
+	 */
+	public void push(String element){
+		if(depth == path.length)
+			path = Arrays.copyOf(path, depth * 2);
+		path[depth++] = this.intern(element);
+	}
+
+	/**
+	 * Moves out of the current element back to its parent
+	 */
+	public void pop(){
+		if(depth > 0)
+			depth--;
+	}
+
+	/**
+	 * Returns the number of elements currently open (0 before the root element)
+	 * @return depth
+	 */
+	public int getDepth(){
+		return depth;
+	}
+
+	/**
+	 * Returns the name of the element at the provided depth
+	 * @param level The depth of the element (1 is the root element)
+	 * @return the element name
+	 */
+	public String getElement(int level){
+		return names[path[level - 1]];
+	}
+
+	/**
+	 * Returns the name of the current element
+	 * @return the element name, or null before the root element
+	 */
+	public String getCurrentElement(){
+		if(depth == 0)
+			return null;
+		return names[path[depth - 1]];
+	}
+
+	/**
+	 * Returns the interned id of an element name, assigning a new one if it has not been seen
+	 * @param element The element name
+	 * @return id of the element name
+	 */
+	private int intern(String element){
+		Integer id = ids.get(element);
+		if(id == null){
+			id = ids.size();
+			ids.put(element, id);
+			if(id == names.length)
+				names = Arrays.copyOf(names, id * 2);
+			names[id] = element;
+		}
+		return id;
+	}
+
+	/**
+	 * Returns the full dotted path of the current element (e.g. catalog.book.author)
+	 */
+	@Override
+	public String toString(){
+		StringBuilder builder = new StringBuilder();
+		for(int i = 0; i < depth; i++){
+			if(i > 0)
+				builder.append('.');
+			builder.append(names[path[i]]);
+		}
+		return builder.toString();
+	}
+}
@@ -20,6 +20,9 @@ public class ImportInstruction implements Comparable<ImportInstruction> {
 	private ImportInstruction parent; //this is the xPath of the parent (if it exists)
 	private String hashKey;
 
+	private int slot = -1; //slot of a child in the ImportRecord of its parent
+	private int slots = 0; //number of slots in the ImportRecord of a parent
+
 	/**
 	 * Constructor for the ImporterInstruction object
 	 * @param xPath The path to the wanted information in the data file (full or partial)
@@ -99,19 +102,36 @@ public class ImportInstruction implements Comparable<ImportInstruction> {
 	}
 
 	/**
-	 * Returns the hash key of the ImportInstruction (used in external mapping)
-	 * @return hashKey
+	 * Returns the slot this child fills in the ImportRecord of its parent.
+	 * Children of the same parent that write the same field share a slot.
+	 * @return slot (-1 until ImportInstructionManager assigns the slots)
 	 */
-	public String getHashKey(){
-		return hashKey;
+	public int getSlot(){
+		return slot;
 	}
 
 	/**
-	 * Returns the query used to verify the field and table both exist in the database
-	 * @return the verification query
+	 * Returns the number of slots in the ImportRecord of this parent (one per distinct field of its children)
+	 * @return slots
 	 */
-	public String getVerificationQuery(){
-		return "select "+this.dbField+" from "+this.dbTable;
+	public int getSlots(){
+		return slots;
+	}
+
+	void setSlot(int slot){
+		this.slot = slot;
+	}
+
+	void setSlots(int slots){
+		this.slots = slots;
+	}
+
+	/**
+	 * Returns the hash key of the ImportInstruction (used in external mapping)
+	 * @return hashKey
+	 */
+	public String getHashKey(){
+		return hashKey;
 	}
 
 	/**
@@ -1,12 +1,14 @@
 package com.tannerembry.xmlshredder.importer;
 
 import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+import com.tannerembry.xmlshredder.database.ColumnTypes;
 
 /**
  * This class manages all of the ImportInstructions that were
@@ -20,6 +22,7 @@ import java.util.HashMap;
 public class ImportInstructionManager {
 
 	private HashMap<String, ArrayList<ImportInstruction>> instructionMap;
+	private InstructionMatcher matcher;
 
 	/**
 	 * Constructor for the ImporterInstructionManager object
@@ -27,6 +30,16 @@ public class ImportInstructionManager {
 	 */
 	public ImportInstructionManager(HashMap<String, ArrayList<ImportInstruction>> instructionMap){
 		this.instructionMap = instructionMap;
+		this.matcher = new InstructionMatcher(instructionMap);
+		this.assignSlots();
+	}
+
+	/**
+	 * Returns the compiled matcher used to look up instructions while walking the xml file
+	 * @return matcher
+	 */
+	public InstructionMatcher getMatcher(){
+		return matcher;
 	}
 
 	/**
@@ -34,21 +47,89 @@ public class ImportInstructionManager {
 	 * @return list of ImportInstruction objects that are a potential match
 	 */
 	public ArrayList<ImportInstruction> getInstructions(String element, String fullXPath){
-		ArrayList<ImportInstruction> instructionList = instructionMap.get(element);
-		if(instructionList == null)
+		if(!instructionMap.containsKey(element))
 			return new ArrayList<ImportInstruction>();
 
+		int state = matcher.getRootState();
+		for(String pathElement : fullXPath.split("\\.")){
+			state = matcher.nextState(state, pathElement);
+		}
+
 		ArrayList<ImportInstruction> potentialInstructions = new ArrayList<ImportInstruction>();
-		for(ImportInstruction instruction : instructionList){
-			if(fullXPath.contains(instruction.getXPath())){
-				potentialInstructions.add(instruction);
-			}
+		Collections.addAll(potentialInstructions, matcher.getInstructions(state));
+		return potentialInstructions;
+	}
+
+	/**
+	 * Returns the name of the element that holds one whole record, which is where a large
+	 * xml file can be split. This is the element of the parent mappings if they read an
+	 * attribute (e.g. book with xattribute id), or the element around it otherwise.
+	 * @return the record element name, or null if the parent mappings do not share one
+	 */
+	public String getRecordElement(){
+		String recordElement = null;
+		for(ImportInstruction instruction : this.getAllInstructions()){
+			if(instruction.getParent() != null)
+				continue;
+
+			String[] segments = instruction.getXPath().split("\\.");
+			String element;
+			if(instruction.getXAttribute() != null && !instruction.getXAttribute().isEmpty())
+				element = segments[segments.length - 1];
+			else if(segments.length > 1)
+				element = segments[segments.length - 2];
+			else
+				return null;
+
+			if(recordElement != null && !recordElement.equals(element))
+				return null;
+			recordElement = element;
 		}
+		return recordElement;
+	}
 
-		//sort potential instructions with parents first
-		Collections.sort(potentialInstructions);
+	/**
+	 * Returns whether or not a large xml file can be split at its record elements and give the same
+	 * rows as when it is parsed on one thread. That is only certain when every parent mapping reads an
+	 * attribute of the record element, so the key of a record is read before any of its other values.
+	 * A key read from the text of an element can come after values of the record, which a single thread
+	 * adds to the previous record, and the first record of a chunk has no previous record.
+	 * @return true if the file can be split (see getRecordElement)
+	 */
+	public boolean canSplitRecords(){
+		if(this.getRecordElement() == null)
+			return false;
+		for(ImportInstruction instruction : this.getAllInstructions()){
+			if(instruction.getParent() == null && (instruction.getXAttribute() == null || instruction.getXAttribute().isEmpty()))
+				return false;
+		}
+		return true;
+	}
 
-		return potentialInstructions;
+	/**
+	 * Gives every child the slot of its field in the ImportRecord of its parent
+	 * (children of a parent that write the same field share a slot)
+	 */
+	private void assignSlots(){
+		IdentityHashMap<ImportInstruction, HashMap<String, Integer>> parentFields = new IdentityHashMap<>();
+		for(ImportInstruction instruction : this.getAllInstructions()){
+			ImportInstruction parent = instruction.getParent();
+			if(parent == null)
+				continue;
+
+			HashMap<String, Integer> fields = parentFields.get(parent);
+			if(fields == null){
+				fields = new HashMap<>();
+				parentFields.put(parent, fields);
+			}
+			Integer slot = fields.get(instruction.getField());
+			if(slot == null){
+				slot = fields.size();
+				fields.put(instruction.getField(), slot);
+			}
+			instruction.setSlot(slot);
+			parent.setSlots(fields.size());
+		}
 	}
 
 	/**
@@ -69,22 +150,39 @@ public class ImportInstructionManager {
 	}
 
 	/**
-	 * Verifies that all of the instructions collected have existing tables and fields in the provided database
+	 * Verifies that all of the instructions collected have existing tables and fields in the provided database.
+	 * The columns of each table are read once without reading any of its rows (see ColumnTypes).
+	 * @param connection The connection to the database
 	 * @throws SQLException if a table or field does not exist in the database
 	 */
 	public void verifyInstructions(Connection connection) throws SQLException {
-		ArrayList<ImportInstruction> instructions = this.getAllInstructions();
-
-		PreparedStatement stat;
-		ResultSet rs;
-
-		for(ImportInstruction instruction : instructions){
-			stat = connection.prepareStatement(instruction.getVerificationQuery());
-			rs = stat.executeQuery();
+		this.verifyInstructions(connection, new ColumnTypes());
+	}
 
-			rs.close();
-			stat.close();
+	/**
+	 * Verifies that all of the instructions collected have existing tables and fields in the provided database.
+	 * The columns of each table are read once without reading any of its rows, and are kept in the
+	 * provided ColumnTypes for the writers.
+	 * @param connection The connection to the database
+	 * @param columnTypes The column types the tables are read into
+	 * @throws SQLException if a table or field does not exist in the database
+	 */
+	public void verifyInstructions(Connection connection, ColumnTypes columnTypes) throws SQLException {
+		List<String> missingFields = new ArrayList<>();
+
+		for(ImportInstruction instruction : this.getAllInstructions()){
+			String table = instruction.getTable();
+			try {
+				columnTypes.load(connection, table);
+			} catch (SQLException e){
+				throw new SQLException("The table "+table+" does not exist or can not be read: "+e.getMessage(), e);
+			}
+			if(columnTypes.getType(table, instruction.getField()) == null && !missingFields.contains(table+"."+instruction.getField()))
+				missingFields.add(table+"."+instruction.getField());
 		}
+
+		if(!missingFields.isEmpty())
+			throw new SQLException("The fields "+missingFields+" do not exist in the database.");
 	}
 
 }
@@ -0,0 +1,157 @@
+package com.tannerembry.xmlshredder.importer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.tannerembry.xmlshredder.metrics.ImportMetrics;
+
+/**
+ * The values collected for the record of one parent instruction: the key value read
+ * by the parent and one slot for every field of its children. The layout comes from
+ * the parent instruction (see ImportInstruction.getSlots), a bitset tells which slots
+ * are filled, and the order the slots were filled in is kept so the columns of the
+ * row come out in the order the values appeared in the xml file.
+ *
+ * One ImportRecord is kept per parent instruction and reused for every record, so
+ * collecting a value does not create any objects and checking whether a field was
+ * already read is a single bit test.
+ *
+ * @author      Tanner Embry, Claresco Corp <tembry@claresco.com>
+ * @version     1.0
+ * @since       1.0
+ */
+
+public class ImportRecord {
+
+	private String dbTable;
+	private String keyField;
+	private String keyValue;
+
+	private String[] fields;
+	private String[] values;
+	private long[] filled;
+	private int[] order; //filled slots in the order they were filled
+	private int size = 0;
+
+	private ImportInstruction lastInstruction; //the last instruction that added a value
+
+	/**
+	 * Constructor for the ImportRecord object
+	 * @param slots The number of slots (ImportInstruction.getSlots() of the parent)
+	 */
+	public ImportRecord(int slots){
+		fields = new String[slots];
+		values = new String[slots];
+		filled = new long[(slots + 63) / 64];
+		order = new int[slots];
+	}
+
+	/**
+	 * Starts a new record with the provided key, dropping the values of the children
+	 * @param dbTable The table the row will be written into
+	 * @param keyField The field of the key
+	 * @param keyValue The key value
+	 */
+	public void reset(String dbTable, String keyField, String keyValue){
+		this.dbTable = dbTable;
+		this.keyField = keyField;
+		this.keyValue = keyValue;
+		this.clear();
+	}
+
+	/**
+	 * Checks whether a value was already read into the slot
+	 * @param slot The slot of the child instruction
+	 * @return true - the slot is filled
+	 * 		 false - the slot is empty
+	 */
+	public boolean hasField(int slot){
+		return (filled[slot >>> 6] & (1L << slot)) != 0;
+	}
+
+	/**
+	 * Fills the slot with a value read by a child instruction
+	 * @param slot The slot of the child instruction
+	 * @param field The field of the child instruction
+	 * @param value The value
+	 */
+	public void set(int slot, String field, String value){
+		if(!this.hasField(slot)){
+			filled[slot >>> 6] |= 1L << slot;
+			order[size++] = slot;
+		}
+		fields[slot] = field;
+		values[slot] = value;
+	}
+
+	/**
+	 * Checks whether no child value has been read yet
+	 * @return true if every slot is empty
+	 */
+	public boolean isEmpty(){
+		return size == 0;
+	}
+
+	/**
+	 * Empties every slot (the key stays)
+	 */
+	public void clear(){
+		for(int i = 0; i < size; i++){
+			int slot = order[i];
+			filled[slot >>> 6] &= ~(1L << slot);
+			values[slot] = null;
+		}
+		size = 0;
+	}
+
+	/**
+	 * Builds the finished row from the key and the filled slots and passes it to the sink,
+	 * which inserts it into the database and/or a spreadsheet depending on the settings.
+	 * The slots are emptied afterwards.
+	 * @param sink The sink the finished row is passed to
+	 * @param instruction The instruction that completed this record
+	 * @return true - the row was accepted by the sink
+	 * 		 false - there were no children to export or the row could not be written
+	 */
+	public boolean export(RowSink sink, ImportInstruction instruction){
+		if(size == 0)
+			return false;
+
+		List<String> columnNames = new ArrayList<>(size + 1);
+		List<String> columnValues = new ArrayList<>(size + 1);
+		columnNames.add(keyField);
+		columnValues.add(keyValue);
+		for(int i = 0; i < size; i++){
+			columnNames.add(fields[order[i]]);
+			columnValues.add(values[order[i]]);
+		}
+
+		this.clear();
+		ImportMetrics.get().recordAssembled(instruction);
+		return sink.accept(new ImportRow(instruction, dbTable, columnNames, columnValues));
+	}
+
+	/**
+	 * Returns the last instruction that added a value to this record
+	 * @return lastInstruction
+	 */
+	public ImportInstruction getLastInstruction(){
+		return lastInstruction;
+	}
+
+	/**
+	 * Sets the last instruction that added a value to this record
+	 * @param instruction The instruction
+	 */
+	public void setLastInstruction(ImportInstruction instruction){
+		this.lastInstruction = instruction;
+	}
+
+	@Override
+	public String toString(){
+		StringBuilder string = new StringBuilder("importRecord[dbTable="+dbTable+", "+keyField+"="+keyValue);
+		for(int i = 0; i < size; i++)
+			string.append(", ").append(fields[order[i]]).append('=').append(values[order[i]]);
+		return string.append(']').toString();
+	}
+}
@@ -0,0 +1,107 @@
+package com.tannerembry.xmlshredder.importer;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Represents one finished row (a parent entry and all of its children) that is
+ * ready to be written into the database or exported into a spreadsheet.
+ * The key column and its value are always the first column and value.
+ *
+ * @author      Tanner Embry, Claresco Corp <tembry@claresco.com>
+ * @version     1.0
+ * @since       1.0
+ */
+
+public class ImportRow {
+
+	private ImportInstruction instruction;
+	private String dbTable;
+	private List<String> columns;
+	private List<String> values;
+
+	/**
+	 * Constructor for the ImportRow object
+	 * @param instruction The instruction that completed this row
+	 * @param dbTable The table in the database this row will be written into
+	 * @param columns The names of the fields in the table (key field first)
+	 * @param values The values of the fields (key value first)
+	 */
+	public ImportRow(ImportInstruction instruction, String dbTable, List<String> columns, List<String> values){
+		this.instruction = instruction;
+		this.dbTable = dbTable;
+		this.columns = Collections.unmodifiableList(columns);
+		this.values = Collections.unmodifiableList(values);
+	}
+
+	/**
+	 * Returns the instruction that completed this row
+	 * @return instruction
+	 */
+	public ImportInstruction getInstruction(){
+		return instruction;
+	}
+
+	/**
+	 * Returns the name of the database table
+	 * @return dbTable
+	 */
+	public String getTable(){
+		return dbTable;
+	}
+
+	/**
+	 * Returns the name of the key field (the field of the parent entry)
+	 * @return the key field
+	 */
+	public String getKeyField(){
+		return columns.get(0);
+	}
+
+	/**
+	 * Returns the value of the key field
+	 * @return the key value
+	 */
+	public String getKeyValue(){
+		return values.get(0);
+	}
+
+	/**
+	 * Returns the names of all fields in this row (key field first)
+	 * @return columns
+	 */
+	public List<String> getColumns(){
+		return columns;
+	}
+
+	/**
+	 * Returns the values of all fields in this row (key value first)
+	 * @return values
+	 */
+	public List<String> getValues(){
+		return values;
+	}
+
+	/**
+	 * Returns the column names and values in the form they are printed to the console,
+	 * e.g. (id, author) - ('bk101', 'Ralls, Kim')
+	 */
+	@Override
+	public String toString(){
+		StringBuilder names = new StringBuilder("(");
+		StringBuilder vals = new StringBuilder("(");
+		for(int i = 0; i < columns.size(); i++){
+			if(i > 0){
+				names.append(", ");
+				vals.append(", ");
+			}
+			names.append(columns.get(i));
+			String value = values.get(i);
+			if(value != null)
+				vals.append('\'').append(value).append('\'');
+			else
+				vals.append(value);
+		}
+		return names.append(')') + " - " + vals.append(')');
+	}
+}
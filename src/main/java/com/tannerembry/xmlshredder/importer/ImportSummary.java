@@ -0,0 +1,96 @@
+package com.tannerembry.xmlshredder.importer;
+
+/**
+ * The result of shredding one xml data file: how many rows were exported,
+ * how many could not be written, how long it took and the error that stopped
+ * the file (if any).
+ *
+ * @author      Tanner Embry, Claresco Corp <tembry@claresco.com>
+ * @version     1.0
+ * @since       1.0
+ */
+
+public class ImportSummary {
+
+	private String xmlFile;
+	private long rows;
+	private long failedRows;
+	private long elapsedMillis;
+	private Throwable error;
+
+	/**
+	 * Constructor for the ImportSummary object
+	 * @param xmlFile The path to the xml file that was shredded
+	 * @param rows The number of rows that were exported successfully
+	 * @param failedRows The number of rows that could not be written to the database
+	 * @param elapsedMillis The time spent on the file in milliseconds
+	 * @param error The error that stopped the file (null if the whole file was read)
+	 */
+	public ImportSummary(String xmlFile, long rows, long failedRows, long elapsedMillis, Throwable error){
+		this.xmlFile = xmlFile;
+		this.rows = rows;
+		this.failedRows = failedRows;
+		this.elapsedMillis = elapsedMillis;
+		this.error = error;
+	}
+
+	/**
+	 * Returns the path to the xml file that was shredded
+	 * @return xmlFile
+	 */
+	public String getXmlFile(){
+		return xmlFile;
+	}
+
+	/**
+	 * Returns the number of rows that were exported successfully
+	 * @return rows
+	 */
+	public long getRows(){
+		return rows;
+	}
+
+	/**
+	 * Returns the number of rows that could not be written to the database
+	 * @return failedRows
+	 */
+	public long getFailedRows(){
+		return failedRows;
+	}
+
+	/**
+	 * Returns the time spent on the file in milliseconds
+	 * @return elapsedMillis
+	 */
+	public long getElapsedMillis(){
+		return elapsedMillis;
+	}
+
+	/**
+	 * Returns the error that stopped the file
+	 * @return error (null if the whole file was read)
+	 */
+	public Throwable getError(){
+		return error;
+	}
+
+	/**
+	 * Returns whether the whole file was read and every row was written
+	 * @return true if the file succeeded
+	 */
+	public boolean succeeded(){
+		return error == null && failedRows == 0;
+	}
+
+	/**
+	 * Returns the summary in the form it is printed to the console,
+	 * e.g. books.xml: 5 rows, 0 failed in 120 ms
+	 */
+	@Override
+	public String toString(){
+		String toString = xmlFile+": "+rows+" rows, "+failedRows+" failed in "+elapsedMillis+" ms";
+		if(error != null)
+			toString += " (stopped: "+error+")";
+		return toString;
+	}
+}
@@ -14,6 +14,8 @@ import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 import org.xml.sax.SAXException;
 
+import com.tannerembry.xmlshredder.database.WriteMode;
+
 /**
  * This represents all of the information in the configuration file
  * including database information and xpath/database mapping information.
@@ -30,11 +32,26 @@ public class ImporterSettings {
 
 	private boolean exportSpreadsheet;
 	private String exportSpreadsheetPath;
+	private int spreadsheetWindowSize = 0;
+	private String spreadsheetFormat = "xlsx";
 
 	private String dbUsername;
 	private String dbPassword;
 	private String dbHost;
 
+	private int batchSize = 1;
+	private int commitInterval = 1;
+	private WriteMode writeMode = WriteMode.CHECK;
+	private int lookupBatchSize = 500;
+	private int threads = Runtime.getRuntime().availableProcessors();
+	private long chunkSize = 0;
+	private int queueSize = 0;
+	private int writers = 1;
+	private String deltaStorePath = null;
+	private String parser = "sax";
+	private int maxValueLength = 0;
+	private int metricsInterval = 0;
+
 	private HashMap<String, ArrayList<ImportInstruction>> importInstructionMap; //these are all parent entries. Some contain children entries (key is xPath)
 
 	/**
@@ -49,6 +66,23 @@ public class ImporterSettings {
 		}
 	}
 
+	/**
+	 * Returns the number of rows per spreadsheet tab kept in memory while exporting
+	 * (0 if the spreadsheet is not streamed and the whole workbook is kept in memory)
+	 * @return spreadsheetWindowSize
+	 */
+	public int getSpreadsheetWindowSize(){
+		return spreadsheetWindowSize;
+	}
+
+	/**
+	 * Returns the format data is exported in (xlsx, csv or tsv)
+	 * @return spreadsheetFormat
+	 */
+	public String getSpreadsheetFormat(){
+		return spreadsheetFormat;
+	}
+
 	/**
 	 * Returns the username used to access the database
 	 * @return dbUsername
@@ -107,6 +141,106 @@ public class ImporterSettings {
 		return exportSpreadsheetPath;
 	}
 
+	/**
+	 * Returns the number of rows collected before they are written to the database in one batch
+	 * (1 writes every row as soon as it is finished)
+	 * @return batchSize
+	 */
+	public int getBatchSize(){
+		return batchSize;
+	}
+
+	/**
+	 * Returns the number of batches written between each commit (only used when batching)
+	 * @return commitInterval
+	 */
+	public int getCommitInterval(){
+		return commitInterval;
+	}
+
+	/**
+	 * Returns how the database writer decides between inserting and updating a row
+	 * @return writeMode
+	 */
+	public WriteMode getWriteMode(){
+		return writeMode;
+	}
+
+	/**
+	 * Returns the number of rows whose keys are checked with a single query (batchcheck write mode)
+	 * @return lookupBatchSize
+	 */
+	public int getLookupBatchSize(){
+		return lookupBatchSize;
+	}
+
+	/**
+	 * Returns the number of xml files shredded at the same time (and the size of the connection pool)
+	 * @return threads
+	 */
+	public int getThreads(){
+		return threads;
+	}
+
+	/**
+	 * Returns the number of bytes of records in each chunk when a large xml file is split
+	 * and parsed on several threads (0 if files are never split)
+	 * @return chunkSize
+	 */
+	public long getChunkSize(){
+		return chunkSize;
+	}
+
+	/**
+	 * Returns the number of finished rows that can wait for the writer thread
+	 * (0 if rows are written on the parsing thread)
+	 * @return queueSize
+	 */
+	public int getQueueSize(){
+		return queueSize;
+	}
+
+	/**
+	 * Returns the number of connections the rows of a file are written over at the same time,
+	 * each one writing the rows whose keys hash to it
+	 * @return writers
+	 */
+	public int getWriters(){
+		return writers;
+	}
+
+	/**
+	 * Returns the path of the fingerprint store used to skip rows that did not change since the last import
+	 * @return deltaStorePath (null if every row is written)
+	 */
+	public String getDeltaStorePath(){
+		return deltaStorePath;
+	}
+
+	/**
+	 * Returns the name of the engine that reads the xml files (sax or stax)
+	 * @return parser
+	 */
+	public String getParser(){
+		return parser;
+	}
+
+	/**
+	 * Returns the maximum number of characters kept of an element value (0 keeps the whole value)
+	 * @return maxValueLength
+	 */
+	public int getMaxValueLength(){
+		return maxValueLength;
+	}
+
+	/**
+	 * Returns the number of seconds between two printed lines of metrics (0 prints none)
+	 * @return metricsInterval
+	 */
+	public int getMetricsInterval(){
+		return metricsInterval;
+	}
+
 	/**
 	 * Returns the map of import instructions
 	 * @return importInstructionMap
@@ -125,6 +259,43 @@ public class ImporterSettings {
 		// normalize text representation
 		document.getDocumentElement().normalize();
 
+		NodeList miscInfo = document.getElementsByTagName("misc");
+		for (int d = 0; d < miscInfo.getLength(); d++) {
+
+			Node miscNode = miscInfo.item(d);
+			if (miscNode.getNodeType() == Node.ELEMENT_NODE) {
+
+				Element miscElement = (Element) miscNode;
+
+				this.upload = Boolean.parseBoolean(this.getValue(miscElement, "upload", "false"));
+				this.printQueries = Boolean.parseBoolean(this.getValue(miscElement, "printqueries", "false"));
+			}
+		}
+
+		NodeList performanceInfo = document.getElementsByTagName("performance");
+		for (int d = 0; d < performanceInfo.getLength(); d++) {
+
+			Node performanceNode = performanceInfo.item(d);
+			if (performanceNode.getNodeType() == Node.ELEMENT_NODE) {
+
+				Element performanceElement = (Element) performanceNode;
+
+				this.batchSize = Math.max(1, Integer.parseInt(this.getValue(performanceElement, "batchsize", "1")));
+				this.commitInterval = Math.max(1, Integer.parseInt(this.getValue(performanceElement, "commitinterval", "1")));
+				this.writeMode = WriteMode.fromConfigName(this.getValue(performanceElement, "writemode", "check"));
+				this.lookupBatchSize = Math.max(1, Integer.parseInt(this.getValue(performanceElement, "lookupbatchsize", "500")));
+				this.threads = Math.max(1, Integer.parseInt(this.getValue(performanceElement, "threads", String.valueOf(threads))));
+				this.chunkSize = Math.max(0, Long.parseLong(this.getValue(performanceElement, "chunksize", "0"))) * 1024 * 1024;
+				this.queueSize = Math.max(0, Integer.parseInt(this.getValue(performanceElement, "queuesize", "0")));
+				this.writers = Math.max(1, Integer.parseInt(this.getValue(performanceElement, "writers", "1")));
+				this.parser = this.getValue(performanceElement, "parser", "sax").toLowerCase();
+				String deltaStore = this.getValue(performanceElement, "deltastore", "").trim();
+				this.deltaStorePath = deltaStore.isEmpty() ? null : deltaStore;
+				this.maxValueLength = Math.max(0, Integer.parseInt(this.getValue(performanceElement, "maxvaluelength", "0")));
+				this.metricsInterval = Math.max(0, Integer.parseInt(this.getValue(performanceElement, "metricsinterval", "0")));
+			}
+		}
+
 		NodeList ssInfo = document.getElementsByTagName("spreadsheet");
 		for (int d = 0; d < ssInfo.getLength(); d++) {
 
@@ -135,6 +306,10 @@ public class ImporterSettings {
 
 				this.exportSpreadsheet = Boolean.parseBoolean(ssElement.getElementsByTagName("create").item(0).getTextContent());
 				this.exportSpreadsheetPath = ssElement.getElementsByTagName("file").item(0).getTextContent();
+
+				this.spreadsheetFormat = this.getValue(ssElement, "format", "xlsx").toLowerCase();
+				if(Boolean.parseBoolean(this.getValue(ssElement, "streaming", "false")))
+					this.spreadsheetWindowSize = Math.max(1, Integer.parseInt(this.getValue(ssElement, "windowsize", "100")));
 			}
 		}
 
@@ -221,6 +396,23 @@ public class ImporterSettings {
 		importInstructionMap.put(xPathElement, instructions);
 	}
 
+	/**
+	 * Returns the trimmed text of the first child element with the provided tag name
+	 * @param element The element to search in
+	 * @param tagName The name of the child element
+	 * @param defaultValue The value returned if the child element does not exist or is empty
+	 * @return the text of the child element
+	 */
+	private String getValue(Element element, String tagName, String defaultValue){
+		NodeList nodes = element.getElementsByTagName(tagName);
+		if(nodes.getLength() == 0)
+			return defaultValue;
+		String value = nodes.item(0).getTextContent().trim();
+		if(value.isEmpty())
+			return defaultValue;
+		return value;
+	}
+
 	/**
 	 * This method is used to get an xml document type from a provided file path.
 	 * @param path The path to the xml file
@@ -1,104 +1,248 @@
 package com.tannerembry.xmlshredder.importer;
 
+import java.io.File;
 import java.io.IOException;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.concurrent.Callable;
 
-import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.parsers.SAXParser;
-import javax.xml.parsers.SAXParserFactory;
-
+import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
 
+import com.tannerembry.xmlshredder.database.ConnectionPool;
+import com.tannerembry.xmlshredder.database.DatabaseWriter;
+import com.tannerembry.xmlshredder.database.FingerprintStore;
+
 /**
  * This class represents the actual task that is called to shred the
  * data from the xml data file into the relational database.
- * 
+ *
+ * A task can be created for every file of a larger import and run on a pool of
+ * threads. All of those tasks share the same settings, compiled instructions and
+ * ConnectionPool, and each one borrows a connection (or one for every writer when
+ * writers is set) only while its file is shredded.
+ *
+ * While uploading, the number of committed rows is saved to a Checkpoint next to the
+ * xml file, which is removed once the whole file is imported. A resumed task skips
+ * the rows committed by the run that saved the checkpoint.
+ *
+ * When a FingerprintStore is shared by the tasks (delta mode), rows that did not
+ * change since they were last written are skipped.
+ *
  * @author      Tanner Embry, Claresco Corp <tembry@claresco.com>
- * @version     1.0         
- * @since       1.0         
+ * @version     1.0
+ * @since       1.0
  */
 
-public class ImporterTask {
+public class ImporterTask implements Callable<ImportSummary> {
+
+	private static final int PARTITION_QUEUE_SIZE = 1000;
 
 	private String XML_FILE;
-	private String CONFIG_FILE;
+	private String exportPath;
 
 	private ImporterSettings importerSettings;
 	private ImportInstructionManager importInstructionManager;
-	private Connection connection;
+	private ConnectionPool connectionPool;
+	private FingerprintStore fingerprints;
+	private boolean resume;
 
 	/**
-	 * Constructor for the ImporterSettings object
+	 * Constructor for the ImporterTask object that reads the configuration file
+	 * and shreds a single xml file right away
 	 * @param xmlFile The path to the xml file containing the data to be shredded
 	 * @param configFile The path to the configuration file needed to run the program
-	 * @param printQueries Controls whether or not the executed queries are printed to the console
 	 */
 	public ImporterTask(String xmlFile, String configFile){
 		XML_FILE = xmlFile;
-		CONFIG_FILE = configFile;
 
-		initFromConfig();
+		importerSettings = new ImporterSettings(configFile);
+		importInstructionManager = new ImportInstructionManager(importerSettings.getImportInstructionMap());
+		exportPath = importerSettings.getExportSpreadsheetPath();
 
-		run();
+		//print statement for all instructions
+		for(ImportInstruction instruction : importInstructionManager.getAllInstructions()){
+			System.out.println(instruction.toString());
+		}
+
+		try {
+			if(importerSettings.upload())
+				connectionPool = new ConnectionPool(importerSettings.getDatabaseHost(), importerSettings.getDataBaseUsername(), importerSettings.getDatabasePassword(), importerSettings.getWriters());
+			if(importerSettings.getDeltaStorePath() != null)
+				fingerprints = new FingerprintStore(importerSettings.getDeltaStorePath());
+			System.out.println(this.call());
+		} catch (ClassNotFoundException | IOException e){
+			e.printStackTrace();
+		} finally {
+			if(connectionPool != null)
+				connectionPool.close();
+			if(fingerprints != null)
+				fingerprints.close();
+		}
+	}
 
+	/**
+	 * Constructor for the ImporterTask object that shreds one file of a larger import when call() is run
+	 * @param xmlFile The path to the xml file containing the data to be shredded
+	 * @param exportPath The path of the spreadsheet the file is exported into (null if not exporting)
+	 * @param importerSettings The settings shared by every file of the import
+	 * @param importInstructionManager The compiled instructions shared by every file of the import
+	 * @param connectionPool The pool connections are borrowed from (null if not uploading)
+	 * @param fingerprints The store of the rows written by earlier imports (null to write every row)
+	 * @param resume true to skip the rows committed by an earlier run that saved a checkpoint
+	 */
+	public ImporterTask(String xmlFile, String exportPath, ImporterSettings importerSettings, ImportInstructionManager importInstructionManager,
+			ConnectionPool connectionPool, FingerprintStore fingerprints, boolean resume){
+		XML_FILE = xmlFile;
+		this.exportPath = exportPath;
+		this.importerSettings = importerSettings;
+		this.importInstructionManager = importInstructionManager;
+		this.connectionPool = connectionPool;
+		this.fingerprints = fingerprints;
+		this.resume = resume;
 	}
 
 	/**
 	 * Runs the actual task of shredding the data from the data file into the relational database
-	 * @param printQueries Controls whether or not the executed queries are printed to the console
+	 * @return the summary of the rows written from the file
 	 */
-	private void run () {
+	@Override
+	public ImportSummary call() {
+		long start = System.currentTimeMillis();
+
+		Connection connection = null;
+		DatabaseWriter writer = null;
+		RowWriter rowWriter = null;
+		QueuedRowSink queuedSink = null;
+		PartitionedWriter partitionedWriter = null;
+		Checkpoint checkpoint = null;
+		Throwable error = null;
 
 		try {
-			SAXParserFactory factory = SAXParserFactory.newInstance();
-			SAXParser saxParser = factory.newSAXParser();
+			//rows are written over several connections at the same time, split by the hash of their key
+			DatabaseSink database = null;
+			if(importerSettings.upload() && connectionPool != null && importerSettings.getWriters() > 1){
+				int capacity = (importerSettings.getQueueSize() > 0) ? importerSettings.getQueueSize() : PARTITION_QUEUE_SIZE;
+				partitionedWriter = new PartitionedWriter(connectionPool, importerSettings, importerSettings.getWriters(), capacity);
+				database = partitionedWriter;
+			}
+			else if(importerSettings.upload() && connectionPool != null){
+				connection = connectionPool.acquire();
+				writer = new DatabaseWriter(connection, importerSettings, connectionPool.getColumnTypes(), connectionPool.getKeyIndexes());
+				database = writer;
+			}
+			rowWriter = new RowWriter(database, importerSettings, exportPath);
+			rowWriter.setFingerprints(fingerprints);
+
+			if(database != null && !XmlInput.isStdin(XML_FILE)){
+				checkpoint = new Checkpoint(XML_FILE);
+				long resumeRows = resume ? checkpoint.load() : 0;
+				rowWriter.setCheckpoint(checkpoint, resumeRows);
+				if(resumeRows > 0)
+					System.out.println("Resuming "+XML_FILE+" after the "+resumeRows+" rows committed by an earlier run.");
+			}
 
-			//print statement for all instructions
-			for(ImportInstruction instruction : importInstructionManager.getAllInstructions()){
-				System.out.println(instruction.toString());
+			//rows are written on their own thread while parsing continues
+			RowSink sink = rowWriter;
+			if(importerSettings.getQueueSize() > 0){
+				queuedSink = new QueuedRowSink(rowWriter, importerSettings.getQueueSize());
+				sink = queuedSink;
 			}
 
-			SAXImportHandler handler = new SAXImportHandler(importInstructionManager, connection, importerSettings);
-			saxParser.parse(XML_FILE, handler);
+			ParserEngine engine = ParserEngine.forName(importerSettings.getParser());
+			String recordElement = importInstructionManager.getRecordElement();
+			long chunkSize = importerSettings.getChunkSize();
 
-			handler.processFinalEntries();
+			if(chunkSize > 0 && importInstructionManager.canSplitRecords() && !XmlInput.isStdin(XML_FILE) && new File(XML_FILE).length() > chunkSize && RecordSplitter.canSplit(XML_FILE)){
+				ChunkedParser parser = new ChunkedParser(XML_FILE, importInstructionManager, recordElement, importerSettings, engine);
+				int chunks = parser.parse(sink);
+				System.out.println("Parsed "+XML_FILE+" in "+chunks+" chunks of <"+recordElement+"> records.");
+			}
+			else{
+				SAXImportHandler handler = new SAXImportHandler(importInstructionManager, sink, importerSettings.getMaxValueLength());
+				InputSource source = XmlInput.open(XML_FILE);
+				try {
+					engine.parse(source, handler);
+				} finally {
+					source.getByteStream().close();
+				}
+
+				handler.processFinalEntries();
+			}
+			if(queuedSink != null)
+				queuedSink.finish();
+			if(partitionedWriter != null)
+				partitionedWriter.finish();
+			rowWriter.close();
 
-		} catch (SAXException e) {
-			e.printStackTrace();
-		} catch (IOException e) {
-			e.printStackTrace();
-		} catch (ParserConfigurationException e) {
+		} catch (SAXException | IOException | SQLException | RuntimeException e) {
 			e.printStackTrace();
+			error = e;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			error = e;
 		} finally {
-			this.closeConnection();
+			//writes any pending rows before the connection goes back to the pool
+			if(queuedSink != null)
+				queuedSink.close();
+			if(partitionedWriter != null)
+				partitionedWriter.close();
+			if(writer != null)
+				writer.close();
+			if(connection != null)
+				connectionPool.release(connection);
+			//a file that failed is not exported
+			if(rowWriter != null)
+				rowWriter.discard();
 		}
-	}
 
-	/**
-	 * Initializes the importer settings, instruction manager, and the actual database connection
-	 */
-	private void initFromConfig(){
-		try {
-			importerSettings = new ImporterSettings(CONFIG_FILE);
-			importInstructionManager = new ImportInstructionManager(importerSettings.getImportInstructionMap());
+		//every row committed so far is stored in the fingerprint store, even if the file failed
+		if(rowWriter != null)
+			rowWriter.updateCommitted();
+		if(rowWriter != null && fingerprints != null)
+			System.out.println("Skipped "+rowWriter.getUnchangedRows()+" unchanged rows of "+XML_FILE+".");
+
+		//the checkpoint is only needed again if the file could not be imported completely
+		if(checkpoint != null){
+			if(error == null)
+				checkpoint.delete();
+			else
+				rowWriter.saveCheckpoint(true);
+		}
 
-			if(importerSettings.upload()){
-				Class.forName("org.postgresql.Driver");
-				connection = DriverManager.getConnection(importerSettings.getDatabaseHost(), importerSettings.getDataBaseUsername(), importerSettings.getDatabasePassword());
-			}
-		} catch (SQLException | ClassNotFoundException e){
-			e.printStackTrace();
-			this.closeConnection();
+		long rows = (rowWriter == null) ? 0 : rowWriter.getRows();
+		long failedRows = (rowWriter == null) ? 0 : rowWriter.getFailedRows();
+		DatabaseSink database = (partitionedWriter != null) ? partitionedWriter : writer;
+		if(database != null && rowWriter != null){
+			//rows of a batch (or of a partition) are only known to have failed once they are written
+			long laterFailedRows = database.getFailedRows() - rowWriter.getFailedRows();
+			rows -= laterFailedRows;
+			failedRows += laterFailedRows;
 		}
+		return new ImportSummary(XML_FILE, rows, failedRows, System.currentTimeMillis() - start, error);
 	}
 
 	/**
-	 * Closes the connection to the database, if it exists
+	 * Returns the spreadsheet path for one file of an import with several files.
+	 * The name of the xml file is added before the extension so every file gets
+	 * its own spreadsheet (e.g. output_values_books.xlsx).
+	 * @param exportPath The spreadsheet path from the settings
+	 * @param xmlFile The path to the xml file
+	 * @return the spreadsheet path for the xml file (null if not exporting)
 	 */
-	private void closeConnection(){
-		if(connection != null)
-			try { connection.close(); } catch (SQLException e) { e.printStackTrace(); }
+	public static String getExportPath(String exportPath, String xmlFile){
+		if(exportPath == null)
+			return null;
+
+		String xmlName = new File(xmlFile).getName();
+		if(xmlName.toLowerCase().endsWith(".gz"))
+			xmlName = xmlName.substring(0, xmlName.length() - 3);
+		if(xmlName.contains("."))
+			xmlName = xmlName.substring(0, xmlName.lastIndexOf("."));
+
+		int extension = exportPath.lastIndexOf(".");
+		if(extension <= exportPath.lastIndexOf(File.separatorChar))
+			return exportPath+"_"+xmlName;
+		return exportPath.substring(0, extension)+"_"+xmlName+exportPath.substring(extension);
 	}
 }
@@ -0,0 +1,195 @@
+package com.tannerembry.xmlshredder.importer;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * This class compiles the xPaths of all ImportInstructions into a state machine
+ * over element names. The handler keeps one state per depth of the xml file and
+ * steps it forward on every new element, so finding the instructions for an
+ * element is two array lookups instead of a scan of every xPath.
+ *
+ * An instruction matches an element when the segments of its xPath appear, in order,
+ * as the trailing elements of the current path. This covers both full paths
+ * (catalog.book.author) and partial paths (book).
+ *
+ * @author      Tanner Embry, Claresco Corp <tembry@claresco.com>
+ * @version     1.0
+ * @since       1.0
+ */
+
+public class InstructionMatcher {
+
+	public static final int ROOT_STATE = 0;
+
+	private static final ImportInstruction[] NO_INSTRUCTIONS = new ImportInstruction[0];
+
+	private HashMap<String, Integer> symbols; //element name -> symbol used in the transition table
+	private int[][] transitions; //[state][symbol] -> next state
+	private ImportInstruction[][] instructions; //instructions matched when entering a state (parents first)
+
+	/**
+	 * Constructor for the InstructionMatcher object
+	 * @param instructionMap The instructionMap that was built when initializing ImporterSettings
+	 */
+	public InstructionMatcher(HashMap<String, ArrayList<ImportInstruction>> instructionMap){
+		symbols = new HashMap<String, Integer>();
+		compile(instructionMap);
+	}
+
+	/**
+	 * Returns the state that matching starts from (before the root element is read)
+	 * @return the root state
+	 */
+	public int getRootState(){
+		return ROOT_STATE;
+	}
+
+	/**
+	 * Returns the state reached by moving from the provided state into a child element
+	 * @param state The state of the parent element
+	 * @param element The name of the child element
+	 * @return the state of the child element
+	 */
+	public int nextState(int state, String element){
+		Integer symbol = symbols.get(element);
+		if(symbol == null)
+			return ROOT_STATE;
+		return transitions[state][symbol];
+	}
+
+	/**
+	 * Returns the instructions that match an element in the provided state, sorted with parents first.
+	 * The returned array is shared and must not be modified.
+	 * @param state The state of the element
+	 * @return array of matching ImportInstructions (never null)
+	 */
+	public ImportInstruction[] getInstructions(int state){
+		return instructions[state];
+	}
+
+	/**
+	 * Returns the number of states in the compiled state machine
+	 * @return the number of states
+	 */
+	public int getStateCount(){
+		return instructions.length;
+	}
+
+	/**
+	 * Builds the transition table and the per-state instruction arrays.
+	 * The xPaths are inserted into a trie of element names which is then turned into a
+	 * complete state machine (Aho-Corasick) so a path can match starting at any depth.
+	 */
+	private void compile(HashMap<String, ArrayList<ImportInstruction>> instructionMap){
+		List<HashMap<Integer, Integer>> trie = new ArrayList<>();
+		List<List<ImportInstruction>> matched = new ArrayList<>();
+		List<Integer> lastSymbol = new ArrayList<>();
+		trie.add(new HashMap<Integer, Integer>());
+		matched.add(new ArrayList<ImportInstruction>());
+		lastSymbol.add(-1);
+
+		for(ArrayList<ImportInstruction> instructionList : instructionMap.values()){
+			for(ImportInstruction instruction : instructionList){
+				int state = ROOT_STATE;
+				for(String segment : instruction.getXPath().split("\\.")){
+					int symbol = this.getOrCreateSymbol(segment);
+					Integer next = trie.get(state).get(symbol);
+					if(next == null){
+						next = trie.size();
+						trie.add(new HashMap<Integer, Integer>());
+						matched.add(new ArrayList<ImportInstruction>());
+						lastSymbol.add(symbol);
+						trie.get(state).put(symbol, next);
+					}
+					state = next;
+				}
+				matched.get(state).add(instruction);
+			}
+		}
+
+		int stateCount = trie.size();
+		int symbolCount = symbols.size();
+		transitions = new int[stateCount][symbolCount];
+		int[] failure = new int[stateCount];
+
+		//breadth first so the failure state of every state is complete before it is used
+		ArrayDeque<Integer> queue = new ArrayDeque<>();
+		for(int symbol = 0; symbol < symbolCount; symbol++){
+			Integer next = trie.get(ROOT_STATE).get(symbol);
+			if(next == null){
+				transitions[ROOT_STATE][symbol] = ROOT_STATE;
+			}
+			else{
+				transitions[ROOT_STATE][symbol] = next;
+				failure[next] = ROOT_STATE;
+				queue.add(next);
+			}
+		}
+		List<Integer> order = new ArrayList<>();
+		while(!queue.isEmpty()){
+			int state = queue.poll();
+			order.add(state);
+			for(int symbol = 0; symbol < symbolCount; symbol++){
+				Integer next = trie.get(state).get(symbol);
+				if(next == null){
+					transitions[state][symbol] = transitions[failure[state]][symbol];
+				}
+				else{
+					transitions[state][symbol] = next;
+					failure[next] = transitions[failure[state]][symbol];
+					queue.add(next);
+				}
+			}
+		}
+
+		//a state also matches every shorter path that is a suffix of it (following the failure states)
+		List<HashSet<ImportInstruction>> matchedSets = new ArrayList<>();
+		for(int state = 0; state < stateCount; state++){
+			matchedSets.add(new HashSet<ImportInstruction>(matched.get(state)));
+		}
+		for(int state : order){
+			matchedSets.get(state).addAll(matchedSets.get(failure[state]));
+		}
+
+		String[] names = new String[symbolCount];
+		for(String name : symbols.keySet()){
+			names[symbols.get(name)] = name;
+		}
+
+		instructions = new ImportInstruction[stateCount][];
+		for(int state = 0; state < stateCount; state++){
+			HashSet<ImportInstruction> matchedSet = matchedSets.get(state);
+			if(matchedSet.isEmpty()){
+				instructions[state] = NO_INSTRUCTIONS;
+				continue;
+			}
+
+			//keep the order the instructions were configured in for this element, with parents first
+			ArrayList<ImportInstruction> stateInstructions = new ArrayList<>();
+			ArrayList<ImportInstruction> elementInstructions = instructionMap.get(names[lastSymbol.get(state)]);
+			if(elementInstructions != null){
+				for(ImportInstruction instruction : elementInstructions){
+					if(matchedSet.contains(instruction))
+						stateInstructions.add(instruction);
+				}
+			}
+			Collections.sort(stateInstructions);
+
+			instructions[state] = stateInstructions.toArray(new ImportInstruction[stateInstructions.size()]);
+		}
+	}
+
+	private int getOrCreateSymbol(String element){
+		Integer symbol = symbols.get(element);
+		if(symbol == null){
+			symbol = symbols.size();
+			symbols.put(element, symbol);
+		}
+		return symbol;
+	}
+}
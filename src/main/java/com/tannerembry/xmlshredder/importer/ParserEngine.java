@@ -0,0 +1,40 @@
+package com.tannerembry.xmlshredder.importer;
+
+import java.io.IOException;
+
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+/**
+ * Reads an xml document and reports its elements and text to a SAXImportHandler.
+ * Every engine drives the same handler, so the rows produced do not depend on
+ * which engine is used. The engine is picked with the parser setting in the
+ * configuration file.
+ *
+ * @author      Tanner Embry, Claresco Corp <tembry@claresco.com>
+ * @version     1.0
+ * @since       1.0
+ */
+
+public interface ParserEngine {
+
+	/**
+	 * Reads the whole document and reports it to the handler
+	 * @param source The document (its byte stream if set, otherwise its system id)
+	 * @param handler The handler the elements and text are reported to
+	 * @throws IOException if the document could not be read
+	 * @throws SAXException if the document is not well formed
+	 */
+	public void parse(InputSource source, SAXImportHandler handler) throws IOException, SAXException;
+
+	/**
+	 * Returns the engine with the name used in the configuration file
+	 * @param name The name of the engine (sax or stax)
+	 * @return the engine (the SAX engine if the name is not known)
+	 */
+	public static ParserEngine forName(String name){
+		if("stax".equalsIgnoreCase(name))
+			return new StaxEngine();
+		return new SaxEngine();
+	}
+}
@@ -0,0 +1,204 @@
+package com.tannerembry.xmlshredder.importer;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import com.tannerembry.xmlshredder.database.ConnectionPool;
+import com.tannerembry.xmlshredder.database.DatabaseWriter;
+
+/**
+ * Writes the rows of a file into the database over several connections at the same
+ * time. Every partition borrows its own connection from the ConnectionPool and has
+ * its own DatabaseWriter, queue and thread, so each one builds its own batches and
+ * commits its own transactions.
+ *
+ * A row goes to the partition picked by a hash of its table and key value. All rows
+ * with the same key are therefore written by the same partition in the order they
+ * were accepted (a later update never overtakes the insert of the same key), while
+ * rows with different keys are written in parallel. Rows with different keys can be
+ * committed in a different order than they appear in the file, so the number of
+ * committed rows only counts up to the first row that some partition has not committed yet.
+ *
+ * @author      Tanner Embry, Claresco Corp <tembry@claresco.com>
+ * @version     1.0
+ * @since       1.0
+ */
+
+public class PartitionedWriter implements DatabaseSink {
+
+	private ConnectionPool connectionPool;
+	private Partition[] partitions;
+	private long acceptedRows = 0;
+	private boolean closed = false;
+
+	/**
+	 * Constructor for the PartitionedWriter object. The connections are borrowed and the threads are started right away.
+	 * @param connectionPool The pool the connections are borrowed from
+	 * @param importerSettings The settings used by the writer of every partition
+	 * @param writers The number of partitions
+	 * @param capacity The number of rows that can wait in the queue of each partition
+	 * @throws SQLException if a connection could not be opened or a writer could not be created
+	 * @throws InterruptedException if the thread was interrupted while waiting for a connection
+	 */
+	public PartitionedWriter(ConnectionPool connectionPool, ImporterSettings importerSettings, int writers, int capacity)
+			throws SQLException, InterruptedException {
+		this.connectionPool = connectionPool;
+		this.partitions = new Partition[Math.max(1, writers)];
+
+		try {
+			for(int i = 0; i < partitions.length; i++){
+				Partition partition = new Partition();
+				partitions[i] = partition;
+				partition.connection = connectionPool.acquire();
+				partition.writer = new DatabaseWriter(partition.connection, importerSettings, connectionPool.getColumnTypes(), connectionPool.getKeyIndexes());
+				partition.queue = new QueuedRowSink(partition, capacity);
+			}
+		} catch (SQLException | InterruptedException | RuntimeException e){
+			this.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Puts the row in the queue of the partition its key hashes to
+	 * @param row The finished row
+	 * @return true (rows that can not be written are counted by getFailedRows())
+	 * @throws IllegalStateException if the thread of the partition failed
+	 */
+	@Override
+	public boolean accept(ImportRow row){
+		Partition partition = partitions[partitionOf(row, partitions.length)];
+		partition.acceptedRows++;
+		partition.ordinals.add(acceptedRows++);
+		return partition.queue.accept(row);
+	}
+
+	/**
+	 * Returns the number of rows, counted from the first row accepted, that every partition has committed.
+	 * A partition with rows that are not committed yet holds the count at its last committed row.
+	 * @return the number of committed rows
+	 */
+	@Override
+	public long getCommittedRows(){
+		long committedRows = acceptedRows;
+		for(Partition partition : partitions){
+			//the count is published after the ordinal, so the ordinal read here is at least as recent
+			if(partition.committedRows < partition.acceptedRows)
+				committedRows = Math.min(committedRows, partition.committedOrdinal + 1);
+		}
+		return committedRows;
+	}
+
+	/**
+	 * Waits until every partition has written its rows, then writes out and commits the pending batches
+	 * @throws IllegalStateException if the thread of a partition failed
+	 */
+	public void finish(){
+		IllegalStateException error = null;
+		for(Partition partition : partitions){
+			try {
+				partition.queue.finish();
+			} catch (IllegalStateException e){
+				if(error == null)
+					error = e;
+			}
+		}
+		this.close();
+		if(error != null)
+			throw error;
+	}
+
+	/**
+	 * Stops every partition, closes its writer and hands its connection back to the pool
+	 * (without throwing an error of a partition, used when parsing already failed)
+	 */
+	public void close(){
+		if(closed)
+			return;
+		closed = true;
+		for(Partition partition : partitions){
+			if(partition == null)
+				continue;
+			if(partition.queue != null)
+				partition.queue.close();
+			if(partition.writer != null){
+				partition.writer.close();
+				partition.updateCommitted();
+			}
+			if(partition.connection != null)
+				connectionPool.release(partition.connection);
+		}
+	}
+
+	/**
+	 * Returns the number of rows that could not be written to the database
+	 * (only complete once finish() or close() returned)
+	 * @return failedRows
+	 */
+	@Override
+	public long getFailedRows(){
+		long failedRows = 0;
+		for(Partition partition : partitions){
+			if(partition != null)
+				failedRows += partition.failedRows;
+		}
+		return failedRows;
+	}
+
+	/**
+	 * Returns the partition the row is written by
+	 * @param row The row
+	 * @param partitions The number of partitions
+	 * @return the index of the partition
+	 */
+	static int partitionOf(ImportRow row, int partitions){
+		int hash = row.getTable().hashCode() * 31;
+		if(row.getKeyValue() != null)
+			hash += row.getKeyValue().hashCode();
+		hash ^= (hash >>> 16);
+		return Math.floorMod(hash, partitions);
+	}
+
+	/**
+	 * One connection with its writer and queue. Rows are written on the thread of the queue.
+	 */
+	private static class Partition implements RowSink {
+
+		private Connection connection;
+		private DatabaseWriter writer;
+		private QueuedRowSink queue;
+		private volatile long failedRows = 0;
+
+		private long acceptedRows = 0; //only used by the thread accepting rows
+		private ConcurrentLinkedQueue<Long> ordinals = new ConcurrentLinkedQueue<>(); //ordinals of the accepted rows, in the order of the queue
+		private ArrayDeque<Long> uncommitted = new ArrayDeque<>(); //ordinals of the written rows that are not committed yet
+		private volatile long committedOrdinal = -1;
+		private volatile long committedRows = 0;
+
+		@Override
+		public boolean accept(ImportRow row){
+			uncommitted.add(ordinals.poll());
+			boolean written = writer.write(row);
+			this.updateCommitted();
+			return written;
+		}
+
+		/**
+		 * Moves the ordinals of the rows the writer has committed out of the uncommitted rows
+		 */
+		private void updateCommitted(){
+			failedRows = writer.getFailedRows();
+			long committed = writer.getCommittedRows();
+			long ordinal = committedOrdinal;
+			long count = committedRows;
+			while(count < committed && !uncommitted.isEmpty()){
+				ordinal = uncommitted.poll();
+				count++;
+			}
+			committedOrdinal = ordinal;
+			committedRows = count;
+		}
+	}
+}
@@ -0,0 +1,118 @@
+package com.tannerembry.xmlshredder.importer;
+
+import java.util.Collections;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Hands finished rows from the parsing thread to a writer thread through a bounded
+ * queue, so the parser keeps reading the xml file while the writer waits on the
+ * database. When the queue is full the parser waits until the writer catches up,
+ * which keeps memory bounded no matter how much faster parsing is.
+ *
+ * Rows are written by the writer thread in the order they were accepted. If writing
+ * fails, the error is kept and the next call to accept() or finish() throws it on the
+ * parsing thread. The writer keeps emptying the queue after an error so the parser is never stuck.
+ *
+ * @author      Tanner Embry, Claresco Corp <tembry@claresco.com>
+ * @version     1.0
+ * @since       1.0
+ */
+
+public class QueuedRowSink implements RowSink {
+
+	private static final ImportRow END = new ImportRow(null, null, Collections.<String>emptyList(), Collections.<String>emptyList());
+
+	private RowSink target;
+	private ArrayBlockingQueue<ImportRow> queue;
+	private Thread writerThread;
+
+	private volatile Throwable error;
+	private boolean closed = false;
+
+	/**
+	 * Constructor for the QueuedRowSink object (the writer thread is started right away)
+	 * @param target The sink rows are written to on the writer thread
+	 * @param capacity The number of rows that can wait in the queue
+	 */
+	public QueuedRowSink(RowSink target, int capacity){
+		this.target = target;
+		this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+
+		writerThread = new Thread(this::drain, "xmlshredder-writer");
+		writerThread.setDaemon(true);
+		writerThread.start();
+	}
+
+	/**
+	 * Puts the row in the queue, waiting for space if the queue is full
+	 * @param row The finished row
+	 * @return true (rows that can not be written are counted by the target sink)
+	 * @throws IllegalStateException if the writer thread failed or the thread was interrupted while waiting
+	 */
+	@Override
+	public boolean accept(ImportRow row){
+		this.checkError();
+		try {
+			queue.put(row);
+		} catch (InterruptedException e){
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for the writer thread.", e);
+		}
+		return true;
+	}
+
+	/**
+	 * Waits until every row in the queue has been written and stops the writer thread
+	 * @throws IllegalStateException if the writer thread failed
+	 */
+	public void finish(){
+		this.close();
+		this.checkError();
+	}
+
+	/**
+	 * Waits until every row in the queue has been written and stops the writer thread,
+	 * without throwing an error of the writer thread (used when parsing already failed)
+	 */
+	public void close(){
+		if(closed)
+			return;
+		closed = true;
+		try {
+			queue.put(END);
+			writerThread.join();
+		} catch (InterruptedException e){
+			Thread.currentThread().interrupt();
+			writerThread.interrupt();
+		}
+	}
+
+	/**
+	 * Takes rows from the queue and writes them until the end of the import is reached
+	 */
+	private void drain(){
+		try {
+			while(true){
+				ImportRow row = queue.take();
+				if(row == END)
+					return;
+				if(error != null)
+					continue;
+
+				try {
+					target.accept(row);
+				} catch (RuntimeException e){
+					e.printStackTrace();
+					error = e;
+				}
+			}
+		} catch (InterruptedException e){
+			error = e;
+		}
+	}
+
+	private void checkError(){
+		if(error != null)
+			throw new IllegalStateException("The writer thread failed.", error);
+	}
+}
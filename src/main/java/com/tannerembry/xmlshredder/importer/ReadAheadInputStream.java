@@ -0,0 +1,158 @@
+package com.tannerembry.xmlshredder.importer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Reads another stream on its own thread into a few large buffers, so the work of
+ * producing the bytes (e.g. decompressing gzip or waiting on a pipe) happens while
+ * the parser works on the buffer before. Buffers are reused once the parser is done
+ * with them, so reading ahead does not create garbage.
+ *
+ * @author      Tanner Embry, Claresco Corp <tembry@claresco.com>
+ * @version     1.0
+ * @since       1.0
+ */
+
+public class ReadAheadInputStream extends InputStream {
+
+	private InputStream in;
+	private ArrayBlockingQueue<Block> filled;
+	private ArrayBlockingQueue<Block> free;
+	private Thread readerThread;
+
+	private Block current;
+	private int position = 0;
+	private boolean finished = false;
+	private volatile boolean closed = false;
+
+	/**
+	 * Constructor for the ReadAheadInputStream object (the reader thread is started right away)
+	 * @param in The stream that is read ahead
+	 * @param bufferSize The size of each buffer
+	 * @param buffers The number of buffers (the reader is at most this many buffers ahead)
+	 */
+	public ReadAheadInputStream(InputStream in, int bufferSize, int buffers){
+		this.in = in;
+		this.filled = new ArrayBlockingQueue<>(buffers);
+		this.free = new ArrayBlockingQueue<>(buffers);
+		for(int i = 0; i < buffers; i++)
+			free.add(new Block(bufferSize));
+
+		readerThread = new Thread(this::readAhead, "xmlshredder-read-ahead");
+		readerThread.setDaemon(true);
+		readerThread.start();
+	}
+
+	@Override
+	public int read() throws IOException {
+		if(!this.nextBlock())
+			return -1;
+		return current.data[position++] & 0xFF;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if(len == 0)
+			return 0;
+		if(!this.nextBlock())
+			return -1;
+		len = Math.min(len, current.length - position);
+		System.arraycopy(current.data, position, b, off, len);
+		position += len;
+		return len;
+	}
+
+	@Override
+	public int available(){
+		return (current == null) ? 0 : current.length - position;
+	}
+
+	@Override
+	public void close() throws IOException {
+		closed = true;
+		readerThread.interrupt();
+		in.close();
+	}
+
+	/**
+	 * Makes sure there are unread bytes in the current buffer, waiting for the reader thread if needed
+	 * @return false if the end of the stream was reached
+	 */
+	private boolean nextBlock() throws IOException {
+		if(current != null && position < current.length)
+			return true;
+		if(finished)
+			return false;
+
+		if(current != null)
+			free.add(current);
+		try {
+			current = filled.take();
+		} catch (InterruptedException e){
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for the read ahead thread.");
+		}
+		position = 0;
+
+		if(current.error != null){
+			finished = true;
+			throw current.error;
+		}
+		if(current.length == -1){
+			finished = true;
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Fills free buffers from the stream until its end is reached
+	 */
+	private void readAhead(){
+		try {
+			while(!closed){
+				Block block = free.take();
+				block.length = 0;
+				block.error = null;
+				try {
+					int read;
+					while(block.length < block.data.length && (read = in.read(block.data, block.length, block.data.length - block.length)) != -1)
+						block.length += read;
+				} catch (IOException e){
+					block.error = e;
+				}
+
+				boolean end = (block.length < block.data.length);
+				if(block.length > 0 || block.error != null)
+					filled.put(block);
+				if(block.error != null)
+					return;
+				if(end){
+					Block last = (block.length > 0) ? free.take() : block;
+					last.length = -1;
+					filled.put(last);
+					return;
+				}
+			}
+		} catch (InterruptedException e){
+			//the stream was closed
+		}
+	}
+
+	/**
+	 * A buffer and the number of bytes in it (-1 marks the end of the stream)
+	 */
+	private static class Block {
+
+		private byte[] data;
+		private int length;
+		private IOException error;
+
+		public Block(int size){
+			this.data = new byte[size];
+		}
+	}
+}
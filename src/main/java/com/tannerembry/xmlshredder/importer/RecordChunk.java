@@ -0,0 +1,128 @@
+package com.tannerembry.xmlshredder.importer;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Collections;
+
+import com.tannerembry.xmlshredder.metrics.ImportMetrics;
+
+/**
+ * A range of whole records in an xml file found by the RecordSplitter. The chunk
+ * is read as its own xml document: the prefix (xml declaration and the start tags
+ * of the elements around the records), the records straight from the file and
+ * the suffix (the matching end tags).
+ *
+ * @author      Tanner Embry, Claresco Corp <tembry@claresco.com>
+ * @version     1.0
+ * @since       1.0
+ */
+
+public class RecordChunk {
+
+	private int index;
+	private long start;
+	private long end;
+	private int records;
+	private byte[] prefix;
+	private byte[] suffix;
+
+	/**
+	 * Constructor for the RecordChunk object
+	 * @param index The position of the chunk in the file (0 is the first chunk)
+	 * @param start The offset of the start tag of the first record
+	 * @param end The offset right after the end tag of the last record
+	 * @param records The number of records in the chunk
+	 * @param prefix The bytes read before the records
+	 * @param suffix The bytes read after the records
+	 */
+	public RecordChunk(int index, long start, long end, int records, byte[] prefix, byte[] suffix){
+		this.index = index;
+		this.start = start;
+		this.end = end;
+		this.records = records;
+		this.prefix = prefix;
+		this.suffix = suffix;
+	}
+
+	/**
+	 * Returns the position of the chunk in the file (0 is the first chunk)
+	 * @return index
+	 */
+	public int getIndex(){
+		return index;
+	}
+
+	/**
+	 * Returns the number of bytes of records in the chunk
+	 * @return the length of the chunk in the file
+	 */
+	public long getLength(){
+		return end - start;
+	}
+
+	/**
+	 * Returns the number of records in the chunk
+	 * @return records
+	 */
+	public int getRecords(){
+		return records;
+	}
+
+	/**
+	 * Opens the chunk as a complete xml document. The records are read from the
+	 * channel with positional reads, so many chunks can be read from one channel at the same time.
+	 * @param channel The channel of the xml file
+	 * @return the stream of the chunk document
+	 */
+	public InputStream open(FileChannel channel){
+		return new SequenceInputStream(Collections.enumeration(Arrays.asList(
+				new ByteArrayInputStream(prefix),
+				new RangeInputStream(channel, start, end),
+				new ByteArrayInputStream(suffix))));
+	}
+
+	/**
+	 * Reads a range of a file channel without moving the position of the channel
+	 */
+	private static class RangeInputStream extends InputStream {
+
+		private FileChannel channel;
+		private long position;
+		private long end;
+
+		public RangeInputStream(FileChannel channel, long start, long end){
+			this.channel = channel;
+			this.position = start;
+			this.end = end;
+		}
+
+		@Override
+		public int read() throws IOException {
+			byte[] single = new byte[1];
+			return (this.read(single, 0, 1) == -1) ? -1 : (single[0] & 0xFF);
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if(position >= end)
+				return -1;
+			len = (int) Math.min(len, end - position);
+			int read = channel.read(ByteBuffer.wrap(b, off, len), position);
+			if(read == -1)
+				return -1;
+			position += read;
+			ImportMetrics.get().addBytesRead(read);
+			return read;
+		}
+
+		@Override
+		public int available(){
+			return (int) Math.min(Integer.MAX_VALUE, end - position);
+		}
+	}
+}
@@ -0,0 +1,367 @@
+package com.tannerembry.xmlshredder.importer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Cuts a large xml file into chunks of whole records so the chunks can be parsed
+ * at the same time. A record is an element with the name of the parent mappings
+ * (e.g. book) that is not inside another record.
+ *
+ * The raw bytes are only scanned for markup (tags, comments, CDATA sections and
+ * processing instructions), which is much faster than parsing the file. Each chunk
+ * starts at the start tag of a record and ends after the end tag of a record, and
+ * remembers the xml declaration and the start tags of every element around it so
+ * it can be read as a complete document of its own. Records that sit in a different
+ * parent element always start a new chunk.
+ *
+ * Only encodings that keep markup characters in single bytes (UTF-8, ISO-8859-x, ...)
+ * can be scanned. Content outside of the records is not part of any chunk.
+ *
+ * @author      Tanner Embry, Claresco Corp <tembry@claresco.com>
+ * @version     1.0
+ * @since       1.0
+ */
+
+public class RecordSplitter {
+
+	private static final int BUFFER_SIZE = 1 << 20;
+
+	private InputStream in;
+	private byte[] buffer = new byte[BUFFER_SIZE];
+	private int bufferPos = 0;
+	private int bufferLength = 0;
+	private long position = 0; //offset in the file of the next byte read
+
+	private byte[] recordName;
+	private long chunkSize;
+
+	private ByteArrayOutputStream capture = new ByteArrayOutputStream(); //collects the raw bytes of the prologue and of start tags outside of records
+	private byte[] prologue;
+	private int terminator; //the byte that ended the last name read
+
+	private List<byte[]> openNames = new ArrayList<>(); //elements open around the current position (outside of records)
+	private List<byte[]> openTags = new ArrayList<>(); //raw start tags of those elements
+	private int container = 0; //changes every time an element outside of the records opens or closes
+	private int recordDepth = 0; //depth inside the current record (0 when outside of a record)
+
+	private long chunkStart = -1;
+	private long chunkEnd;
+	private int chunkContainer;
+	private int chunkRecords;
+	private byte[] chunkPrefix;
+	private byte[] chunkSuffix;
+	private int chunkIndex = 0;
+	private ArrayDeque<RecordChunk> ready = new ArrayDeque<>();
+
+	/**
+	 * Constructor for the RecordSplitter object
+	 * @param xmlFile The path to the xml file to split
+	 * @param recordElement The name of the record elements
+	 * @param chunkSize The number of bytes of records after which a chunk is cut
+	 * @throws IOException if the file could not be opened
+	 */
+	public RecordSplitter(String xmlFile, String recordElement, long chunkSize) throws IOException {
+		this.in = new FileInputStream(xmlFile);
+		this.recordName = recordElement.getBytes(StandardCharsets.UTF_8);
+		this.chunkSize = Math.max(1, chunkSize);
+	}
+
+	/**
+	 * Returns whether or not the file starts in an encoding that can be scanned byte by byte
+	 * (UTF-16 and UTF-32 files can not be split, and neither can compressed files)
+	 * @param xmlFile The path to the xml file
+	 * @return true if the file can be split
+	 * @throws IOException if the file could not be read
+	 */
+	public static boolean canSplit(String xmlFile) throws IOException {
+		byte[] start = new byte[2];
+		int read;
+		try(InputStream in = new FileInputStream(xmlFile)){
+			read = in.read(start);
+		}
+		if(read < 2)
+			return false;
+		boolean gzip = (start[0] & 0xFF) == 0x1F && (start[1] & 0xFF) == 0x8B;
+		return !gzip && start[0] != 0 && start[1] != 0 && (start[0] & 0xFF) != 0xFE && (start[0] & 0xFF) != 0xFF;
+	}
+
+	/**
+	 * Scans the file until the next chunk is complete
+	 * @return the next chunk (null once the end of the file is reached)
+	 * @throws IOException if the file could not be read or ends inside of markup
+	 */
+	public RecordChunk next() throws IOException {
+		while(ready.isEmpty()){
+			if(!this.skipToMarkup()){
+				this.finishChunk();
+				break;
+			}
+			this.readMarkup(position - 1);
+		}
+		return ready.poll();
+	}
+
+	/**
+	 * Closes the file
+	 */
+	public void close(){
+		try { in.close(); } catch (IOException e) { e.printStackTrace(); }
+	}
+
+	/**
+	 * Reads everything after a '<' up to the matching '>'
+	 */
+	private void readMarkup(long tagStart) throws IOException {
+		int b = this.read();
+		if(b == '!'){
+			this.readDeclaration();
+		}
+		else if(b == '?'){
+			this.skipPast('?', '>');
+		}
+		else if(b == '/'){
+			this.readName(this.read());
+			this.readTag(terminator);
+			this.endElement();
+		}
+		else if(b != -1){
+			this.startElement(tagStart, b);
+		}
+	}
+
+	private void startElement(long tagStart, int first) throws IOException {
+		boolean outside = (recordDepth == 0);
+		if(outside){
+			if(prologue == null){
+				//everything before the root element ('<' and the first name byte were already captured)
+				byte[] captured = capture.toByteArray();
+				prologue = Arrays.copyOf(captured, captured.length - 2);
+			}
+			capture = new ByteArrayOutputStream();
+			capture.write('<');
+			capture.write(first);
+		}
+
+		byte[] name = this.readName(first);
+		boolean empty = this.readTag(terminator);
+
+		if(!outside){
+			if(!empty)
+				recordDepth++;
+			return;
+		}
+
+		byte[] rawTag = capture.toByteArray();
+		capture = null;
+
+		if(Arrays.equals(name, recordName)){
+			this.startRecord(tagStart);
+			if(empty)
+				this.endRecord();
+			else
+				recordDepth = 1;
+		}
+		else if(!empty){
+			openNames.add(name);
+			openTags.add(rawTag);
+			container++;
+		}
+	}
+
+	private void endElement(){
+		if(recordDepth > 0){
+			if(--recordDepth == 0)
+				this.endRecord();
+		}
+		else if(!openNames.isEmpty()){
+			openNames.remove(openNames.size() - 1);
+			openTags.remove(openTags.size() - 1);
+			container++;
+		}
+	}
+
+	private void startRecord(long tagStart){
+		if(chunkStart >= 0 && chunkContainer != container)
+			this.finishChunk();
+
+		if(chunkStart < 0){
+			chunkStart = tagStart;
+			chunkContainer = container;
+			chunkRecords = 0;
+
+			ByteArrayOutputStream prefix = new ByteArrayOutputStream();
+			prefix.write(prologue, 0, prologue.length);
+			for(byte[] tag : openTags)
+				prefix.write(tag, 0, tag.length);
+			chunkPrefix = prefix.toByteArray();
+
+			ByteArrayOutputStream suffix = new ByteArrayOutputStream();
+			for(int i = openNames.size() - 1; i >= 0; i--){
+				suffix.write('<');
+				suffix.write('/');
+				suffix.write(openNames.get(i), 0, openNames.get(i).length);
+				suffix.write('>');
+			}
+			chunkSuffix = suffix.toByteArray();
+		}
+	}
+
+	private void endRecord(){
+		chunkEnd = position;
+		chunkRecords++;
+		if(chunkEnd - chunkStart >= chunkSize)
+			this.finishChunk();
+	}
+
+	private void finishChunk(){
+		if(chunkStart < 0)
+			return;
+		ready.add(new RecordChunk(chunkIndex++, chunkStart, chunkEnd, chunkRecords, chunkPrefix, chunkSuffix));
+		chunkStart = -1;
+	}
+
+	/**
+	 * Skips a comment, CDATA section or document type declaration (after "<!")
+	 */
+	private void readDeclaration() throws IOException {
+		int b = this.read();
+		if(b == '-'){
+			this.read();
+			this.skipPast('-', '-', '>');
+		}
+		else if(b == '['){
+			this.skipPast(']', ']', '>');
+		}
+		else{
+			//document type declaration, which can contain an internal subset in brackets
+			int brackets = 0;
+			int quote = 0;
+			while(b != -1){
+				if(quote != 0){
+					if(b == quote)
+						quote = 0;
+				}
+				else if(b == '"' || b == '\'')
+					quote = b;
+				else if(b == '[')
+					brackets++;
+				else if(b == ']')
+					brackets--;
+				else if(b == '>' && brackets == 0)
+					return;
+				b = this.read();
+			}
+			throw new IOException("The xml file ended inside of a declaration.");
+		}
+	}
+
+	/**
+	 * Reads an element name starting with the provided byte. The byte that ends the name is kept in terminator.
+	 */
+	private byte[] readName(int first) throws IOException {
+		byte[] name = new byte[16];
+		int length = 0;
+		int b = first;
+		while(b != -1 && b != '>' && b != '/' && b != ' ' && b != '\t' && b != '\n' && b != '\r'){
+			if(length == name.length)
+				name = Arrays.copyOf(name, length * 2);
+			name[length++] = (byte) b;
+			b = this.read();
+		}
+		terminator = b;
+		return Arrays.copyOf(name, length);
+	}
+
+	/**
+	 * Reads the rest of a tag up to and including '>' (attribute values may contain '>')
+	 * @return true if the tag closes itself (e.g. <book id="1"/>)
+	 */
+	private boolean readTag(int b) throws IOException {
+		int quote = 0;
+		int previous = 0;
+		while(b != -1){
+			if(quote != 0){
+				if(b == quote)
+					quote = 0;
+			}
+			else if(b == '"' || b == '\'')
+				quote = b;
+			else if(b == '>')
+				return previous == '/';
+			previous = b;
+			b = this.read();
+		}
+		throw new IOException("The xml file ended inside of a tag.");
+	}
+
+	/**
+	 * Reads up to and including the provided sequence of bytes
+	 */
+	private void skipPast(int... sequence) throws IOException {
+		int target = 0;
+		for(int b : sequence)
+			target = (target << 8) | b;
+		int mask = (sequence.length == 3) ? 0xFFFFFF : 0xFFFF;
+
+		int last = 0;
+		int b;
+		while((b = this.read()) != -1){
+			last = ((last << 8) | b) & mask;
+			if(last == target)
+				return;
+		}
+		throw new IOException("The xml file ended inside of markup.");
+	}
+
+	/**
+	 * Moves past the next '<' without looking at the bytes in between
+	 * @return false if the end of the file was reached
+	 */
+	private boolean skipToMarkup() throws IOException {
+		while(true){
+			if(bufferPos == bufferLength && !this.fill())
+				return false;
+
+			for(int i = bufferPos; i < bufferLength; i++){
+				if(buffer[i] == '<'){
+					this.consume(i + 1 - bufferPos);
+					return true;
+				}
+			}
+			this.consume(bufferLength - bufferPos);
+		}
+	}
+
+	private int read() throws IOException {
+		if(bufferPos == bufferLength && !this.fill())
+			return -1;
+		int b = buffer[bufferPos] & 0xFF;
+		this.consume(1);
+		return b;
+	}
+
+	private void consume(int count){
+		if(capture != null)
+			capture.write(buffer, bufferPos, count);
+		bufferPos += count;
+		position += count;
+	}
+
+	private boolean fill() throws IOException {
+		bufferLength = in.read(buffer);
+		bufferPos = 0;
+		if(bufferLength <= 0){
+			bufferLength = 0;
+			return false;
+		}
+		return true;
+	}
+}
@@ -0,0 +1,44 @@
+package com.tannerembry.xmlshredder.importer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Holds on to the rows of one chunk of a split xml file until every chunk before
+ * it has been written, so rows reach the database and spreadsheet in the same
+ * order they appear in the file.
+ *
+ * @author      Tanner Embry, Claresco Corp <tembry@claresco.com>
+ * @version     1.0
+ * @since       1.0
+ */
+
+public class RowBuffer implements RowSink {
+
+	private List<ImportRow> rows = new ArrayList<>();
+
+	@Override
+	public boolean accept(ImportRow row){
+		rows.add(row);
+		return true;
+	}
+
+	/**
+	 * Passes every held row (in the order they were accepted) on to another sink and empties the buffer
+	 * @param sink The sink the rows are written to
+	 */
+	public void writeTo(RowSink sink){
+		for(ImportRow row : rows){
+			sink.accept(row);
+		}
+		rows.clear();
+	}
+
+	/**
+	 * Returns the number of rows being held
+	 * @return the number of rows
+	 */
+	public int size(){
+		return rows.size();
+	}
+}
@@ -0,0 +1,21 @@
+package com.tannerembry.xmlshredder.importer;
+
+/**
+ * Receives the rows finished by a SAXImportHandler. The handler does not know
+ * whether a row is written right away or held back to be written later.
+ *
+ * @author      Tanner Embry, Claresco Corp <tembry@claresco.com>
+ * @version     1.0
+ * @since       1.0
+ */
+
+public interface RowSink {
+
+	/**
+	 * Writes (or holds on to) a finished row
+	 * @param row The finished row
+	 * @return true - the row was accepted
+	 * 		 false - the row could not be written
+	 */
+	public boolean accept(ImportRow row);
+}
@@ -0,0 +1,369 @@
+package com.tannerembry.xmlshredder.importer;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import com.tannerembry.xmlshredder.database.FingerprintStore;
+import com.tannerembry.xmlshredder.exporter.DelimitedExporter;
+import com.tannerembry.xmlshredder.exporter.RowExporter;
+import com.tannerembry.xmlshredder.exporter.SpreadsheetExporter;
+import com.tannerembry.xmlshredder.metrics.ImportMetrics;
+
+/**
+ * Sends every finished row to where the settings say it should go: it is printed
+ * to the console (if printqueries=true), written to the database (if upload=true)
+ * and added to the spreadsheet (if create=true). The number of rows written and
+ * failed is counted for the summary of the file.
+ *
+ * When a Checkpoint is provided, the number of committed rows is saved to it as the
+ * database commits (at most once a second), and a resumed import skips the rows that
+ * an earlier run already committed without printing, writing or exporting them.
+ *
+ * When a FingerprintStore is provided (delta mode), a row whose fingerprint matches
+ * the one stored for its key is unchanged since the last import and is skipped the
+ * same way. The fingerprint of a written row is only stored once the row is committed,
+ * so a row that is lost in a failed or interrupted import is written again next time.
+ * When rows are only exported, their fingerprints are stored once the export is written.
+ *
+ * @author      Tanner Embry, Claresco Corp <tembry@claresco.com>
+ * @version     1.0
+ * @since       1.0
+ */
+
+public class RowWriter implements RowSink {
+
+	private static final long CHECKPOINT_INTERVAL_MILLIS = 1000;
+
+	private DatabaseSink database;
+	private RowExporter exportSheet;
+	private ImporterSettings importerSettings;
+
+	private long rows = 0;
+	private long failedRows = 0;
+	private long unchangedRows = 0;
+
+	private Checkpoint checkpoint;
+	private long resumeRows = 0; //rows committed by an earlier run, which are skipped
+	private long skippedRows = 0;
+	private long savedRows = 0;
+	private long lastSave = 0;
+
+	private FingerprintStore fingerprints;
+	private HashMap<Long, long[]> pendingFingerprints = new HashMap<>(); //key -> {newest fingerprint, rows} of rows that are not committed yet
+	private long[] exportedFingerprints = new long[2 * 1024]; //key and fingerprint of every row exported without uploading
+	private int exportedRows = 0;
+
+	private long seenRows = 0; //rows after the skipped ones, written or not
+	private PendingRows pending = new PendingRows(); //rows handed to the database that are not committed yet
+	private long appliedRows = 0; //rows handed to the database that are known to be committed
+	private long databaseFailures = 0;
+
+	/**
+	 * Constructor for the RowWriter object
+	 * @param database Where rows are written into the database, a DatabaseWriter or a PartitionedWriter (null if not uploading)
+	 * @param importerSettings The settings that control printing, uploading and exporting
+	 * @param exportPath The path of the spreadsheet rows are exported into
+	 */
+	public RowWriter(DatabaseSink database, ImporterSettings importerSettings, String exportPath){
+		this.database = database;
+		this.importerSettings = importerSettings;
+
+		if(importerSettings.exportSpreadsheet()){
+			if(importerSettings.getSpreadsheetFormat().equals("csv"))
+				exportSheet = new DelimitedExporter(exportPath, ',');
+			else if(importerSettings.getSpreadsheetFormat().equals("tsv"))
+				exportSheet = new DelimitedExporter(exportPath, '\t');
+			else
+				exportSheet = new SpreadsheetExporter(exportPath, importerSettings.getSpreadsheetWindowSize());
+		}
+	}
+
+	/**
+	 * Inserts the row into the database (if upload=true in settings)
+	 * and into a spreadsheet (if exportSheet=true in settings)
+	 * @param row The finished row
+	 * @return true - the database insertion was successful (or the row was skipped)
+	 * 		 false - the database insertion failed
+	 */
+	@Override
+	public boolean accept(ImportRow row){
+		if(skippedRows < resumeRows){
+			skippedRows++;
+			return true;
+		}
+		long ordinal = seenRows++;
+
+		long key = 0;
+		long fingerprint = 0;
+		if(fingerprints != null){
+			key = FingerprintStore.keyHash(row);
+			fingerprint = FingerprintStore.fingerprint(row);
+			if(this.isUnchanged(key, fingerprint)){
+				unchangedRows++;
+				ImportMetrics.get().rowUnchanged();
+				this.saveCheckpoint(false);
+				return true;
+			}
+		}
+
+		if(importerSettings.printQueries()){
+			System.out.println(row.toString());
+		}
+
+		if(importerSettings.upload() && database != null){
+			if(checkpoint != null || fingerprints != null)
+				this.addPending(ordinal, key, fingerprint);
+
+			boolean written = database.accept(row);
+			this.updateCommitted();
+			this.saveCheckpoint(false);
+			if(!written){
+				failedRows++;
+				return false;
+			}
+		}
+		else if(fingerprints != null && exportSheet != null){
+			this.addExported(key, fingerprint);
+		}
+		else if(fingerprints != null){
+			this.storeFingerprint(key, fingerprint);
+		}
+
+		if(exportSheet != null){
+			exportSheet.insertValues(row.getInstruction(), row.getColumns(), row.getValues());
+			ImportMetrics.get().spreadsheetRowWritten();
+		}
+
+		rows++;
+		return true;
+	}
+
+	/**
+	 * Writes out the spreadsheet (if one is being exported) and stores the fingerprints of the
+	 * rows that were only exported. The database writer is closed by its owner.
+	 * @throws IOException if the spreadsheet could not be written
+	 */
+	public void close() throws IOException {
+		if(exportSheet != null){
+			RowExporter exporter = exportSheet;
+			exportSheet = null;
+			if(!exporter.export())
+				throw new IOException("The export could not be written completely.");
+			for(int i = 0; i < exportedRows; i++)
+				this.storeFingerprint(exportedFingerprints[i * 2], exportedFingerprints[i * 2 + 1]);
+			exportedRows = 0;
+		}
+	}
+
+	/**
+	 * Releases the spreadsheet without writing it out, unless close() already wrote it.
+	 * Called when the file failed, so the temporary files and open files of the export are not left behind.
+	 */
+	public void discard(){
+		if(exportSheet != null){
+			RowExporter exporter = exportSheet;
+			exportSheet = null;
+			exporter.discard();
+		}
+	}
+
+	/**
+	 * Saves the rows committed so far to the checkpoint and skips the rows an earlier run committed
+	 * @param checkpoint The checkpoint of the xml file
+	 * @param resumeRows The number of rows to skip (0 to import the whole file)
+	 */
+	public void setCheckpoint(Checkpoint checkpoint, long resumeRows){
+		this.checkpoint = checkpoint;
+		this.resumeRows = resumeRows;
+		this.savedRows = resumeRows;
+	}
+
+	/**
+	 * Skips rows that did not change since they were last written and stores the fingerprints of the rows that are written
+	 * @param fingerprints The store shared by every file of the import
+	 */
+	public void setFingerprints(FingerprintStore fingerprints){
+		this.fingerprints = fingerprints;
+	}
+
+	/**
+	 * Stores the fingerprints of the rows the database has committed since the last call.
+	 * If any row failed, the fingerprints of the rows waiting to be committed are dropped,
+	 * because the failed transaction may have rolled them back.
+	 */
+	public void updateCommitted(){
+		if(database == null)
+			return;
+		//the committed rows are read first, so a failure that happened before those commits is always seen
+		long committedRows = database.getCommittedRows();
+		long failures = database.getFailedRows();
+		if(failures != databaseFailures){
+			databaseFailures = failures;
+			pending.forgetFingerprints();
+			for(long[] newest : pendingFingerprints.values())
+				newest[0] = 0;
+		}
+
+		while(appliedRows < committedRows && !pending.isEmpty()){
+			long key = pending.firstKey();
+			long fingerprint = pending.firstFingerprint();
+			pending.remove();
+			appliedRows++;
+
+			if(fingerprints != null){
+				long[] newest = pendingFingerprints.get(key);
+				if(newest != null && --newest[1] == 0)
+					pendingFingerprints.remove(key);
+				if(fingerprint != 0)
+					this.storeFingerprint(key, fingerprint);
+			}
+		}
+	}
+
+	/**
+	 * Saves the number of committed rows to the checkpoint if it grew
+	 * @param force true to save right away, false to save at most once every CHECKPOINT_INTERVAL_MILLIS
+	 */
+	public void saveCheckpoint(boolean force){
+		if(checkpoint == null || database == null)
+			return;
+		long now = System.currentTimeMillis();
+		if(!force && now - lastSave < CHECKPOINT_INTERVAL_MILLIS)
+			return;
+
+		this.updateCommitted();
+		//every row before the first one that is not committed is either committed or unchanged
+		long committedRows = resumeRows + (pending.isEmpty() ? seenRows : pending.firstOrdinal());
+		if(committedRows > savedRows && checkpoint.save(committedRows))
+			savedRows = committedRows;
+		lastSave = now;
+	}
+
+	/**
+	 * Returns the number of rows skipped because an earlier run already committed them
+	 * @return skippedRows
+	 */
+	public long getSkippedRows(){
+		return skippedRows;
+	}
+
+	/**
+	 * Returns the number of rows skipped because they did not change since they were last written
+	 * @return unchangedRows
+	 */
+	public long getUnchangedRows(){
+		return unchangedRows;
+	}
+
+	/**
+	 * Returns the number of rows that were written successfully
+	 * @return rows
+	 */
+	public long getRows(){
+		return rows;
+	}
+
+	/**
+	 * Returns the number of rows that could not be written to the database
+	 * @return failedRows
+	 */
+	public long getFailedRows(){
+		return failedRows;
+	}
+
+	/**
+	 * Checks the fingerprint against the newest row of the key that is waiting to be committed,
+	 * or else against the store
+	 */
+	private boolean isUnchanged(long key, long fingerprint){
+		long[] newest = pendingFingerprints.get(key);
+		if(newest != null)
+			return newest[0] == fingerprint && fingerprint != 0;
+		return fingerprints.get(key) == fingerprint;
+	}
+
+	private void addPending(long ordinal, long key, long fingerprint){
+		pending.add(ordinal, key, fingerprint);
+		if(fingerprints != null){
+			long[] newest = pendingFingerprints.get(key);
+			if(newest == null){
+				newest = new long[2];
+				pendingFingerprints.put(key, newest);
+			}
+			newest[0] = fingerprint;
+			newest[1]++;
+		}
+	}
+
+	private void addExported(long key, long fingerprint){
+		if((exportedRows + 1) * 2 > exportedFingerprints.length)
+			exportedFingerprints = Arrays.copyOf(exportedFingerprints, exportedFingerprints.length * 2);
+		exportedFingerprints[exportedRows * 2] = key;
+		exportedFingerprints[exportedRows * 2 + 1] = fingerprint;
+		exportedRows++;
+	}
+
+	private void storeFingerprint(long key, long fingerprint){
+		try {
+			fingerprints.put(key, fingerprint);
+		} catch (IOException e){
+			//the row is simply written again next time
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * A queue of (ordinal, key, fingerprint) entries kept in one growing ring of longs
+	 */
+	private static class PendingRows {
+
+		private long[] entries = new long[3 * 1024];
+		private int head = 0;
+		private int size = 0;
+
+		private boolean isEmpty(){
+			return size == 0;
+		}
+
+		private void add(long ordinal, long key, long fingerprint){
+			if((size + 1) * 3 > entries.length){
+				long[] larger = new long[entries.length * 2];
+				for(int i = 0; i < size * 3; i++)
+					larger[i] = entries[(head + i) % entries.length];
+				entries = larger;
+				head = 0;
+			}
+			int tail = (head + size * 3) % entries.length;
+			entries[tail] = ordinal;
+			entries[tail + 1] = key;
+			entries[tail + 2] = fingerprint;
+			size++;
+		}
+
+		private long firstOrdinal(){
+			return entries[head];
+		}
+
+		private long firstKey(){
+			return entries[head + 1];
+		}
+
+		private long firstFingerprint(){
+			return entries[head + 2];
+		}
+
+		private void remove(){
+			head = (head + 3) % entries.length;
+			size--;
+		}
+
+		/**
+		 * Drops the fingerprints of every entry so none of them are stored
+		 */
+		private void forgetFingerprints(){
+			for(int i = 0; i < size; i++)
+				entries[(head + i * 3 + 2) % entries.length] = 0;
+		}
+	}
+}
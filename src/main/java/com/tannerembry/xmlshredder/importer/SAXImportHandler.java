@@ -1,15 +1,13 @@
 package com.tannerembry.xmlshredder.importer;
 
-import java.sql.Connection;
-
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 
 import org.xml.sax.Attributes;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.DefaultHandler;
 
-import com.tannerembry.xmlshredder.exporter.SpreadsheetExporter;
+import com.tannerembry.xmlshredder.metrics.ImportMetrics;
 
 /**
  * This class handles the actual shredding of the data from the xml file
@@ -22,139 +20,192 @@ import com.tannerembry.xmlshredder.exporter.SpreadsheetExporter;
 
 public class SAXImportHandler extends DefaultHandler {
 
+	private static final int ELEMENT_COUNT_INTERVAL = 4096;
+
 	private ImportInstructionManager importInstructionManager;
-	private Connection connection;
+	private InstructionMatcher matcher;
+	private RowSink sink;
 
-	private ArrayList<ImportInstruction> importInstructions;
-	private ImportInstruction importInstruction;
+	private HashMap<String, ImportRecord> records; //the record being collected for each parent (key is the hash key)
 
-	private HashMap<String, ImportEntry> parentEntries;
+	private ElementPath elementPath = new ElementPath();
+	private int[] states = new int[64]; //matcher state of each open element (index is depth)
 
-	private boolean readValue = false;
+	private char[] text = new char[256]; //text of the element being read, reused for every value
+	private int textLength = 0;
+	private int textDepth = 0; //depth of the element whose text is being read (0 when no text is being read)
+	private int maxValueLength;
 
-	private String fullPath = "";
-	private int depth = 0;
-	private ImporterSettings importerSettings;
-	private SpreadsheetExporter exportSheet;
+	private int elements = 0; //elements not added to the ImportMetrics yet
 
 	/**
 	 * Constructor for the SAXImportHandler object
 	 * @param importInstructionManager The instruction manager that the handler will be referring to
-	 * @param connection The active connection to the database
-	 * @param printQueries Controls whether or not the executed queries are printed to the console
+	 * @param sink The sink every finished row is passed to
 	 */
-	public SAXImportHandler(ImportInstructionManager importInstructionManager, Connection connection, ImporterSettings importerSettings){
-		this.importInstructionManager = importInstructionManager;
-		this.connection = connection;
-		this.importerSettings = importerSettings;
+	public SAXImportHandler(ImportInstructionManager importInstructionManager, RowSink sink){
+		this(importInstructionManager, sink, 0);
+	}
 
-		parentEntries = new HashMap<String, ImportEntry>();
+	/**
+	 * Constructor for the SAXImportHandler object
+	 * @param importInstructionManager The instruction manager that the handler will be referring to
+	 * @param sink The sink every finished row is passed to
+	 * @param maxValueLength The maximum number of characters kept of an element value (0 keeps the whole value)
+	 */
+	public SAXImportHandler(ImportInstructionManager importInstructionManager, RowSink sink, int maxValueLength){
+		this.importInstructionManager = importInstructionManager;
+		this.matcher = importInstructionManager.getMatcher();
+		this.states[0] = matcher.getRootState();
+		this.sink = sink;
+		this.maxValueLength = (maxValueLength > 0) ? maxValueLength : Integer.MAX_VALUE;
 
-		if(importerSettings.exportSpreadsheet())
-			exportSheet = new SpreadsheetExporter(importerSettings.getExportSpreadsheetPath());
+		records = new HashMap<String, ImportRecord>();
 	}
 
 	/**
 	 * This is called when the DefaultHandler encounters a new element in the xml file.
 	 * The element will be checked against any import instructions and if one is a match
-	 * it will be inserted into the parentEntries map as either a parent or a child.
+	 * its value will be added to the record of its parent instruction as either a parent or a child.
+	 * Values of attributes are handled right away. If an instruction reads the text of
+	 * the element, the text is collected until the element ends (or its first child starts).
 	 */
 	@Override
 	public void startElement(String uri, String localName,String qName,
 			Attributes attributes) throws SAXException {
 
-		depth++;
-		if(fullPath.isEmpty())
-			fullPath = qName;
-		else
-			fullPath += "."+qName;
+		//elements are counted in groups so the shared counter is not touched for every element
+		if(++elements == ELEMENT_COUNT_INTERVAL){
+			ImportMetrics.get().addElements(elements);
+			elements = 0;
+		}
 
-		importInstruction = null;
+		//the text of the parent element ends where its first child starts
+		if(textDepth > 0)
+			this.handleText();
 
-		importInstructions = importInstructionManager.getInstructions(qName, fullPath);
+		elementPath.push(qName);
+		int depth = elementPath.getDepth();
 
-		for(ImportInstruction importInstruction : importInstructions){
-			this.importInstruction = importInstruction;
-			String value = null;
-			if(importInstruction.getXAttribute() != null && !importInstruction.getXAttribute().isEmpty()){
-				value = attributes.getValue(importInstruction.getXAttribute());
+		if(depth == states.length)
+			states = Arrays.copyOf(states, depth * 2);
+		states[depth] = matcher.nextState(states[depth - 1], qName);
 
-				handleValue(value);
+		for(ImportInstruction importInstruction : matcher.getInstructions(states[depth])){
+			if(importInstruction.getXAttribute() != null && !importInstruction.getXAttribute().isEmpty()){
+				handleValue(importInstruction, attributes.getValue(importInstruction.getXAttribute()));
 			}
 			else{
-				//read value using the SAX characters() method which will be called below when this value is set
-				readValue = true;
+				//read value using the SAX characters() method until the element ends
+				textDepth = depth;
+				textLength = 0;
 			}
 		}
 	}
 
 	/**
 	 * This is called when the DefaultHandler reaches the end of an element in the xml file. 
-	 * The full path of the current location and the current depth will be updated.
+	 * The path of the current location (and with it the current depth) will be updated.
 	 */
 	@Override
 	public void endElement(String uri, String localName,
 			String qName) throws SAXException {
 
-		if(fullPath.contains("."))
-			fullPath = fullPath.substring(0, fullPath.lastIndexOf("."));
-		depth--;
+		if(textDepth == elementPath.getDepth())
+			this.handleText();
+
+		elementPath.pop();
 	}
 
 	/**
 	 * This is called when the DefaultHandler attempts to read the string contained within an xml tag section. 
-	 * If xAttributes of the instruction was null or empty, this method will read the value of the current element.
+	 * If xAttributes of the instruction was null or empty, the text is added to the value of the current element.
+	 * A value can arrive in several calls (e.g. around entities or at the end of the parser's buffer).
 	 */
 	@Override
 	public void characters(char ch[], int start, int length) throws SAXException {
 
-		if (readValue) {
-			String value = new String(ch, start, length);
-			handleValue(value);
+		if(textDepth > 0){
+			length = Math.min(length, maxValueLength - textLength);
+			if(length <= 0)
+				return;
+			if(textLength + length > text.length)
+				text = Arrays.copyOf(text, Math.max(text.length * 2, textLength + length));
+			System.arraycopy(ch, start, text, textLength, length);
+			textLength += length;
 		}
 	}
 
 	/**
-	 * This method handles the value that was collected in regards to the current instruction
-	 * An ImportEntry will be created from the value and current instruction and stored somewhere
-	 * in the parentEntries map. The entry will either be inserted into the database and overwritten
-	 * or stored until it is ready to be inserted in to the database.
+	 * Hands the collected text to every instruction of the element that reads its text
 	 */
-	private void handleValue(String value){
-
-		if(value != null){
-
-			ImportEntry entry = new ImportEntry(importInstruction.getTable(), importInstruction.getField(), value);
-
-			String hashKey = importInstruction.getHashKey();
-
-			ImportEntry parentEntry = parentEntries.get(hashKey);
-			if(parentEntry == null){
-				parentEntry = entry;
-				parentEntries.put(hashKey, parentEntry); 
-			}
+	private void handleText(){
+		int length = textLength;
+		//do not cut a character in half when the value was capped
+		if(length == maxValueLength && length > 0 && Character.isHighSurrogate(text[length - 1]))
+			length--;
+		String value = new String(text, 0, length);
+
+		for(ImportInstruction importInstruction : matcher.getInstructions(states[textDepth])){
+			if(importInstruction.getXAttribute() == null || importInstruction.getXAttribute().isEmpty())
+				handleValue(importInstruction, value);
+		}
+		textDepth = 0;
+		textLength = 0;
+	}
 
-			//the entry is a parent and is different than the previous parent
-			if(importInstruction.getParent() == null && !parentEntry.equals(entry)){
-				//insert the entry and update the current parent
-				parentEntry.export(connection, importInstruction, exportSheet, importerSettings);
-				parentEntry = entry;
-				parentEntries.put(hashKey, parentEntry);
-			}
-			//the entry is a child
-			else if(importInstruction.getParent() != null){
-				if(parentEntry.hasChild(entry)){
-					parentEntry.export(connection, importInstruction, exportSheet, importerSettings);
-					parentEntry.clearChildren();
-					handleValue(value);
-				}
-				else{
-					parentEntry.addChild(entry);
-				}
-			}
+	/**
+	 * This method handles the value that was collected in regards to the provided instruction.
+	 * A parent value starts a new record (the previous record of the parent is inserted into
+	 * the database first). A child value fills its slot in the record of its parent, and if
+	 * the slot is already filled the record is inserted first and the value starts the next
+	 * row with the same key.
+	 */
+	private void handleValue(ImportInstruction importInstruction, String value){
+
+		if(value == null)
+			return;
+
+		String hashKey = importInstruction.getHashKey();
+		ImportRecord record = records.get(hashKey);
+		if(record == null){
+			ImportInstruction parent = (importInstruction.getParent() == null) ? importInstruction : importInstruction.getParent();
+			record = new ImportRecord(parent.getSlots());
+			record.reset(importInstruction.getTable(), importInstruction.getField(), value);
+			records.put(hashKey, record);
+		}
+		//the entry is a parent and is different than the previous parent
+		else if(importInstruction.getParent() == null){
+			//insert the record and start the next one
+			record.export(sink, importInstruction);
+			record.reset(importInstruction.getTable(), importInstruction.getField(), value);
+		}
+		record.setLastInstruction(importInstruction);
+
+		//the entry is a child
+		if(importInstruction.getParent() != null){
+			int slot = importInstruction.getSlot();
+			if(record.hasField(slot))
+				record.export(sink, importInstruction);
+			record.set(slot, importInstruction.getField(), value);
 		}
+	}
+
+	/**
+	 * Returns whether or not the handler is collecting the text of a matched element
+	 * (engines that pull events skip reading text when it is not)
+	 * @return true if text is being collected
+	 */
+	public boolean isReadingValue(){
+		return textDepth > 0;
+	}
 
-		readValue = false;
+	/**
+	 * Returns the dotted path of the element currently being read (e.g. catalog.book.author)
+	 * @return the current path
+	 */
+	public String getCurrentPath(){
+		return elementPath.toString();
 	}
 
 	/**
@@ -163,10 +214,12 @@ public class SAXImportHandler extends DefaultHandler {
 	 * this is called at the very end of parsing the xml file from ImporterTask.
 	 */
 	public void processFinalEntries(){
-		for(ImportEntry parent : parentEntries.values()){
-			parent.export(connection, importInstruction, exportSheet, importerSettings);
+		for(ImportRecord record : records.values()){
+			record.export(sink, record.getLastInstruction());
 		}
-		if(importerSettings.exportSpreadsheet())
-			exportSheet.export();
+		records.clear();
+
+		ImportMetrics.get().addElements(elements);
+		elements = 0;
 	}
 }
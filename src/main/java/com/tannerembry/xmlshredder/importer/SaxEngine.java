@@ -0,0 +1,37 @@
+package com.tannerembry.xmlshredder.importer;
+
+import java.io.IOException;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+/**
+ * Parses the document with a SAX parser, which pushes every element and every
+ * piece of text to the handler.
+ *
+ * @author      Tanner Embry, Claresco Corp <tembry@claresco.com>
+ * @version     1.0
+ * @since       1.0
+ */
+
+public class SaxEngine implements ParserEngine {
+
+	private SAXParserFactory factory = SAXParserFactory.newInstance();
+
+	@Override
+	public void parse(InputSource source, SAXImportHandler handler) throws IOException, SAXException {
+		SAXParser saxParser;
+		try {
+			synchronized(factory){
+				saxParser = factory.newSAXParser();
+			}
+		} catch (ParserConfigurationException e){
+			throw new SAXException(e);
+		}
+		saxParser.parse(source, handler);
+	}
+}
@@ -0,0 +1,172 @@
+package com.tannerembry.xmlshredder.importer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+
+/**
+ * Parses the document with a StAX stream reader, pulling one event at a time.
+ * Text is only taken from the reader while the handler is waiting for the value
+ * of a matched element, and attributes are only looked up when an instruction
+ * asks for one, so most of the document is stepped over without building strings.
+ *
+ * @author      Tanner Embry, Claresco Corp <tembry@claresco.com>
+ * @version     1.0
+ * @since       1.0
+ */
+
+public class StaxEngine implements ParserEngine {
+
+	private XMLInputFactory factory = XMLInputFactory.newInstance();
+
+	@Override
+	public void parse(InputSource source, SAXImportHandler handler) throws IOException, SAXException {
+		InputStream in = source.getByteStream();
+		boolean opened = false;
+		if(in == null){
+			in = new URL(source.getSystemId()).openStream();
+			opened = true;
+		}
+
+		XMLStreamReader reader = null;
+		try {
+			synchronized(factory){
+				reader = factory.createXMLStreamReader(source.getSystemId(), in);
+			}
+			ReaderAttributes attributes = new ReaderAttributes(reader);
+
+			while(reader.hasNext()){
+				switch(reader.next()){
+				case XMLStreamConstants.START_ELEMENT:
+					handler.startElement(reader.getNamespaceURI(), reader.getLocalName(), getQName(reader.getPrefix(), reader.getLocalName()), attributes);
+					break;
+				case XMLStreamConstants.END_ELEMENT:
+					handler.endElement(reader.getNamespaceURI(), reader.getLocalName(), getQName(reader.getPrefix(), reader.getLocalName()));
+					break;
+				case XMLStreamConstants.CHARACTERS:
+				case XMLStreamConstants.CDATA:
+					if(handler.isReadingValue())
+						handler.characters(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+					break;
+				default:
+					break;
+				}
+			}
+		} catch (XMLStreamException e){
+			throw new SAXException(e);
+		} finally {
+			if(reader != null){
+				try { reader.close(); } catch (XMLStreamException e) { e.printStackTrace(); }
+			}
+			if(opened)
+				in.close();
+		}
+	}
+
+	/**
+	 * Returns the name as it is written in the document (e.g. ns:book), which is the name the SAX engine reports
+	 */
+	private static String getQName(String prefix, String localName){
+		if(prefix == null || prefix.isEmpty())
+			return localName;
+		return prefix+":"+localName;
+	}
+
+	/**
+	 * The attributes of the current start element, read straight from the stream reader
+	 * (only looking up an attribute by its name is supported, which is all the handler does)
+	 */
+	private static class ReaderAttributes implements Attributes {
+
+		private XMLStreamReader reader;
+
+		public ReaderAttributes(XMLStreamReader reader){
+			this.reader = reader;
+		}
+
+		@Override
+		public int getLength(){
+			return reader.getAttributeCount();
+		}
+
+		@Override
+		public String getURI(int index){
+			return reader.getAttributeNamespace(index);
+		}
+
+		@Override
+		public String getLocalName(int index){
+			return reader.getAttributeLocalName(index);
+		}
+
+		@Override
+		public String getQName(int index){
+			return StaxEngine.getQName(reader.getAttributePrefix(index), reader.getAttributeLocalName(index));
+		}
+
+		@Override
+		public String getType(int index){
+			return reader.getAttributeType(index);
+		}
+
+		@Override
+		public String getValue(int index){
+			return reader.getAttributeValue(index);
+		}
+
+		@Override
+		public int getIndex(String uri, String localName){
+			for(int i = 0; i < reader.getAttributeCount(); i++){
+				if(localName.equals(reader.getAttributeLocalName(i)) && uri.equals(nullToEmpty(reader.getAttributeNamespace(i))))
+					return i;
+			}
+			return -1;
+		}
+
+		@Override
+		public int getIndex(String qName){
+			for(int i = 0; i < reader.getAttributeCount(); i++){
+				if(qName.equals(this.getQName(i)))
+					return i;
+			}
+			return -1;
+		}
+
+		@Override
+		public String getType(String uri, String localName){
+			int index = this.getIndex(uri, localName);
+			return (index == -1) ? null : this.getType(index);
+		}
+
+		@Override
+		public String getType(String qName){
+			int index = this.getIndex(qName);
+			return (index == -1) ? null : this.getType(index);
+		}
+
+		@Override
+		public String getValue(String uri, String localName){
+			int index = this.getIndex(uri, localName);
+			return (index == -1) ? null : this.getValue(index);
+		}
+
+		@Override
+		public String getValue(String qName){
+			int index = this.getIndex(qName);
+			return (index == -1) ? null : this.getValue(index);
+		}
+
+		private static String nullToEmpty(String value){
+			return (value == null) ? "" : value;
+		}
+	}
+}
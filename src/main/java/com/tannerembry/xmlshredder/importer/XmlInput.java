@@ -0,0 +1,129 @@
+package com.tannerembry.xmlshredder.importer;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+import org.xml.sax.InputSource;
+
+import com.tannerembry.xmlshredder.metrics.ImportMetrics;
+
+/**
+ * Opens the data file for the parser. The path - reads the data from standard input,
+ * and gzip compressed data (found by its magic bytes, not the file name) is
+ * decompressed on the fly, so a compressed feed never has to be written to disk.
+ * Compressed data and standard input are read ahead on their own thread, so
+ * decompressing and waiting on the pipe overlap with parsing.
+ *
+ * @author      Tanner Embry, Claresco Corp <tembry@claresco.com>
+ * @version     1.0
+ * @since       1.0
+ */
+
+public class XmlInput {
+
+	public static final String STDIN = "-";
+
+	private static final int READ_AHEAD_BUFFER_SIZE = 1 << 20;
+	private static final int READ_AHEAD_BUFFERS = 4;
+	private static final int GZIP_BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * Opens the data file (or standard input) as an InputSource for a ParserEngine
+	 * @param xmlFile The path to the xml file, or - for standard input
+	 * @return the source (its byte stream must be closed by the caller)
+	 * @throws IOException if the file could not be opened
+	 */
+	public static InputSource open(String xmlFile) throws IOException {
+		InputSource source = new InputSource(openStream(xmlFile));
+		if(!isStdin(xmlFile))
+			source.setSystemId(new File(xmlFile).toURI().toString());
+		return source;
+	}
+
+	/**
+	 * Opens the data file (or standard input) as a stream of uncompressed xml
+	 * @param xmlFile The path to the xml file, or - for standard input
+	 * @return the stream
+	 * @throws IOException if the file could not be opened
+	 */
+	public static InputStream openStream(String xmlFile) throws IOException {
+		boolean stdin = isStdin(xmlFile);
+		InputStream in = stdin ? new FilterInputStream(System.in){
+			@Override
+			public void close(){
+				//standard input stays open for the rest of the program
+			}
+		} : new FileInputStream(xmlFile);
+
+		BufferedInputStream buffered = new BufferedInputStream(new CountingInputStream(in), GZIP_BUFFER_SIZE);
+		boolean compressed = isGzip(buffered);
+
+		InputStream xml = compressed ? new GZIPInputStream(buffered, GZIP_BUFFER_SIZE) : buffered;
+		if(compressed || stdin)
+			xml = new ReadAheadInputStream(xml, READ_AHEAD_BUFFER_SIZE, READ_AHEAD_BUFFERS);
+		return xml;
+	}
+
+	/**
+	 * Returns whether or not the path means standard input
+	 * @param xmlFile The path to the xml file
+	 * @return true for -
+	 */
+	public static boolean isStdin(String xmlFile){
+		return STDIN.equals(xmlFile);
+	}
+
+	/**
+	 * Returns whether or not the file is gzip compressed
+	 * @param xmlFile The path to the file
+	 * @return true if the file starts with the gzip magic bytes
+	 * @throws IOException if the file could not be read
+	 */
+	public static boolean isGzip(String xmlFile) throws IOException {
+		try(BufferedInputStream in = new BufferedInputStream(new FileInputStream(xmlFile), 2)){
+			return isGzip(in);
+		}
+	}
+
+	/**
+	 * Looks at the first two bytes of the stream without consuming them
+	 */
+	private static boolean isGzip(BufferedInputStream in) throws IOException {
+		in.mark(2);
+		int first = in.read();
+		int second = in.read();
+		in.reset();
+		return first == (GZIPInputStream.GZIP_MAGIC & 0xFF) && second == (GZIPInputStream.GZIP_MAGIC >> 8);
+	}
+
+	/**
+	 * Adds the bytes read from the file (before decompressing) to the ImportMetrics
+	 */
+	private static class CountingInputStream extends FilterInputStream {
+
+		public CountingInputStream(InputStream in){
+			super(in);
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = super.read();
+			if(b != -1)
+				ImportMetrics.get().addBytesRead(1);
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int read = super.read(b, off, len);
+			if(read > 0)
+				ImportMetrics.get().addBytesRead(read);
+			return read;
+		}
+	}
+}
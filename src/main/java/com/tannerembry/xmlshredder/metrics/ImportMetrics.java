@@ -0,0 +1,274 @@
+package com.tannerembry.xmlshredder.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.tannerembry.xmlshredder.importer.ImportInstruction;
+
+/**
+ * The counters of everything the program does, shared by every thread of the import.
+ * Every counter is a LongAdder (striped across threads), so counting stays cheap enough
+ * to always be on. The parsers add their elements in groups instead of one at a time.
+ *
+ * The counters are published as an MXBean once register() is called, and the
+ * MetricsReporter can print them every few seconds.
+ *
+ * @author      Tanner Embry, Claresco Corp <tembry@claresco.com>
+ * @version     1.0
+ * @since       1.0
+ */
+
+public class ImportMetrics implements ImportMetricsMXBean {
+
+	public static final String OBJECT_NAME = "com.tannerembry.xmlshredder:type=ImportMetrics";
+
+	private static final ImportMetrics INSTANCE = new ImportMetrics();
+
+	private LongAdder elementsParsed = new LongAdder();
+	private LongAdder bytesRead = new LongAdder();
+	private LongAdder rowsUnchanged = new LongAdder();
+	private LongAdder spreadsheetRows = new LongAdder();
+	private ConcurrentHashMap<ImportInstruction, LongAdder> recordsAssembled = new ConcurrentHashMap<>();
+	private ConcurrentHashMap<String, TableCounters> tables = new ConcurrentHashMap<>();
+
+	private LatencyHistogram lookupLatency = new LatencyHistogram();
+	private LatencyHistogram writeLatency = new LatencyHistogram();
+	private LatencyHistogram commitLatency = new LatencyHistogram();
+
+	private ImportMetrics(){
+	}
+
+	/**
+	 * Returns the counters of the program
+	 * @return the shared ImportMetrics
+	 */
+	public static ImportMetrics get(){
+		return INSTANCE;
+	}
+
+	/**
+	 * Publishes the counters over JMX (does nothing if they are already published)
+	 */
+	public void register(){
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(OBJECT_NAME);
+			if(!server.isRegistered(name))
+				server.registerMBean(this, name);
+		} catch (JMException e){
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Adds a group of elements read by a parser
+	 * @param elements The number of elements
+	 */
+	public void addElements(long elements){
+		elementsParsed.add(elements);
+	}
+
+	/**
+	 * Adds bytes read from a data file
+	 * @param bytes The number of bytes
+	 */
+	public void addBytesRead(long bytes){
+		bytesRead.add(bytes);
+	}
+
+	/**
+	 * Counts a record finished for the parent mapping of the instruction
+	 * @param instruction The instruction that completed the record
+	 */
+	public void recordAssembled(ImportInstruction instruction){
+		ImportInstruction parent = (instruction.getParent() == null) ? instruction : instruction.getParent();
+		LongAdder records = recordsAssembled.get(parent);
+		if(records == null)
+			records = recordsAssembled.computeIfAbsent(parent, key -> new LongAdder());
+		records.increment();
+	}
+
+	/**
+	 * Counts a row inserted into the table
+	 * @param table The table
+	 */
+	public void rowInserted(String table){
+		this.getTable(table).inserted.increment();
+	}
+
+	/**
+	 * Counts a row updated in the table
+	 * @param table The table
+	 */
+	public void rowUpdated(String table){
+		this.getTable(table).updated.increment();
+	}
+
+	/**
+	 * Counts a row written into the table with an insert-or-update statement
+	 * @param table The table
+	 */
+	public void rowUpserted(String table){
+		this.getTable(table).upserted.increment();
+	}
+
+	/**
+	 * Counts a row that could not be written into the table
+	 * @param table The table
+	 */
+	public void rowFailed(String table){
+		this.getTable(table).failed.increment();
+	}
+
+	/**
+	 * Counts a row skipped because it did not change since the last import
+	 */
+	public void rowUnchanged(){
+		rowsUnchanged.increment();
+	}
+
+	/**
+	 * Counts a row added to a spreadsheet
+	 */
+	public void spreadsheetRowWritten(){
+		spreadsheetRows.increment();
+	}
+
+	/**
+	 * Returns the times of the selects that check which keys exist
+	 * @return lookupLatency
+	 */
+	public LatencyHistogram getLookupLatency(){
+		return lookupLatency;
+	}
+
+	/**
+	 * Returns the times of the inserts, updates and batches
+	 * @return writeLatency
+	 */
+	public LatencyHistogram getWriteLatency(){
+		return writeLatency;
+	}
+
+	/**
+	 * Returns the times of the commits
+	 * @return commitLatency
+	 */
+	public LatencyHistogram getCommitLatency(){
+		return commitLatency;
+	}
+
+	@Override
+	public long getElementsParsed(){
+		return elementsParsed.sum();
+	}
+
+	@Override
+	public long getBytesRead(){
+		return bytesRead.sum();
+	}
+
+	@Override
+	public Map<String, Long> getRecordsAssembled(){
+		TreeMap<String, Long> records = new TreeMap<>();
+		for(Map.Entry<ImportInstruction, LongAdder> entry : recordsAssembled.entrySet()){
+			ImportInstruction instruction = entry.getKey();
+			String name = instruction.getXPath();
+			if(instruction.getXAttribute() != null && !instruction.getXAttribute().isEmpty())
+				name += "@"+instruction.getXAttribute();
+			records.merge(name, entry.getValue().sum(), Long::sum);
+		}
+		return records;
+	}
+
+	@Override
+	public Map<String, Long> getRowsInserted(){
+		TreeMap<String, Long> rows = new TreeMap<>();
+		tables.forEach((table, counters) -> rows.put(table, counters.inserted.sum()));
+		return rows;
+	}
+
+	@Override
+	public Map<String, Long> getRowsUpdated(){
+		TreeMap<String, Long> rows = new TreeMap<>();
+		tables.forEach((table, counters) -> rows.put(table, counters.updated.sum()));
+		return rows;
+	}
+
+	@Override
+	public Map<String, Long> getRowsUpserted(){
+		TreeMap<String, Long> rows = new TreeMap<>();
+		tables.forEach((table, counters) -> rows.put(table, counters.upserted.sum()));
+		return rows;
+	}
+
+	@Override
+	public Map<String, Long> getRowsFailed(){
+		TreeMap<String, Long> rows = new TreeMap<>();
+		tables.forEach((table, counters) -> rows.put(table, counters.failed.sum()));
+		return rows;
+	}
+
+	@Override
+	public long getRowsUnchanged(){
+		return rowsUnchanged.sum();
+	}
+
+	@Override
+	public long getSpreadsheetRows(){
+		return spreadsheetRows.sum();
+	}
+
+	@Override
+	public Map<String, Double> getDatabaseLatency(){
+		TreeMap<String, Double> latency = new TreeMap<>();
+		addLatency(latency, "lookup", lookupLatency);
+		addLatency(latency, "write", writeLatency);
+		addLatency(latency, "commit", commitLatency);
+		return latency;
+	}
+
+	/**
+	 * Returns the sum of a counter over every table
+	 * @param counters The per table counter (e.g. getRowsInserted())
+	 * @return the total
+	 */
+	public static long total(Map<String, Long> counters){
+		long total = 0;
+		for(long count : counters.values())
+			total += count;
+		return total;
+	}
+
+	private static void addLatency(Map<String, Double> latency, String name, LatencyHistogram histogram){
+		latency.put(name+".count", (double) histogram.getCount());
+		latency.put(name+".mean", histogram.getMeanMillis());
+		latency.put(name+".p50", histogram.getPercentileMillis(0.5));
+		latency.put(name+".p99", histogram.getPercentileMillis(0.99));
+		latency.put(name+".max", histogram.getMaxMillis());
+	}
+
+	private TableCounters getTable(String table){
+		TableCounters counters = tables.get(table);
+		if(counters == null)
+			counters = tables.computeIfAbsent(table, key -> new TableCounters());
+		return counters;
+	}
+
+	/**
+	 * The row counters of one table
+	 */
+	private static class TableCounters {
+		private LongAdder inserted = new LongAdder();
+		private LongAdder updated = new LongAdder();
+		private LongAdder upserted = new LongAdder();
+		private LongAdder failed = new LongAdder();
+	}
+}
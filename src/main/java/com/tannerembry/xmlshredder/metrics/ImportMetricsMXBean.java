@@ -0,0 +1,66 @@
+package com.tannerembry.xmlshredder.metrics;
+
+import java.util.Map;
+
+/**
+ * The counters of a running import as they are published over JMX
+ * (com.tannerembry.xmlshredder:type=ImportMetrics), e.g. to jconsole or VisualVM.
+ * All counters start at zero when the program starts.
+ *
+ * @author      Tanner Embry, Claresco Corp <tembry@claresco.com>
+ * @version     1.0
+ * @since       1.0
+ */
+
+public interface ImportMetricsMXBean {
+
+	/**
+	 * @return the number of xml elements the parsers have read
+	 */
+	public long getElementsParsed();
+
+	/**
+	 * @return the number of bytes read from the data files (before decompressing)
+	 */
+	public long getBytesRead();
+
+	/**
+	 * @return the number of records assembled for each parent mapping (by xpath)
+	 */
+	public Map<String, Long> getRecordsAssembled();
+
+	/**
+	 * @return the number of rows inserted into each table
+	 */
+	public Map<String, Long> getRowsInserted();
+
+	/**
+	 * @return the number of rows updated in each table
+	 */
+	public Map<String, Long> getRowsUpdated();
+
+	/**
+	 * @return the number of rows written into each table with an insert-or-update statement
+	 */
+	public Map<String, Long> getRowsUpserted();
+
+	/**
+	 * @return the number of rows that could not be written into each table
+	 */
+	public Map<String, Long> getRowsFailed();
+
+	/**
+	 * @return the number of rows skipped because they did not change since the last import
+	 */
+	public long getRowsUnchanged();
+
+	/**
+	 * @return the number of rows added to exported spreadsheets
+	 */
+	public long getSpreadsheetRows();
+
+	/**
+	 * @return count, mean, p50, p99 and max (in milliseconds) of the lookups, writes and commits sent to the database
+	 */
+	public Map<String, Double> getDatabaseLatency();
+}
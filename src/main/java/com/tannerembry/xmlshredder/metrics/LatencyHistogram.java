@@ -0,0 +1,108 @@
+package com.tannerembry.xmlshredder.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts how long calls take in buckets that double in size (under 1 microsecond,
+ * under 2, under 4, ... up to about 9 minutes). Every bucket is a LongAdder, so
+ * many threads can record at the same time without waiting on each other, and
+ * percentiles are read from the buckets (accurate to within a factor of two).
+ *
+ * @author      Tanner Embry, Claresco Corp <tembry@claresco.com>
+ * @version     1.0
+ * @since       1.0
+ */
+
+public class LatencyHistogram {
+
+	private static final int BUCKETS = 40;
+
+	private LongAdder[] buckets = new LongAdder[BUCKETS];
+	private LongAdder count = new LongAdder();
+	private LongAdder totalNanos = new LongAdder();
+	private LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+	/**
+	 * Constructor for the LatencyHistogram object (all buckets start empty)
+	 */
+	public LatencyHistogram(){
+		for(int i = 0; i < BUCKETS; i++)
+			buckets[i] = new LongAdder();
+	}
+
+	/**
+	 * Records one call
+	 * @param nanos The time the call took in nanoseconds
+	 */
+	public void record(long nanos){
+		long micros = Math.max(0, nanos) / 1000;
+		int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+		buckets[bucket].increment();
+		count.increment();
+		totalNanos.add(nanos);
+		maxNanos.accumulate(nanos);
+	}
+
+	/**
+	 * Returns the number of calls recorded
+	 * @return count
+	 */
+	public long getCount(){
+		return count.sum();
+	}
+
+	/**
+	 * Returns the average time of a call in milliseconds
+	 * @return the mean (0 if nothing was recorded)
+	 */
+	public double getMeanMillis(){
+		long calls = count.sum();
+		return (calls == 0) ? 0 : totalNanos.sum() / 1e6 / calls;
+	}
+
+	/**
+	 * Returns the longest time of a call in milliseconds
+	 * @return the maximum
+	 */
+	public double getMaxMillis(){
+		return maxNanos.get() / 1e6;
+	}
+
+	/**
+	 * Returns the time in milliseconds that the provided share of the calls took at most
+	 * (the upper bound of the bucket the percentile falls into)
+	 * @param percentile The share of the calls (e.g. 0.99)
+	 * @return the percentile (0 if nothing was recorded)
+	 */
+	public double getPercentileMillis(double percentile){
+		long[] counts = new long[BUCKETS];
+		long calls = 0;
+		for(int i = 0; i < BUCKETS; i++){
+			counts[i] = buckets[i].sum();
+			calls += counts[i];
+		}
+		if(calls == 0)
+			return 0;
+
+		long target = (long) Math.ceil(percentile * calls);
+		long seen = 0;
+		for(int i = 0; i < BUCKETS; i++){
+			seen += counts[i];
+			if(seen >= target)
+				return (1L << i) / 1000.0;
+		}
+		return this.getMaxMillis();
+	}
+
+	/**
+	 * Empties every bucket
+	 */
+	public void reset(){
+		for(LongAdder bucket : buckets)
+			bucket.reset();
+		count.reset();
+		totalNanos.reset();
+		maxNanos.reset();
+	}
+}
@@ -0,0 +1,64 @@
+package com.tannerembry.xmlshredder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import org.xml.sax.InputSource;
+
+import com.tannerembry.xmlshredder.importer.ImportInstruction;
+import com.tannerembry.xmlshredder.importer.ImportInstructionManager;
+import com.tannerembry.xmlshredder.importer.ImportRow;
+import com.tannerembry.xmlshredder.importer.SAXImportHandler;
+import com.tannerembry.xmlshredder.importer.SaxEngine;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks that a generated feed shreds into one complete row per record.
+ */
+public class FeedGeneratorTest extends TestCase {
+
+	public void testGeneratedFeedMatchesTheMappings() throws Exception {
+		ImportInstruction book = new ImportInstruction("book", "id", "book", "id");
+		ImportInstruction author = new ImportInstruction("catalog.book.author", "", "book", "author");
+		author.setParent(book);
+		ImportInstruction title = new ImportInstruction("book.info.title", "", "book", "title");
+		title.setParent(book);
+
+		HashMap<String, ArrayList<ImportInstruction>> instructionMap = new HashMap<>();
+		for(ImportInstruction instruction : new ImportInstruction[]{book, author, title}){
+			String element = instruction.getXPath().substring(instruction.getXPath().lastIndexOf('.') + 1);
+			instructionMap.put(element, new ArrayList<ImportInstruction>());
+			instructionMap.get(element).add(instruction);
+		}
+		ImportInstructionManager manager = new ImportInstructionManager(instructionMap);
+
+		byte[] feed = generate(manager, 1);
+		assertTrue(new String(feed, "UTF-8").contains("<level1><catalog>\n<book id=\"r1\"><author>"));
+		assertEquals(new String(feed, "UTF-8"), new String(generate(manager, 1), "UTF-8"));
+
+		final List<ImportRow> rows = new ArrayList<>();
+		SAXImportHandler handler = new SAXImportHandler(manager, row -> rows.add(row));
+		new SaxEngine().parse(new InputSource(new ByteArrayInputStream(feed)), handler);
+		handler.processFinalEntries();
+
+		assertEquals(3, rows.size());
+		for(int i = 0; i < 3; i++){
+			assertEquals("r"+(i + 1), rows.get(i).getKeyValue());
+			assertEquals("[id, author, title]", rows.get(i).getColumns().toString());
+		}
+	}
+
+	private static byte[] generate(ImportInstructionManager manager, long seed) throws Exception {
+		FeedGenerator generator = new FeedGenerator(manager);
+		generator.setDepth(1);
+		generator.setNoise(2);
+		generator.setSeed(seed);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		generator.write(out, 3);
+		return out.toByteArray();
+	}
+}
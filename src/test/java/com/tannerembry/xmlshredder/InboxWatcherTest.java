@@ -0,0 +1,108 @@
+package com.tannerembry.xmlshredder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+
+import junit.framework.TestCase;
+
+/**
+ * Drops files into a watched inbox (with upload off) and checks where they end up.
+ */
+public class InboxWatcherTest extends TestCase {
+
+	private static final long WAIT_MILLIS = 20000;
+
+	private File inbox;
+	private File configFile;
+	private InboxWatcher watcher;
+	private Thread thread;
+
+	@Override
+	protected void setUp() throws IOException {
+		inbox = Files.createTempDirectory("xmlshredder-inbox").toFile();
+		configFile = File.createTempFile("xmlshredder-inbox", ".xml");
+		this.writeConfig("");
+		watcher = new InboxWatcher(inbox.getPath(), configFile.getPath(), false);
+		thread = new Thread(new Runnable(){
+			@Override
+			public void run(){
+				try {
+					watcher.run();
+				} catch (IOException e){
+					e.printStackTrace();
+				}
+			}
+		});
+		thread.start();
+	}
+
+	@Override
+	protected void tearDown() throws InterruptedException {
+		watcher.stop();
+		thread.join();
+		delete(inbox);
+		configFile.delete();
+	}
+
+	public void testSettledFilesAreMovedToDoneOrFailed() throws Exception {
+		File good = this.writeData("books.xml", "<catalog><book id=\"bk1\"><author>A1</author></book></catalog>");
+		File bad = this.writeData("broken.xml", "<catalog><book id=\"bk1\">");
+
+		//the files are only picked up once they stopped changing
+		Thread.sleep(500);
+		assertTrue(good.exists());
+
+		assertTrue(waitFor(new File(new File(inbox, InboxWatcher.DONE_DIRECTORY), "books.xml")));
+		assertTrue(waitFor(new File(new File(inbox, InboxWatcher.FAILED_DIRECTORY), "broken.xml")));
+		assertFalse(good.exists());
+		assertFalse(bad.exists());
+	}
+
+	public void testChangedConfigIsUsedForTheNextFile() throws Exception {
+		this.writeConfig("  <spreadsheet><create>true</create><file>"+new File(inbox, "export.csv").getPath()+"</file><format>csv</format></spreadsheet>");
+		//the config is read again before files are started, so the file is exported with the new one
+		this.writeData("books.xml", "<catalog><book id=\"bk1\"><author>A1</author></book></catalog>");
+
+		assertTrue(waitFor(new File(new File(inbox, InboxWatcher.DONE_DIRECTORY), "books.xml")));
+		assertTrue(new File(inbox, "export_books_Sheet1.csv").exists());
+	}
+
+	private void writeConfig(String spreadsheet) throws IOException {
+		try(PrintWriter out = new PrintWriter(configFile, "UTF-8")){
+			out.println("<config>");
+			out.println("  <misc><upload>false</upload><printqueries>false</printqueries></misc>");
+			out.println(spreadsheet);
+			out.println("  <mapping>");
+			out.println("    <xpath>book</xpath><xattribute>id</xattribute><dbtable>book</dbtable><dbfield>id</dbfield>");
+			out.println("    <child_mapping><xpath>book.author</xpath><xattribute></xattribute><dbtable>book</dbtable><dbfield>author</dbfield></child_mapping>");
+			out.println("  </mapping>");
+			out.println("</config>");
+		}
+	}
+
+	private File writeData(String name, String xml) throws IOException {
+		File file = new File(inbox, name);
+		try(PrintWriter out = new PrintWriter(file, "UTF-8")){
+			out.println(xml);
+		}
+		return file;
+	}
+
+	private static boolean waitFor(File file) throws InterruptedException {
+		long end = System.currentTimeMillis() + WAIT_MILLIS;
+		while(!file.exists() && System.currentTimeMillis() < end)
+			Thread.sleep(100);
+		return file.exists();
+	}
+
+	private static void delete(File file){
+		File[] children = file.listFiles();
+		if(children != null){
+			for(File child : children)
+				delete(child);
+		}
+		file.delete();
+	}
+}
@@ -0,0 +1,61 @@
+package com.tannerembry.xmlshredder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import com.tannerembry.xmlshredder.importer.ImporterTask;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests for resolving the XML_FILE argument into the files to shred.
+ */
+public class InputFilesTest extends TestCase {
+
+	private File dir;
+
+	@Override
+	protected void setUp() throws IOException {
+		dir = Files.createTempDirectory("inputfiles").toFile();
+		new File(dir, "sub").mkdir();
+		for(String name : new String[]{"b.xml", "a.xml", "notes.txt", "sub/c.xml"})
+			new File(dir, name).createNewFile();
+	}
+
+	@Override
+	protected void tearDown(){
+		for(String name : new String[]{"b.xml", "a.xml", "notes.txt", "sub/c.xml", "sub", "list.lst"})
+			new File(dir, name).delete();
+		dir.delete();
+	}
+
+	public void testDirectoryReturnsXmlFilesSorted() throws IOException {
+		List<String> files = InputFiles.resolve(dir.getPath());
+		assertEquals(Arrays.asList(path("a.xml"), path("b.xml")), files);
+	}
+
+	public void testGlobOnlySearchesSubDirectoriesWithDoubleStar() throws IOException {
+		assertEquals(Arrays.asList(path("a.xml"), path("b.xml")), InputFiles.resolve(dir.getPath()+"/*.xml"));
+		assertEquals(Arrays.asList(path("sub/c.xml")), InputFiles.resolve(dir.getPath()+"/**/c.xml"));
+	}
+
+	public void testListFileKeepsOrderAndSkipsComments() throws IOException {
+		File list = new File(dir, "list.lst");
+		Files.write(list.toPath(), Arrays.asList("# todays files", path("b.xml"), "", path("a.xml")), StandardCharsets.UTF_8);
+		assertEquals(Arrays.asList(path("b.xml"), path("a.xml")), InputFiles.resolve(list.getPath()));
+	}
+
+	public void testExportPathContainsXmlName(){
+		assertEquals("/out/values_books.xlsx", ImporterTask.getExportPath("/out/values.xlsx", "/data/books.xml"));
+		assertEquals("/out/values_books", ImporterTask.getExportPath("/out/values", "books.xml"));
+		assertNull(ImporterTask.getExportPath(null, "books.xml"));
+	}
+
+	private String path(String name){
+		return new File(dir, name).getPath();
+	}
+}
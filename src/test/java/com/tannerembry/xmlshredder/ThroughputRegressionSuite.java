@@ -0,0 +1,170 @@
+package com.tannerembry.xmlshredder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Properties;
+
+import com.tannerembry.xmlshredder.database.ConnectionPool;
+import com.tannerembry.xmlshredder.importer.ImportInstructionManager;
+import com.tannerembry.xmlshredder.importer.ImportSummary;
+import com.tannerembry.xmlshredder.importer.ImporterSettings;
+import com.tannerembry.xmlshredder.importer.ImporterTask;
+
+import junit.framework.TestCase;
+
+/**
+ * Shreds a generated feed into an embedded H2 database and a streamed spreadsheet and
+ * fails if the records per second, the peak heap or the time spent in garbage collection
+ * got worse than the limits in regression-thresholds.properties. The measured values are
+ * written to target/regression-results.properties.
+ *
+ * Only run by the regression profile (mvn -P regression test); the default test run leaves it out.
+ * The number of records and every limit can be overridden with a system property of the
+ * same name (e.g. -Dregression.records=2000000).
+ */
+public class ThroughputRegressionSuite extends TestCase {
+
+	private File directory;
+
+	@Override
+	protected void setUp() throws IOException {
+		directory = Files.createTempDirectory("xmlshredder-regression").toFile();
+	}
+
+	@Override
+	protected void tearDown(){
+		for(File file : directory.listFiles())
+			file.delete();
+		directory.delete();
+	}
+
+	public void testThroughputDoesNotRegress() throws Exception {
+		Properties thresholds = loadThresholds();
+		long records = Long.parseLong(thresholds.getProperty("regression.records"));
+
+		String host = "jdbc:h2:"+new File(directory, "regression").getAbsolutePath();
+		File configFile = new File(directory, "config.xml");
+		File xmlFile = new File(directory, "feed.xml");
+		String exportPath = new File(directory, "output_values.xlsx").getPath();
+		writeConfig(configFile, host, exportPath);
+
+		try(Connection connection = DriverManager.getConnection(host, "sa", "");
+				Statement statement = connection.createStatement()){
+			statement.execute("create table book (id varchar(32) primary key, author varchar(64), title varchar(64), genre varchar(64))");
+		}
+
+		ImporterSettings importerSettings = new ImporterSettings(configFile.getPath());
+		ImportInstructionManager importInstructionManager = new ImportInstructionManager(importerSettings.getImportInstructionMap());
+
+		FeedGenerator generator = new FeedGenerator(importInstructionManager);
+		generator.setDepth(2);
+		generator.setNoise(3);
+		generator.setValueSize(16);
+		generator.write(xmlFile.getPath(), records);
+
+		ConnectionPool connectionPool = new ConnectionPool(host, "sa", "", 1);
+		ImportSummary summary;
+		System.gc();
+		for(MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+			pool.resetPeakUsage();
+		long gcMillis = getGcMillis();
+		long start = System.nanoTime();
+		try {
+			summary = new ImporterTask(xmlFile.getPath(), exportPath, importerSettings, importInstructionManager, connectionPool, null, false).call();
+		} finally {
+			connectionPool.close();
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		gcMillis = getGcMillis() - gcMillis;
+
+		//the peaks of the pools are not reached at the same time, so their sum is an upper bound
+		long peakHeap = 0;
+		for(MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()){
+			if(pool.getType() == MemoryType.HEAP)
+				peakHeap += pool.getPeakUsage().getUsed();
+		}
+		long peakHeapMb = peakHeap / (1024 * 1024);
+		long recordsPerSecond = (long) (records / seconds);
+
+		Properties results = new Properties();
+		results.setProperty("regression.records", String.valueOf(records));
+		results.setProperty("records.per.second", String.valueOf(recordsPerSecond));
+		results.setProperty("peak.heap.mb", String.valueOf(peakHeapMb));
+		results.setProperty("gc.millis", String.valueOf(gcMillis));
+		new File("target").mkdirs();
+		try(OutputStream out = new FileOutputStream("target/regression-results.properties")){
+			results.store(out, "Throughput regression suite");
+		}
+		System.out.println("Regression: "+records+" records in "+String.format("%.1f", seconds)+" s ("+recordsPerSecond+"/s), peak heap "
+				+peakHeapMb+" MB, gc "+gcMillis+" ms");
+
+		assertTrue(summary.toString(), summary.succeeded());
+		assertEquals(records, summary.getRows());
+		try(Connection connection = DriverManager.getConnection(host, "sa", "");
+				Statement statement = connection.createStatement();
+				ResultSet rs = statement.executeQuery("select count(*) from book")){
+			rs.next();
+			assertEquals(records, rs.getLong(1));
+		}
+		assertTrue(new File(exportPath).length() > 0);
+
+		long minRecordsPerSecond = Long.parseLong(thresholds.getProperty("min.records.per.second"));
+		long maxPeakHeapMb = Long.parseLong(thresholds.getProperty("max.peak.heap.mb"));
+		long maxGcMillis = Long.parseLong(thresholds.getProperty("max.gc.millis"));
+		assertTrue("Throughput regressed: "+recordsPerSecond+" records/s is below "+minRecordsPerSecond, recordsPerSecond >= minRecordsPerSecond);
+		assertTrue("Heap use regressed: "+peakHeapMb+" MB is above "+maxPeakHeapMb, peakHeapMb <= maxPeakHeapMb);
+		assertTrue("GC time regressed: "+gcMillis+" ms is above "+maxGcMillis, gcMillis <= maxGcMillis);
+	}
+
+	private static Properties loadThresholds() throws IOException {
+		Properties thresholds = new Properties();
+		try(InputStream in = ThroughputRegressionSuite.class.getResourceAsStream("/regression-thresholds.properties")){
+			thresholds.load(in);
+		}
+		for(String name : thresholds.stringPropertyNames()){
+			if(System.getProperty(name) != null)
+				thresholds.setProperty(name, System.getProperty(name));
+		}
+		return thresholds;
+	}
+
+	private static long getGcMillis(){
+		long millis = 0;
+		for(GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans())
+			millis += Math.max(0, collector.getCollectionTime());
+		return millis;
+	}
+
+	private static void writeConfig(File configFile, String host, String exportPath) throws IOException {
+		try(PrintWriter out = new PrintWriter(configFile, "UTF-8")){
+			out.println("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+			out.println("<config>");
+			out.println("  <misc><upload>true</upload><printqueries>false</printqueries></misc>");
+			out.println("  <performance><batchsize>1000</batchsize><commitinterval>10</commitinterval><writemode>batchcheck</writemode>"
+					+ "<queuesize>10000</queuesize></performance>");
+			out.println("  <spreadsheet><create>true</create><file>"+exportPath+"</file><streaming>true</streaming></spreadsheet>");
+			out.println("  <connection><username>sa</username><password></password><host>"+host+"</host></connection>");
+			out.println("  <mapping>");
+			out.println("    <xpath>book</xpath><xattribute>id</xattribute><dbtable>book</dbtable><dbfield>id</dbfield>");
+			for(String field : new String[]{"author", "title", "genre"}){
+				out.println("    <child_mapping><xpath>catalog.book."+field+"</xpath><xattribute></xattribute><dbtable>book</dbtable>"
+						+ "<dbfield>"+field+"</dbfield></child_mapping>");
+			}
+			out.println("  </mapping>");
+			out.println("</config>");
+		}
+	}
+}
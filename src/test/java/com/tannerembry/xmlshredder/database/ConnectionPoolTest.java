@@ -0,0 +1,56 @@
+package com.tannerembry.xmlshredder.database;
+
+import java.sql.Connection;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+/**
+ * Hands out connections to an embedded H2 database that are dropped while they are idle or in use.
+ */
+public class ConnectionPoolTest extends TestCase {
+
+	private ConnectionPool pool;
+
+	@Override
+	protected void setUp() throws Exception {
+		pool = new ConnectionPool("jdbc:h2:mem:"+getName()+";DB_CLOSE_DELAY=-1", "sa", "", 1);
+	}
+
+	@Override
+	protected void tearDown(){
+		pool.close();
+	}
+
+	public void testIdleConnectionThatWasDroppedIsReplaced() throws Exception {
+		Connection connection = pool.acquire();
+		pool.release(connection);
+		connection.close();
+
+		Connection replacement = pool.acquire();
+		assertNotSame(connection, replacement);
+		assertTrue(replacement.isValid(1));
+		pool.release(replacement);
+	}
+
+	public void testWaitingThreadGetsANewConnectionWhenABrokenOneIsReleased() throws Exception {
+		Connection connection = pool.acquire();
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<Connection> waiting = executor.submit(() -> pool.acquire());
+			Thread.sleep(100);
+			assertFalse(waiting.isDone());
+
+			connection.close();
+			pool.release(connection);
+			Connection replacement = waiting.get(5, TimeUnit.SECONDS);
+			assertTrue(replacement.isValid(1));
+			pool.release(replacement);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
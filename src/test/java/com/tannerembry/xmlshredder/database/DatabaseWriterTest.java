@@ -0,0 +1,209 @@
+package com.tannerembry.xmlshredder.database;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+
+import com.tannerembry.xmlshredder.importer.ImportRow;
+import com.tannerembry.xmlshredder.importer.ImporterSettings;
+import com.tannerembry.xmlshredder.metrics.ImportMetrics;
+
+import junit.framework.TestCase;
+
+/**
+ * Writes rows into an embedded H2 database in every write mode and checks what ends up committed.
+ */
+public class DatabaseWriterTest extends TestCase {
+
+	private File configFile;
+	private Connection connection;
+
+	@Override
+	protected void setUp() throws Exception {
+		configFile = File.createTempFile("xmlshredder-writer", ".xml");
+		connection = DriverManager.getConnection("jdbc:h2:mem:"+getName(), "sa", "");
+		try(Statement statement = connection.createStatement()){
+			statement.execute("create table book (id varchar(10) primary key, author varchar(10), pages int)");
+		}
+	}
+
+	@Override
+	protected void tearDown() throws SQLException {
+		connection.close();
+		configFile.delete();
+	}
+
+	public void testFailedBatchOnlyLosesTheFailingRow() throws Exception {
+		//two rows per batch and three batches per transaction, the third batch fails
+		DatabaseWriter writer = new DatabaseWriter(connection, settings("check", 2, 3));
+		for(int i = 1; i <= 5; i++)
+			assertTrue(writer.write(row("bk"+i, "author"+i)));
+		writer.write(row("bk6", "an author name that is too long"));
+		for(int i = 7; i <= 9; i++)
+			assertTrue(writer.write(row("bk"+i, "author"+i)));
+		writer.close();
+
+		assertEquals(1, writer.getFailedRows());
+		assertEquals(9, writer.getCommittedRows());
+		assertEquals(8, count());
+		assertEquals("author4", author("bk4"));
+		assertNull(author("bk6"));
+	}
+
+	public void testFailedBatchUpdatesRowsThatWereInsertedBeforeTheRollback() throws Exception {
+		DatabaseWriter writer = new DatabaseWriter(connection, settings("batchcheck", 2, 5));
+		writer.write(row("bk1", "first"));
+		writer.write(row("bk2", "first"));
+		writer.write(row("bk1", "second"));
+		writer.write(row("bk3", "an author name that is too long"));
+		writer.close();
+
+		assertEquals(1, writer.getFailedRows());
+		assertEquals(2, count());
+		assertEquals("second", author("bk1"));
+	}
+
+	public void testCommittedRowsOnlyGrowWhenTheTransactionCommits() throws Exception {
+		DatabaseWriter writer = new DatabaseWriter(connection, settings("check", 2, 2));
+		for(int i = 1; i <= 3; i++)
+			writer.write(row("bk"+i, "author"+i));
+		assertEquals(0, writer.getCommittedRows());
+
+		writer.write(row("bk4", "author4"));
+		assertEquals(4, writer.getCommittedRows());
+
+		//the failed batch is rolled back, the rows before it are not counted until they are written again
+		writer.write(row("bk5", "author5"));
+		assertEquals(4, writer.getCommittedRows());
+		writer.write(row("bk6", "an author name that is too long"));
+		assertEquals(6, writer.getCommittedRows());
+		assertEquals(1, writer.getFailedRows());
+
+		writer.write(row("bk7", "author7"));
+		assertEquals(6, writer.getCommittedRows());
+		writer.close();
+		assertEquals(7, writer.getCommittedRows());
+		assertEquals(6, count());
+	}
+
+	public void testUpsertInsertsNewKeysAndUpdatesExistingOnes() throws Exception {
+		for(int batchSize : new int[]{1, 2}){
+			DatabaseWriter writer = new DatabaseWriter(connection, settings("upsert", batchSize, 2));
+			writer.write(row("bk1", "first"));
+			writer.write(row("bk2", "first"));
+			writer.write(row("bk1", "second"+batchSize));
+			writer.close();
+
+			assertEquals(0, writer.getFailedRows());
+			assertEquals(2, count());
+			assertEquals("second"+batchSize, author("bk1"));
+		}
+	}
+
+	public void testPreloadInsertsRowsWhoseKeyWasDeleted() throws Exception {
+		for(int batchSize : new int[]{1, 2}){
+			try(Statement statement = connection.createStatement()){
+				statement.execute("delete from book");
+				statement.execute("insert into book (id, author) values ('bk1', 'first'), ('bk2', 'first')");
+			}
+			DatabaseWriter writer = new DatabaseWriter(connection, settings("preload", batchSize, 2));
+			//the key index still holds bk1, so the row is written as an update that finds nothing
+			try(Statement statement = connection.createStatement()){
+				statement.execute("delete from book where id='bk1'");
+			}
+			writer.write(row("bk1", "second"));
+			writer.write(row("bk2", "second"));
+			writer.write(row("bk3", "second"));
+			writer.close();
+
+			assertEquals(0, writer.getFailedRows());
+			assertEquals(3, count());
+			assertEquals("second", author("bk1"));
+			assertEquals("second", author("bk2"));
+		}
+	}
+
+	public void testValuesAreBoundWithTheTypeOfTheirColumn() throws Exception {
+		DatabaseWriter writer = new DatabaseWriter(connection, settings("check", 1, 1));
+		assertTrue(writer.write(new ImportRow(null, "book", Arrays.asList("id", "author", "pages"), Arrays.asList("bk1", "O'Brien", "350"))));
+		assertTrue(writer.write(new ImportRow(null, "book", Arrays.asList("id", "author", "pages"), Arrays.asList("bk'2", "it's", null))));
+		assertFalse(writer.write(new ImportRow(null, "book", Arrays.asList("id", "pages"), Arrays.asList("bk3", "many"))));
+		writer.close();
+
+		assertEquals("O'Brien", author("bk1"));
+		assertEquals("it's", author("bk'2"));
+		try(Statement statement = connection.createStatement();
+				ResultSet rs = statement.executeQuery("select id, pages from book where pages is not null")){
+			assertTrue(rs.next());
+			assertEquals("bk1", rs.getString(1));
+			assertEquals(350, rs.getInt(2));
+			assertFalse(rs.next());
+		}
+	}
+
+	public void testInsertedRowsAreCountedWhenTheyAreCommitted() throws Exception {
+		ImportMetrics metrics = ImportMetrics.get();
+		long inserted = inserted(metrics);
+		DatabaseWriter writer = new DatabaseWriter(connection, settings("check", 2, 2));
+		for(int i = 1; i <= 3; i++)
+			writer.write(row("bk"+i, "author"+i));
+		assertEquals(0, inserted(metrics) - inserted);
+
+		//the rolled back rows are counted once they are written again
+		writer.write(row("bk4", "an author name that is too long"));
+		assertEquals(3, inserted(metrics) - inserted);
+
+		writer.write(row("bk5", "author5"));
+		writer.close();
+		assertEquals(count(), inserted(metrics) - inserted);
+	}
+
+	private static long inserted(ImportMetrics metrics){
+		Long inserted = metrics.getRowsInserted().get("book");
+		return (inserted == null) ? 0 : inserted;
+	}
+
+	private ImporterSettings settings(String writeMode, int batchSize, int commitInterval) throws IOException {
+		try(PrintWriter out = new PrintWriter(configFile, "UTF-8")){
+			out.println("<config>");
+			out.println("  <misc><upload>true</upload><printqueries>false</printqueries></misc>");
+			out.println("  <performance><batchsize>"+batchSize+"</batchsize><commitinterval>"+commitInterval+"</commitinterval>"
+					+ "<writemode>"+writeMode+"</writemode><lookupbatchsize>2</lookupbatchsize></performance>");
+			out.println("  <connection><username>sa</username><password></password><host>jdbc:h2:mem:"+getName()+"</host></connection>");
+			out.println("  <mapping>");
+			out.println("    <xpath>book</xpath><xattribute>id</xattribute><dbtable>book</dbtable><dbfield>id</dbfield>");
+			out.println("    <child_mapping><xpath>book.author</xpath><xattribute></xattribute><dbtable>book</dbtable><dbfield>author</dbfield></child_mapping>");
+			out.println("  </mapping>");
+			out.println("</config>");
+		}
+		return new ImporterSettings(configFile.getPath());
+	}
+
+	private int count() throws SQLException {
+		try(Statement statement = connection.createStatement();
+				ResultSet rs = statement.executeQuery("select count(*) from book")){
+			rs.next();
+			return rs.getInt(1);
+		}
+	}
+
+	private String author(String id) throws SQLException {
+		try(PreparedStatement statement = connection.prepareStatement("select author from book where id=?")){
+			statement.setString(1, id);
+			try(ResultSet rs = statement.executeQuery()){
+				return rs.next() ? rs.getString(1) : null;
+			}
+		}
+	}
+
+	private static ImportRow row(String id, String author){
+		return new ImportRow(null, "book", Arrays.asList("id", "author"), Arrays.asList(id, author));
+	}
+}
@@ -0,0 +1,85 @@
+package com.tannerembry.xmlshredder.database;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import com.tannerembry.xmlshredder.importer.ImportRow;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks that fingerprints survive reopening and growing the store, and that other files are left alone.
+ */
+public class FingerprintStoreTest extends TestCase {
+
+	private File file;
+
+	@Override
+	protected void setUp() throws Exception {
+		file = File.createTempFile("fingerprints", ".store");
+		file.delete();
+	}
+
+	@Override
+	protected void tearDown(){
+		file.delete();
+	}
+
+	public void testFingerprintsSurviveReopeningAndGrowing() throws Exception {
+		FingerprintStore store = new FingerprintStore(file.getPath());
+		for(long key = 1; key <= 100000; key++)
+			store.put(KeyIndex.hash("bk"+key), key);
+		store.put(KeyIndex.hash("bk5"), 55);
+		store.close();
+
+		FingerprintStore reopened = new FingerprintStore(file.getPath());
+		assertEquals(100000, reopened.size());
+		assertEquals(55, reopened.get(KeyIndex.hash("bk5")));
+		assertEquals(99999, reopened.get(KeyIndex.hash("bk99999")));
+		assertEquals(0, reopened.get(KeyIndex.hash("bk100001")));
+		reopened.close();
+	}
+
+	public void testStoreGrowsPastTheSizeOfOneSegment() throws Exception {
+		//segments of 4096 slots, so 100000 keys at 70% need 64 of them
+		FingerprintStore store = new FingerprintStore(file.getPath(), 4096);
+		for(long key = 1; key <= 100000; key++)
+			store.put(KeyIndex.hash("bk"+key), key);
+		store.close();
+		assertEquals(32 + 64 * 4096 * 16, file.length());
+
+		FingerprintStore reopened = new FingerprintStore(file.getPath());
+		assertEquals(100000, reopened.size());
+		for(long key = 1; key <= 100000; key++)
+			assertEquals(key, reopened.get(KeyIndex.hash("bk"+key)));
+		assertEquals(0, reopened.get(KeyIndex.hash("bk100001")));
+		reopened.close();
+	}
+
+	public void testFileThatIsNotAStoreIsNeverOverwritten() throws Exception {
+		byte[] content = "<config><misc><upload>true</upload></misc></config>".getBytes(StandardCharsets.UTF_8);
+		Files.write(file.toPath(), content);
+		try {
+			new FingerprintStore(file.getPath());
+			fail("A file that is not a store was opened.");
+		} catch (IOException e){
+			assertTrue(Arrays.equals(content, Files.readAllBytes(file.toPath())));
+		}
+	}
+
+	public void testFingerprintChangesWithAnyValue(){
+		ImportRow row = row("bk101", "Ralls, Kim", null);
+		assertEquals(FingerprintStore.fingerprint(row), FingerprintStore.fingerprint(row("bk101", "Ralls, Kim", null)));
+		assertEquals(FingerprintStore.keyHash(row), FingerprintStore.keyHash(row("bk101", "Corets, Eva", null)));
+
+		assertFalse(FingerprintStore.fingerprint(row) == FingerprintStore.fingerprint(row("bk101", "Ralls, Kim", "")));
+		assertFalse(FingerprintStore.fingerprint(row) == FingerprintStore.fingerprint(row("bk101", "Ralls, Ki", "m")));
+	}
+
+	private static ImportRow row(String key, String author, String title){
+		return new ImportRow(null, "book", Arrays.asList("id", "author", "title"), Arrays.asList(key, author, title));
+	}
+}
@@ -0,0 +1,45 @@
+package com.tannerembry.xmlshredder.database;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests for the in memory key index and the structures behind it.
+ */
+public class KeyIndexTest extends TestCase {
+
+	public void testAddedKeysAreFoundAfterGrowing(){
+		KeyIndex index = new KeyIndex("book", "id");
+		for(int i = 0; i < 100000; i++)
+			index.add("bk" + i);
+
+		assertEquals(100000, index.size());
+		for(int i = 0; i < 100000; i++)
+			assertTrue(index.contains("bk" + i));
+		assertFalse(index.contains("bk100000"));
+		assertFalse(index.contains(null));
+	}
+
+	public void testDuplicateKeysAreOnlyCountedOnce(){
+		KeyIndex index = new KeyIndex("book", "id");
+		index.add("bk101");
+		index.add("bk101");
+		assertEquals(1, index.size());
+	}
+
+	public void testLongHashSetHandlesZero(){
+		LongHashSet set = new LongHashSet(4);
+		assertFalse(set.contains(0));
+		assertTrue(set.add(0));
+		assertFalse(set.add(0));
+		assertTrue(set.contains(0));
+		assertEquals(1, set.size());
+	}
+
+	public void testBloomFilterHasNoFalseNegatives(){
+		BloomFilter filter = new BloomFilter(10000);
+		for(int i = 0; i < 10000; i++)
+			filter.add(KeyIndex.hash("key" + i));
+		for(int i = 0; i < 10000; i++)
+			assertTrue(filter.mightContain(KeyIndex.hash("key" + i)));
+	}
+}
@@ -0,0 +1,79 @@
+package com.tannerembry.xmlshredder.database;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * Runs the upsert statements of the dialects that H2 understands and checks the text of the others.
+ */
+public class SqlDialectTest extends TestCase {
+
+	private static final List<String> COLUMNS = Arrays.asList("id", "author");
+
+	private Connection connection;
+
+	@Override
+	protected void setUp() throws SQLException {
+		connection = DriverManager.getConnection("jdbc:h2:mem:"+getName());
+		try(Statement statement = connection.createStatement()){
+			statement.execute("create table book (id varchar(10) primary key, author varchar(10))");
+		}
+	}
+
+	@Override
+	protected void tearDown() throws SQLException {
+		connection.close();
+	}
+
+	public void testDialectIsChosenByUrl(){
+		assertTrue(SqlDialect.forUrl("jdbc:h2:mem:") instanceof H2Dialect);
+		assertTrue(SqlDialect.forUrl(" JDBC:PostgreSQL://host/db") instanceof PostgresDialect);
+		assertTrue(SqlDialect.forUrl("jdbc:sqlserver://host") instanceof MergeDialect);
+	}
+
+	public void testH2UpsertInsertsAndUpdates() throws SQLException {
+		assertUpserts(new H2Dialect());
+	}
+
+	public void testStandardMergeInsertsAndUpdates() throws SQLException {
+		assertUpserts(new MergeDialect());
+	}
+
+	public void testPostgresUpsertUpdatesOnConflict(){
+		//H2 only accepts "on conflict do nothing", so the statement is checked as text
+		assertEquals("insert into book (id, author) values (?, ?) on conflict (id) do update set author=excluded.author",
+				new PostgresDialect().getUpsertQuery("book", COLUMNS));
+	}
+
+	private void assertUpserts(SqlDialect dialect) throws SQLException {
+		try(PreparedStatement statement = connection.prepareStatement(dialect.getUpsertQuery("book", COLUMNS))){
+			upsert(statement, "bk1", "first");
+			upsert(statement, "bk2", "first");
+			upsert(statement, "bk1", "O'Brien");
+		}
+		try(Statement statement = connection.createStatement();
+				ResultSet rs = statement.executeQuery("select id, author from book order by id")){
+			assertTrue(rs.next());
+			assertEquals("bk1", rs.getString(1));
+			assertEquals("O'Brien", rs.getString(2));
+			assertTrue(rs.next());
+			assertEquals("bk2", rs.getString(1));
+			assertEquals("first", rs.getString(2));
+			assertFalse(rs.next());
+		}
+	}
+
+	private static void upsert(PreparedStatement statement, String id, String author) throws SQLException {
+		statement.setString(1, id);
+		statement.setString(2, author);
+		assertEquals(1, statement.executeUpdate());
+	}
+}
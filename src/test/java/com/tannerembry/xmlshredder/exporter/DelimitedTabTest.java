@@ -0,0 +1,66 @@
+package com.tannerembry.xmlshredder.exporter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks the UTF-8 encoding of a tab against String.getBytes.
+ */
+public class DelimitedTabTest extends TestCase {
+
+	private File file;
+
+	@Override
+	protected void setUp() throws IOException {
+		file = File.createTempFile("xmlshredder-tab", ".txt");
+	}
+
+	@Override
+	protected void tearDown(){
+		file.delete();
+	}
+
+	public void testTextIsEncodedLikeGetBytes() throws IOException {
+		assertEncoded("plain", "café €", "pair 😀");
+	}
+
+	public void testSurrogateWithoutItsOtherHalfIsReplaced() throws IOException {
+		//getBytes writes '?' instead, the replacement character is written so the text still reads as one
+		assertEquals(encoded("high \ufffd", "\ufffd", "low \ufffd end", "\ufffd😀"),
+				written("high \ud83d", "\ud83d", "low \ude00 end", "\ud83d😀"));
+	}
+
+	public void testDiscardDeletesTheFile() throws IOException {
+		DelimitedTab tab = new DelimitedTab(file.getPath(), '\t', 8, Arrays.asList("value"));
+		tab.writeRow(Arrays.asList("a value longer than the buffer"), new int[]{0});
+		tab.discard();
+		assertFalse(file.exists());
+	}
+
+	private void assertEncoded(String... values) throws IOException {
+		assertEquals(encoded(values), written(values));
+	}
+
+	private static String encoded(String... values){
+		StringBuilder expected = new StringBuilder("value\n");
+		for(String value : values)
+			expected.append(value).append('\n');
+		return Arrays.toString(expected.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	private String written(String... values) throws IOException {
+		List<String> headers = Arrays.asList("value");
+		//a small buffer so that characters are split across drains
+		DelimitedTab tab = new DelimitedTab(file.getPath(), '\t', 8, headers);
+		for(String value : values)
+			tab.writeRow(Arrays.asList(value), new int[]{0});
+		tab.close();
+		return Arrays.toString(Files.readAllBytes(file.toPath()));
+	}
+}
@@ -0,0 +1,53 @@
+package com.tannerembry.xmlshredder.importer;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks that a checkpoint is only used for the file it was saved for.
+ */
+public class CheckpointTest extends TestCase {
+
+	private File xmlFile;
+
+	@Override
+	protected void setUp() throws Exception {
+		xmlFile = File.createTempFile("checkpoint", ".xml");
+		write("<catalog><book id=\"bk101\"/></catalog>");
+	}
+
+	@Override
+	protected void tearDown(){
+		new Checkpoint(xmlFile.getPath()).delete();
+		xmlFile.delete();
+	}
+
+	public void testSavedRowsAreLoaded(){
+		Checkpoint checkpoint = new Checkpoint(xmlFile.getPath());
+		assertEquals(0, checkpoint.load());
+
+		assertTrue(checkpoint.save(1200));
+		assertTrue(checkpoint.save(3400));
+		assertEquals(3400, new Checkpoint(xmlFile.getPath()).load());
+
+		checkpoint.delete();
+		assertEquals(0, checkpoint.load());
+	}
+
+	public void testCheckpointOfAChangedFileIsIgnored() throws Exception {
+		Checkpoint checkpoint = new Checkpoint(xmlFile.getPath());
+		checkpoint.save(1200);
+
+		write("<catalog><book id=\"bk101\"/><book id=\"bk102\"/></catalog>");
+		assertEquals(0, checkpoint.load());
+	}
+
+	private void write(String xml) throws Exception {
+		try(OutputStream out = new FileOutputStream(xmlFile)){
+			out.write(xml.getBytes("UTF-8"));
+		}
+	}
+}
@@ -0,0 +1,97 @@
+package com.tannerembry.xmlshredder.importer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.xml.sax.InputSource;
+
+import junit.framework.TestCase;
+
+/**
+ * Compares the rows of a file parsed in chunks with the rows of the same file parsed on one thread.
+ */
+public class ChunkedParserTest extends TestCase {
+
+	private static final int RECORDS = 30000; //about 2.5 MB, so a chunk size of 1 MB gives three chunks
+
+	private File xmlFile;
+	private File configFile;
+
+	@Override
+	protected void setUp() throws IOException {
+		xmlFile = File.createTempFile("chunked", ".xml");
+		configFile = File.createTempFile("chunked-config", ".xml");
+
+		//the id element comes after the author element of the same book
+		try(PrintWriter out = new PrintWriter(xmlFile, "UTF-8")){
+			out.println("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+			out.println("<catalog>");
+			for(int i = 1; i <= RECORDS; i++)
+				out.println("  <book id=\"bk"+i+"\"><author>Author "+i+"</author><id>bk"+i+"</id><title>Title "+i+"</title></book>");
+			out.println("</catalog>");
+		}
+	}
+
+	@Override
+	protected void tearDown(){
+		xmlFile.delete();
+		configFile.delete();
+	}
+
+	public void testChunkedRowsMatchSequentialRows() throws Exception {
+		ImporterSettings settings = settings("catalog.book", "id");
+		ImportInstructionManager manager = new ImportInstructionManager(settings.getImportInstructionMap());
+		assertTrue(manager.canSplitRecords());
+
+		List<String> chunked = new ArrayList<>();
+		int chunks = new ChunkedParser(xmlFile.getPath(), manager, manager.getRecordElement(), settings, ParserEngine.forName("sax"))
+				.parse(row -> chunked.add(describe(row)));
+
+		assertTrue(chunks > 1);
+		assertEquals(RECORDS, chunked.size());
+		assertEquals(sequentialRows(settings, manager), chunked);
+	}
+
+	public void testKeyAfterChildrenIsNotSplit() throws Exception {
+		ImporterSettings settings = settings("catalog.book.id", "");
+		ImportInstructionManager manager = new ImportInstructionManager(settings.getImportInstructionMap());
+		assertFalse(manager.canSplitRecords());
+
+		//a chunk would start its first record with the author of the next book instead of adding it to the previous one
+		List<String> chunked = new ArrayList<>();
+		new ChunkedParser(xmlFile.getPath(), manager, manager.getRecordElement(), settings, ParserEngine.forName("sax"))
+				.parse(row -> chunked.add(describe(row)));
+		assertFalse(sequentialRows(settings, manager).equals(chunked));
+	}
+
+	private List<String> sequentialRows(ImporterSettings settings, ImportInstructionManager manager) throws Exception {
+		List<String> rows = new ArrayList<>();
+		SAXImportHandler handler = new SAXImportHandler(manager, row -> rows.add(describe(row)));
+		ParserEngine.forName("sax").parse(new InputSource(xmlFile.toURI().toString()), handler);
+		handler.processFinalEntries();
+		return rows;
+	}
+
+	private ImporterSettings settings(String keyPath, String keyAttribute) throws IOException {
+		try(PrintWriter out = new PrintWriter(configFile, "UTF-8")){
+			out.println("<config>");
+			out.println("  <performance><threads>2</threads><chunksize>1</chunksize></performance>");
+			out.println("  <mapping>");
+			out.println("    <xpath>"+keyPath+"</xpath><xattribute>"+keyAttribute+"</xattribute><dbtable>book</dbtable><dbfield>id</dbfield>");
+			for(String field : new String[]{"author", "title"}){
+				out.println("    <child_mapping><xpath>catalog.book."+field+"</xpath><xattribute></xattribute><dbtable>book</dbtable>"
+						+ "<dbfield>"+field+"</dbfield></child_mapping>");
+			}
+			out.println("  </mapping>");
+			out.println("</config>");
+		}
+		return new ImporterSettings(configFile.getPath());
+	}
+
+	private static String describe(ImportRow row){
+		return row.getTable()+" "+row.toString();
+	}
+}
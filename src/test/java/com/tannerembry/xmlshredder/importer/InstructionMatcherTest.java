@@ -0,0 +1,92 @@
+package com.tannerembry.xmlshredder.importer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests for the compiled xPath matcher.
+ */
+public class InstructionMatcherTest extends TestCase {
+
+	private ImportInstruction book;
+	private ImportInstruction author;
+	private ImportInstruction bookTitle;
+	private ImportInstruction title;
+	private InstructionMatcher matcher;
+
+	@Override
+	protected void setUp(){
+		book = new ImportInstruction("book", "id", "book", "id");
+		author = new ImportInstruction("catalog.book.author", "", "book", "author");
+		author.setParent(book);
+		bookTitle = new ImportInstruction("book.title", "", "book", "title");
+		bookTitle.setParent(book);
+		title = new ImportInstruction("title", "", "title", "name");
+
+		HashMap<String, ArrayList<ImportInstruction>> instructionMap = new HashMap<>();
+		put(instructionMap, "book", book);
+		put(instructionMap, "author", author);
+		put(instructionMap, "title", bookTitle);
+		put(instructionMap, "title", title);
+
+		matcher = new InstructionMatcher(instructionMap);
+	}
+
+	public void testPartialPathMatchesAtAnyDepth(){
+		assertMatches(walk("catalog", "book"), book);
+		assertMatches(walk("library", "shelf", "book"), book);
+	}
+
+	public void testFullPathOnlyMatchesWholeSuffix(){
+		assertMatches(walk("catalog", "book", "author"), author);
+		assertMatches(walk("library", "book", "author"));
+		assertMatches(walk("catalog", "magazine", "author"));
+	}
+
+	public void testParentsComeFirstAndOverlappingPathsBothMatch(){
+		assertMatches(walk("catalog", "book", "title"), title, bookTitle);
+		assertMatches(walk("catalog", "magazine", "title"), title);
+	}
+
+	public void testUnknownElementsResetState(){
+		assertMatches(walk("catalog", "unknown"));
+		assertMatches(walk("catalog", "unknown", "book"), book);
+	}
+
+	public void testManagerAgreesWithMatcher(){
+		ImportInstructionManager manager = new ImportInstructionManager(singleBookMap());
+		assertEquals(1, manager.getInstructions("book", "catalog.book").size());
+		assertEquals(0, manager.getInstructions("book", "catalog.ebook").size());
+	}
+
+	private HashMap<String, ArrayList<ImportInstruction>> singleBookMap(){
+		HashMap<String, ArrayList<ImportInstruction>> instructionMap = new HashMap<>();
+		put(instructionMap, "book", book);
+		return instructionMap;
+	}
+
+	private int walk(String... path){
+		int state = matcher.getRootState();
+		for(String element : path)
+			state = matcher.nextState(state, element);
+		return state;
+	}
+
+	private void assertMatches(int state, ImportInstruction... expected){
+		ImportInstruction[] actual = matcher.getInstructions(state);
+		assertEquals(expected.length, actual.length);
+		for(int i = 0; i < expected.length; i++)
+			assertSame(expected[i], actual[i]);
+	}
+
+	private static void put(HashMap<String, ArrayList<ImportInstruction>> map, String element, ImportInstruction instruction){
+		ArrayList<ImportInstruction> instructions = map.get(element);
+		if(instructions == null){
+			instructions = new ArrayList<>();
+			map.put(element, instructions);
+		}
+		instructions.add(instruction);
+	}
+}
@@ -0,0 +1,64 @@
+package com.tannerembry.xmlshredder.importer;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import org.xml.sax.InputSource;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks that the SAX and StAX engines produce the same, complete rows.
+ */
+public class ParserEngineTest extends TestCase {
+
+	private static final String XML = "<?xml version=\"1.0\"?>\n"
+			+ "<catalog xmlns:x=\"urn:x\">\n"
+			+ "  <book id=\"bk101\"><author>Gambardella, Matthew</author><title>XML &amp; You</title></book>\n"
+			+ "  <x:book id=\"ignored\"><author>Nobody</author></x:book>\n"
+			+ "  <book id=\"bk102\"><title><![CDATA[<Midnight Rain>]]></title><author>Ralls, Kim</author></book>\n"
+			+ "</catalog>\n";
+
+	public void testEnginesProduceTheSameRows() throws Exception {
+		List<String> saxRows = parse(new SaxEngine(), 0);
+		List<String> staxRows = parse(new StaxEngine(), 0);
+
+		assertEquals(2, saxRows.size());
+		assertEquals("(id, author, title) - ('bk101', 'Gambardella, Matthew', 'XML & You')", saxRows.get(0));
+		assertEquals("(id, title, author) - ('bk102', '<Midnight Rain>', 'Ralls, Kim')", saxRows.get(1));
+		assertEquals(saxRows, staxRows);
+	}
+
+	public void testValuesAreCappedAtTheMaximumLength() throws Exception {
+		List<String> rows = parse(new SaxEngine(), 5);
+		assertEquals("(id, author, title) - ('bk101', 'Gamba', 'XML &')", rows.get(0));
+	}
+
+	private static List<String> parse(ParserEngine engine, int maxValueLength) throws Exception {
+		ImportInstruction book = new ImportInstruction("book", "id", "book", "id");
+		ImportInstruction author = new ImportInstruction("book.author", "", "book", "author");
+		author.setParent(book);
+		ImportInstruction title = new ImportInstruction("book.title", "", "book", "title");
+		title.setParent(book);
+
+		HashMap<String, ArrayList<ImportInstruction>> instructionMap = new HashMap<>();
+		for(ImportInstruction instruction : new ImportInstruction[]{book, author, title}){
+			String element = instruction.getXPath().substring(instruction.getXPath().lastIndexOf('.') + 1);
+			if(!instructionMap.containsKey(element))
+				instructionMap.put(element, new ArrayList<ImportInstruction>());
+			instructionMap.get(element).add(instruction);
+		}
+
+		RowBuffer buffer = new RowBuffer();
+		SAXImportHandler handler = new SAXImportHandler(new ImportInstructionManager(instructionMap), buffer, maxValueLength);
+		engine.parse(new InputSource(new ByteArrayInputStream(XML.getBytes(StandardCharsets.UTF_8))), handler);
+		handler.processFinalEntries();
+
+		final List<String> rows = new ArrayList<>();
+		buffer.writeTo(row -> { rows.add(row.toString()); return true; });
+		return rows;
+	}
+}
@@ -0,0 +1,31 @@
+package com.tannerembry.xmlshredder.importer;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks that rows are spread over the partitions by table and key.
+ */
+public class PartitionedWriterTest extends TestCase {
+
+	public void testSameKeyAlwaysGoesToTheSamePartition(){
+		ImportRow insert = row("book", "bk101", "Ralls, Kim");
+		ImportRow update = row("book", "bk101", "Corets, Eva");
+		assertEquals(PartitionedWriter.partitionOf(insert, 4), PartitionedWriter.partitionOf(update, 4));
+	}
+
+	public void testKeysAreSpreadOverEveryPartition(){
+		int[] counts = new int[4];
+		for(int i = 0; i < 4000; i++)
+			counts[PartitionedWriter.partitionOf(row("book", "bk"+i, null), 4)]++;
+		for(int count : counts)
+			assertTrue(Arrays.toString(counts), count > 800);
+
+		assertEquals(0, PartitionedWriter.partitionOf(row("book", null, null), 1));
+	}
+
+	private static ImportRow row(String table, String key, String author){
+		return new ImportRow(null, table, Arrays.asList("id", "author"), Arrays.asList(key, author));
+	}
+}
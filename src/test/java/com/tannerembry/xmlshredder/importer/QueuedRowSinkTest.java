@@ -0,0 +1,45 @@
+package com.tannerembry.xmlshredder.importer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests for handing rows to the writer thread.
+ */
+public class QueuedRowSinkTest extends TestCase {
+
+	public void testRowsAreWrittenInOrder(){
+		RowBuffer target = new RowBuffer();
+		QueuedRowSink sink = new QueuedRowSink(target, 2);
+		for(int i = 0; i < 1000; i++)
+			sink.accept(row("bk" + i));
+		sink.finish();
+
+		final List<String> keys = new ArrayList<>();
+		target.writeTo(row -> keys.add(row.getKeyValue()));
+		assertEquals(1000, keys.size());
+		for(int i = 0; i < 1000; i++)
+			assertEquals("bk" + i, keys.get(i));
+	}
+
+	public void testWriterErrorReachesTheParser(){
+		QueuedRowSink sink = new QueuedRowSink(row -> { throw new IllegalArgumentException("broken"); }, 1);
+		try {
+			//the queue holds one row, so the parser must see the error before the loop ends
+			for(int i = 0; i < 1000; i++)
+				sink.accept(row("bk" + i));
+			sink.finish();
+			fail("The error of the writer thread was not passed on");
+		} catch (IllegalStateException e){
+			assertTrue(e.getCause() instanceof IllegalArgumentException);
+		}
+		sink.close();
+	}
+
+	private static ImportRow row(String key){
+		return new ImportRow(null, "book", Arrays.asList("id"), Arrays.asList(key));
+	}
+}
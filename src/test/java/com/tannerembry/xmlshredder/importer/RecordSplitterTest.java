@@ -0,0 +1,90 @@
+package com.tannerembry.xmlshredder.importer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import junit.framework.TestCase;
+
+/**
+ * Unit tests for cutting an xml file into chunks of whole records.
+ */
+public class RecordSplitterTest extends TestCase {
+
+	private static final String XML = "<?xml version=\"1.0\"?>\n"
+			+ "<!-- <book id=\"comment\"> -->\n"
+			+ "<catalog>\n"
+			+ "  <shelf name=\"a > b\">\n"
+			+ "    <book id=\"1\"><title><![CDATA[</book>]]></title><book id=\"nested\"/></book>\n"
+			+ "    <book id=\"2\"/>\n"
+			+ "  </shelf>\n"
+			+ "  <shelf name=\"c\">\n"
+			+ "    <book id=\"3\"><title>Three</title></book>\n"
+			+ "  </shelf>\n"
+			+ "</catalog>\n";
+
+	private File file;
+
+	@Override
+	protected void setUp() throws IOException {
+		file = File.createTempFile("records", ".xml");
+		Files.write(file.toPath(), XML.getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Override
+	protected void tearDown(){
+		file.delete();
+	}
+
+	public void testEveryChunkIsAWholeDocument() throws Exception {
+		List<Document> documents = this.split(1);
+
+		assertEquals(3, documents.size());
+		assertEquals("1", this.firstBook(documents.get(0)).getAttribute("id"));
+		assertEquals("</book>", this.firstBook(documents.get(0)).getElementsByTagName("title").item(0).getTextContent());
+		assertEquals("a > b", ((Element) documents.get(0).getElementsByTagName("shelf").item(0)).getAttribute("name"));
+		assertEquals("2", this.firstBook(documents.get(1)).getAttribute("id"));
+		assertEquals("3", this.firstBook(documents.get(2)).getAttribute("id"));
+	}
+
+	public void testRecordsOfOneParentShareAChunk() throws Exception {
+		List<Document> documents = this.split(1024 * 1024);
+
+		//the second shelf always starts a new chunk
+		assertEquals(2, documents.size());
+		assertEquals(3, documents.get(0).getElementsByTagName("book").getLength());
+		assertEquals(1, documents.get(1).getElementsByTagName("book").getLength());
+	}
+
+	private List<Document> split(long chunkSize) throws Exception {
+		List<Document> documents = new ArrayList<>();
+		RecordSplitter splitter = new RecordSplitter(file.getPath(), "book", chunkSize);
+		try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)){
+			RecordChunk chunk;
+			while((chunk = splitter.next()) != null){
+				assertEquals(documents.size(), chunk.getIndex());
+				try(InputStream in = chunk.open(channel)){
+					documents.add(DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(in));
+				}
+			}
+		} finally {
+			splitter.close();
+		}
+		return documents;
+	}
+
+	private Element firstBook(Document document){
+		return (Element) document.getElementsByTagName("book").item(0);
+	}
+}
@@ -0,0 +1,71 @@
+package com.tannerembry.xmlshredder.importer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+
+import com.tannerembry.xmlshredder.database.FingerprintStore;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks when the fingerprints of rows that are only exported are stored.
+ */
+public class RowWriterTest extends TestCase {
+
+	private File configFile;
+	private File storeFile;
+	private File exportFile;
+	private FingerprintStore fingerprints;
+
+	@Override
+	protected void setUp() throws IOException {
+		configFile = File.createTempFile("xmlshredder-rows", ".xml");
+		storeFile = new File(configFile.getPath()+".store");
+		exportFile = new File(configFile.getPath()+".csv");
+		try(PrintWriter out = new PrintWriter(configFile, "UTF-8")){
+			out.println("<config>");
+			out.println("  <misc><upload>false</upload><printqueries>false</printqueries></misc>");
+			out.println("  <spreadsheet><create>true</create><file>"+exportFile.getPath()+"</file><format>csv</format></spreadsheet>");
+			out.println("  <mapping>");
+			out.println("    <xpath>book</xpath><xattribute>id</xattribute><dbtable>book</dbtable><dbfield>id</dbfield>");
+			out.println("  </mapping>");
+			out.println("</config>");
+		}
+		fingerprints = new FingerprintStore(storeFile.getPath());
+	}
+
+	@Override
+	protected void tearDown(){
+		fingerprints.close();
+		storeFile.delete();
+		configFile.delete();
+	}
+
+	public void testExportedRowsAreStoredOnceTheExportIsWritten() throws IOException {
+		ImportRow row = new ImportRow(null, "book", Arrays.asList("id", "author"), Arrays.asList("bk1", "author1"));
+
+		//the file failed, so its rows are exported again next time
+		RowWriter rowWriter = this.rowWriter();
+		assertTrue(rowWriter.accept(row));
+		rowWriter.discard();
+		assertEquals(0, fingerprints.get(FingerprintStore.keyHash(row)));
+
+		rowWriter = this.rowWriter();
+		assertTrue(rowWriter.accept(row));
+		assertEquals(0, fingerprints.get(FingerprintStore.keyHash(row)));
+		rowWriter.close();
+		assertEquals(FingerprintStore.fingerprint(row), fingerprints.get(FingerprintStore.keyHash(row)));
+
+		rowWriter = this.rowWriter();
+		rowWriter.accept(row);
+		assertEquals(1, rowWriter.getUnchangedRows());
+	}
+
+	private RowWriter rowWriter(){
+		RowWriter rowWriter = new RowWriter(null, new ImporterSettings(configFile.getPath()), exportFile.getPath());
+		rowWriter.setFingerprints(fingerprints);
+		return rowWriter;
+	}
+}
@@ -0,0 +1,86 @@
+package com.tannerembry.xmlshredder.importer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.xml.sax.InputSource;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks the rows the handler assembles when children repeat, share a field or arrive before the key.
+ */
+public class SAXImportHandlerTest extends TestCase {
+
+	private File configFile;
+
+	@Override
+	protected void setUp() throws IOException {
+		configFile = File.createTempFile("xmlshredder-handler", ".xml");
+	}
+
+	@Override
+	protected void tearDown(){
+		configFile.delete();
+	}
+
+	public void testRepeatedChildStartsTheNextRowOfTheSameKey() throws Exception {
+		assertRows(rows("<catalog><book id=\"bk1\"><author>A1</author><author>A2</author><title>T1</title></book></catalog>", "id"),
+				"book (id, author) - ('bk1', 'A1')",
+				"book (id, author, title) - ('bk1', 'A2', 'T1')");
+	}
+
+	public void testMappingsThatShareAFieldFillTheSameColumn() throws Exception {
+		//subtitle is written into the title column as well
+		assertRows(rows("<catalog><book id=\"bk2\"><title>T2</title><subtitle>S2</subtitle><author>A3</author></book>"
+				+ "<book id=\"bk3\"><subtitle>S3</subtitle><title>T3</title></book></catalog>", "id"),
+				"book (id, title) - ('bk2', 'T2')",
+				"book (id, title, author) - ('bk2', 'S2', 'A3')",
+				"book (id, title) - ('bk3', 'S3')",
+				"book (id, title) - ('bk3', 'T3')");
+	}
+
+	public void testChildBeforeTheKeyIsWrittenWithoutIt() throws Exception {
+		//the first author has no key yet, the author before the second key still belongs to the first record
+		assertRows(rows("<catalog><book><author>A1</author><id>bk1</id><title>T1</title></book>"
+				+ "<book><author>A2</author><title>T2</title><id>bk2</id></book></catalog>", ""),
+				"book (author, author) - ('A1', 'A1')",
+				"book (id, title, author) - ('bk1', 'T1', 'A2')",
+				"book (id, title) - ('bk1', 'T2')");
+	}
+
+	/**
+	 * Parses the xml with the book mappings, keyed by the id attribute or (when keyAttribute is empty) the id element
+	 */
+	private List<String> rows(String xml, String keyAttribute) throws Exception {
+		try(PrintWriter out = new PrintWriter(configFile, "UTF-8")){
+			out.println("<config>");
+			out.println("  <mapping>");
+			out.println("    <xpath>"+(keyAttribute.isEmpty() ? "catalog.book.id" : "catalog.book")+"</xpath><xattribute>"+keyAttribute+"</xattribute>"
+					+ "<dbtable>book</dbtable><dbfield>id</dbfield>");
+			for(String[] child : new String[][]{{"author", "author"}, {"title", "title"}, {"subtitle", "title"}}){
+				out.println("    <child_mapping><xpath>catalog.book."+child[0]+"</xpath><xattribute></xattribute><dbtable>book</dbtable>"
+						+ "<dbfield>"+child[1]+"</dbfield></child_mapping>");
+			}
+			out.println("  </mapping>");
+			out.println("</config>");
+		}
+		ImporterSettings settings = new ImporterSettings(configFile.getPath());
+		ImportInstructionManager manager = new ImportInstructionManager(settings.getImportInstructionMap());
+
+		List<String> rows = new ArrayList<>();
+		SAXImportHandler handler = new SAXImportHandler(manager, row -> rows.add(row.getTable()+" "+row.toString()));
+		ParserEngine.forName("sax").parse(new InputSource(new StringReader(xml)), handler);
+		handler.processFinalEntries();
+		return rows;
+	}
+
+	private static void assertRows(List<String> actual, String... expected){
+		assertEquals(Arrays.asList(expected), actual);
+	}
+}
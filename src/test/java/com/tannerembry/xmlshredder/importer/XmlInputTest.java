@@ -0,0 +1,66 @@
+package com.tannerembry.xmlshredder.importer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks that plain and gzip compressed data files read back as the same xml.
+ */
+public class XmlInputTest extends TestCase {
+
+	private File plain;
+	private File compressed;
+	private String xml;
+
+	@Override
+	protected void setUp() throws Exception {
+		StringBuilder builder = new StringBuilder("<?xml version=\"1.0\"?>\n<catalog>\n");
+		for(int i = 0; i < 50000; i++)
+			builder.append("  <book id=\"bk").append(i).append("\"><title>Title ").append(i).append("</title></book>\n");
+		xml = builder.append("</catalog>\n").toString();
+
+		plain = File.createTempFile("xmlinput", ".xml");
+		compressed = File.createTempFile("xmlinput", ".xml.gz");
+		try(OutputStream out = new FileOutputStream(plain)){
+			out.write(xml.getBytes(StandardCharsets.UTF_8));
+		}
+		try(OutputStream out = new GZIPOutputStream(new FileOutputStream(compressed))){
+			out.write(xml.getBytes(StandardCharsets.UTF_8));
+		}
+	}
+
+	@Override
+	protected void tearDown(){
+		plain.delete();
+		compressed.delete();
+	}
+
+	public void testGzipIsFoundByMagicBytes() throws Exception {
+		assertFalse(XmlInput.isGzip(plain.getPath()));
+		assertTrue(XmlInput.isGzip(compressed.getPath()));
+		assertFalse(RecordSplitter.canSplit(compressed.getPath()));
+	}
+
+	public void testCompressedFileReadsAsPlainXml() throws Exception {
+		assertEquals(xml, read(plain.getPath()));
+		assertEquals(xml, read(compressed.getPath()));
+	}
+
+	private static String read(String xmlFile) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try(InputStream in = XmlInput.openStream(xmlFile)){
+			byte[] buffer = new byte[777];
+			int read;
+			while((read = in.read(buffer)) != -1)
+				out.write(buffer, 0, read);
+		}
+		return new String(out.toByteArray(), StandardCharsets.UTF_8);
+	}
+}
@@ -0,0 +1,30 @@
+package com.tannerembry.xmlshredder.metrics;
+
+import junit.framework.TestCase;
+
+/**
+ * Checks that percentiles are read from the right buckets.
+ */
+public class LatencyHistogramTest extends TestCase {
+
+	public void testPercentilesFallIntoDoublingBuckets(){
+		LatencyHistogram histogram = new LatencyHistogram();
+		assertEquals(0.0, histogram.getPercentileMillis(0.99));
+
+		//90 calls of 100 microseconds and 10 calls of 5 milliseconds
+		for(int i = 0; i < 90; i++)
+			histogram.record(100000);
+		for(int i = 0; i < 10; i++)
+			histogram.record(5000000);
+
+		assertEquals(100, histogram.getCount());
+		assertEquals(0.128, histogram.getPercentileMillis(0.5), 1e-9);
+		assertEquals(0.128, histogram.getPercentileMillis(0.9), 1e-9);
+		assertEquals(8.192, histogram.getPercentileMillis(0.99), 1e-9);
+		assertEquals(5.0, histogram.getMaxMillis(), 1e-9);
+		assertEquals(0.59, histogram.getMeanMillis(), 1e-9);
+
+		histogram.reset();
+		assertEquals(0, histogram.getCount());
+	}
+}